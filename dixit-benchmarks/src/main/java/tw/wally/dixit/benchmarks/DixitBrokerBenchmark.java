@@ -0,0 +1,95 @@
+package tw.wally.dixit.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.AbstractMessageChannel;
+import tw.wally.dixit.benchmarks.DixitFixtures.EventType;
+import tw.wally.dixit.brokers.DixitBroker;
+import tw.wally.dixit.brokers.DixitBroker.EventFormat;
+import tw.wally.dixit.brokers.DixitEventStreams;
+import tw.wally.dixit.brokers.DixitSubscriptions;
+import tw.wally.dixit.configs.JacksonConfiguration;
+import tw.wally.dixit.configs.WebSocketConfiguration.BrokerMode;
+import tw.wally.dixit.events.EventBus.Event;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static tw.wally.dixit.benchmarks.DixitFixtures.dixitForEvents;
+import static tw.wally.dixit.benchmarks.DixitFixtures.events;
+
+/**
+ * Publishes the events of a command through the broker until every message has been handed to the messaging template,
+ * the broker serializes the payloads to JSON like the service and the template hands them to a channel that only counts them.
+ *
+ * @author - wally55077@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DixitBrokerBenchmark {
+
+    @Param({"STORY_TOLD", "CARD_PLAYED", "STORY_GUESSED"})
+    public EventType eventType;
+    @Param({"false", "true"})
+    public boolean perPlayerTopics;
+    private final AtomicLong sentMessages = new AtomicLong();
+    private DixitEventStreams dixitEventStreams;
+    private DixitBroker dixitBroker;
+    private List<? extends Event> events;
+    private long messagesPerPublish;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        var objectMapper = new JacksonConfiguration().objectMapper();
+        var simpMessagingTemplate = new SimpMessagingTemplate(new AbstractMessageChannel() {
+            @Override
+            protected boolean sendInternal(org.springframework.messaging.Message<?> message, long timeout) {
+                sentMessages.incrementAndGet();
+                return true;
+            }
+        });
+        var meterRegistry = new SimpleMeterRegistry();
+        dixitEventStreams = new DixitEventStreams(64, Duration.ofMinutes(1), 1, meterRegistry);
+        // every topic is taken as subscribed to, so every message is serialized and sent
+        var dixitSubscriptions = new DixitSubscriptions(BrokerMode.SIMPLE, false, meterRegistry);
+        dixitBroker = new DixitBroker(simpMessagingTemplate, dixitEventStreams, dixitSubscriptions, objectMapper, perPlayerTopics, EventFormat.FULL, 1, 1024, meterRegistry);
+        events = events(eventType, dixitForEvents(false));
+        dixitBroker.publish(events);
+        messagesPerPublish = awaitSentMessages();
+    }
+
+    /**
+     * @return the number of messages sent once the broker has stopped sending
+     */
+    private long awaitSentMessages() throws InterruptedException {
+        long sent;
+        do {
+            sent = sentMessages.get();
+            Thread.sleep(100);
+        } while (dixitBroker.getQueueDepth() > 0 || sent != sentMessages.get());
+        return sent;
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        dixitBroker.shutdown();
+        dixitEventStreams.shutdown();
+    }
+
+    @Benchmark
+    public long publish() {
+        long sent = sentMessages.get() + messagesPerPublish;
+        dixitBroker.publish(events);
+        while (sentMessages.get() < sent) {
+            Thread.onSpinWait();
+        }
+        return sent;
+    }
+}
@@ -0,0 +1,58 @@
+package tw.wally.dixit.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tw.wally.dixit.model.Card;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.model.RoundState;
+import tw.wally.dixit.repositories.entities.DixitData;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.function.Function.identity;
+import static tw.wally.dixit.benchmarks.DixitFixtures.*;
+import static tw.wally.dixit.utils.StreamUtils.toMap;
+
+/**
+ * Maps a game in the middle of its round to the document saved into Mongo and back,
+ * the cards are resolved by their ids like the repositories resolve them.
+ *
+ * @author - wally55077@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DixitDataMappingBenchmark {
+
+    @Param({"CARD_PLAYING", "SCORING"})
+    public RoundState roundState;
+    private Map<Integer, Card> cards;
+    private Dixit dixit;
+    private DixitData dixitData;
+
+    @Setup
+    public void setup() {
+        var cards = cards(false);
+        this.cards = toMap(cards, Card::getId, identity());
+        this.dixit = playUpTo(startedDixit(cards, 6), roundState);
+        this.dixitData = DixitData.toData(dixit);
+    }
+
+    @Benchmark
+    public DixitData toData() {
+        return DixitData.toData(dixit);
+    }
+
+    @Benchmark
+    public Dixit toEntity() {
+        return dixitData.toEntity(cards::get);
+    }
+
+    @Benchmark
+    public Dixit roundTrip() {
+        return DixitData.toData(dixit).toEntity(cards::get);
+    }
+}
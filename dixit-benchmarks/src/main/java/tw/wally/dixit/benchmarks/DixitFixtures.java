@@ -0,0 +1,116 @@
+package tw.wally.dixit.benchmarks;
+
+import tw.wally.dixit.events.EventBus.Event;
+import tw.wally.dixit.events.delta.DixitRoundCardPlayedDeltaEvent;
+import tw.wally.dixit.events.delta.DixitRoundStoryGuessedDeltaEvent;
+import tw.wally.dixit.events.gamestate.DixitGameOverEvent;
+import tw.wally.dixit.events.gamestate.DixitGameStartedEvent;
+import tw.wally.dixit.events.roundstate.DixitRoundCardPlayedEvent;
+import tw.wally.dixit.events.roundstate.DixitRoundScoredEvent;
+import tw.wally.dixit.events.roundstate.DixitRoundStoryGuessedEvent;
+import tw.wally.dixit.events.roundstate.DixitRoundStoryToldEvent;
+import tw.wally.dixit.model.*;
+import tw.wally.dixit.repositories.CardRepository.ImageMode;
+import tw.wally.dixit.repositories.ResourceCardRepository;
+
+import java.util.List;
+
+import static tw.wally.dixit.utils.StreamUtils.mapToList;
+
+/**
+ * The games and events the benchmarks are run against, played with the cards of the default deck,
+ * with their images inlined like the service sends them or only referenced.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class DixitFixtures {
+    public static final String DIXIT_ID = "dixitId";
+    public static final String PHRASE = "benchmark story";
+    public static final int WINNING_SCORE = 30;
+    public static final long SEED = 18;
+
+    private DixitFixtures() {
+    }
+
+    public static List<Card> cards(boolean withImages) {
+        return new ResourceCardRepository(withImages ? ImageMode.INLINE : ImageMode.REFERENCE).findAll();
+    }
+
+    public static Dixit startedDixit(List<Card> cards, int numberOfPlayers) {
+        var dixit = new Dixit(DIXIT_ID, new VictoryCondition(WINNING_SCORE), cards, SEED);
+        for (int number = 0; number < numberOfPlayers; number++) {
+            dixit.join(new Player(String.valueOf(number), "player" + number));
+        }
+        dixit.start();
+        return dixit;
+    }
+
+    /**
+     * Plays the first round of a started game up to the round state, every player plays its first hand card
+     * and every guesser guesses the story's card.
+     */
+    public static Dixit playUpTo(Dixit dixit, RoundState roundState) {
+        Round round = dixit.getRound();
+        while (roundState != round.getRoundState()) {
+            switch (round.getRoundState()) {
+                case STORY_TELLING:
+                    Player storyteller = round.getStoryteller();
+                    dixit.tellStory(PHRASE, storyteller.getId(), firstHandCardId(storyteller));
+                    break;
+                case CARD_PLAYING:
+                    round.getGuessers().forEach(guesser -> dixit.playCard(guesser.getId(), firstHandCardId(guesser)));
+                    break;
+                case STORY_GUESSING:
+                    round.getGuessers().forEach(guesser -> dixit.guessStory(guesser.getId(), round.getStory().getCardId()));
+                    break;
+                default:
+                    throw new IllegalArgumentException(roundState + " is after the round is scored");
+            }
+        }
+        return dixit;
+    }
+
+    public static int firstHandCardId(Player player) {
+        return player.getHandCards().get(0).getId();
+    }
+
+    /**
+     * @return the events one command publishes, one per player except for the delta events
+     */
+    public static List<? extends Event> events(EventType eventType, Dixit dixit) {
+        var players = dixit.getPlayers();
+        int rounds = dixit.getNumberOfRounds();
+        Round round = dixit.getRound();
+        switch (eventType) {
+            case GAME_STARTED:
+                return mapToList(players, player -> new DixitGameStartedEvent(DIXIT_ID, rounds, player.getId(), GameState.STARTED, players));
+            case STORY_TOLD:
+                return mapToList(players, player -> new DixitRoundStoryToldEvent(DIXIT_ID, rounds, RoundState.CARD_PLAYING, round.getStoryteller(), player));
+            case CARD_PLAYED:
+                return mapToList(players, player -> new DixitRoundCardPlayedEvent(DIXIT_ID, rounds, player.getId(), RoundState.CARD_PLAYING, round.getStory(), round.getPlayCards()));
+            case CARD_PLAYED_DELTA:
+                return List.of(new DixitRoundCardPlayedDeltaEvent(DIXIT_ID, rounds, round.getPlayCards().get(0)));
+            case STORY_GUESSED:
+                return mapToList(players, player -> new DixitRoundStoryGuessedEvent(DIXIT_ID, rounds, player.getId(), RoundState.STORY_GUESSING, round.getStory(), round.getPlayCards(), round.getGuesses()));
+            case STORY_GUESSED_DELTA:
+                return List.of(new DixitRoundStoryGuessedDeltaEvent(DIXIT_ID, rounds, round.getGuesses().get(0)));
+            case ROUND_SCORED:
+                return mapToList(players, player -> new DixitRoundScoredEvent(DIXIT_ID, rounds, player.getId(), RoundState.SCORING, players));
+            case GAME_OVER:
+                return mapToList(players, player -> new DixitGameOverEvent(DIXIT_ID, rounds, player.getId(), GameState.OVER, players.subList(0, 1)));
+            default:
+                throw new IllegalArgumentException("Do not forget to add the event's type");
+        }
+    }
+
+    /**
+     * @return a game of six players that has played its first round up to the scoring, every event can be built from it
+     */
+    public static Dixit dixitForEvents(boolean withImages) {
+        return playUpTo(startedDixit(cards(withImages), 6), RoundState.SCORING);
+    }
+
+    public enum EventType {
+        GAME_STARTED, STORY_TOLD, CARD_PLAYED, CARD_PLAYED_DELTA, STORY_GUESSED, STORY_GUESSED_DELTA, ROUND_SCORED, GAME_OVER
+    }
+}
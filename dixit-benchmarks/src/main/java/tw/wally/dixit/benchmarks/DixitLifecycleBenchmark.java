@@ -0,0 +1,39 @@
+package tw.wally.dixit.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tw.wally.dixit.model.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static tw.wally.dixit.benchmarks.DixitFixtures.*;
+
+/**
+ * A game from the players joining to the first round being scored, played against the model alone.
+ *
+ * @author - wally55077@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DixitLifecycleBenchmark {
+
+    @Param({"4", "6"})
+    public int numberOfPlayers;
+    private List<Card> cards;
+
+    @Setup
+    public void setup() {
+        cards = cards(false);
+    }
+
+    @Benchmark
+    public Dixit joinToScore() {
+        Dixit dixit = playUpTo(startedDixit(cards, numberOfPlayers), RoundState.SCORING);
+        dixit.score();
+        return dixit;
+    }
+}
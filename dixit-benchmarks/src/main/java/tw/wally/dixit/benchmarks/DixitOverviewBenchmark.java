@@ -0,0 +1,73 @@
+package tw.wally.dixit.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import tw.wally.dixit.configs.JacksonConfiguration;
+import tw.wally.dixit.controllers.DixitController;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.model.RoundState;
+import tw.wally.dixit.repositories.DixitRepository;
+import tw.wally.dixit.services.SerializedDixitOverviewCache;
+import tw.wally.dixit.usecases.GetDixitOverviewUseCase;
+import tw.wally.dixit.views.DixitOverview;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static tw.wally.dixit.benchmarks.DixitFixtures.*;
+
+/**
+ * Presents the overview of a game to one of its players through the controller, the game is kept in memory
+ * and the command runs on the calling thread, so only the use case and the presenter are measured.
+ * The overview is also served from the cache of serialized overviews, as it is until the next move of the game.
+ *
+ * @author - wally55077@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DixitOverviewBenchmark {
+
+    @Param({"STORY_TELLING", "CARD_PLAYING", "STORY_GUESSING"})
+    public RoundState roundState;
+    @Param({"false", "true"})
+    public boolean withImages;
+    private DixitController dixitController;
+
+    @Setup
+    public void setup() {
+        Dixit dixit = playUpTo(startedDixit(cards(withImages), 6), roundState);
+        var dixitRepository = new DixitRepository() {
+            @Override
+            public Optional<Dixit> findDixitById(String id) {
+                return Optional.of(dixit);
+            }
+
+            @Override
+            public Dixit save(Dixit dixit) {
+                return dixit;
+            }
+
+            @Override
+            public void deleteAll() {
+            }
+        };
+        var getDixitOverviewUseCase = new GetDixitOverviewUseCase(dixitRepository, event -> {
+        }, (gameId, command) -> command.run());
+        var serializedDixitOverviewCache = new SerializedDixitOverviewCache(new JacksonConfiguration().objectMapper(), Long.MAX_VALUE, new SimpleMeterRegistry());
+        dixitController = new DixitController(null, null, null, null, null, getDixitOverviewUseCase, serializedDixitOverviewCache, null);
+    }
+
+    @Benchmark
+    public DixitOverview presentDixitOverview() {
+        return dixitController.presentDixitOverview(DIXIT_ID, "1");
+    }
+
+    @Benchmark
+    public byte[] getCachedDixitOverview() {
+        return dixitController.getDixitOverview(DIXIT_ID, "1", null).getBody();
+    }
+}
@@ -0,0 +1,47 @@
+package tw.wally.dixit.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import tw.wally.dixit.benchmarks.DixitFixtures.EventType;
+import tw.wally.dixit.configs.JacksonConfiguration;
+import tw.wally.dixit.events.EventBus.Event;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static tw.wally.dixit.benchmarks.DixitFixtures.dixitForEvents;
+import static tw.wally.dixit.benchmarks.DixitFixtures.events;
+
+/**
+ * Serializes the events a command publishes with the object mapper of the service and its serializers,
+ * with the card images inlined and without them.
+ *
+ * @author - wally55077@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    @Param
+    public EventType eventType;
+    @Param({"false", "true"})
+    public boolean withImages;
+    private ObjectMapper objectMapper;
+    private List<? extends Event> events;
+
+    @Setup
+    public void setup() {
+        objectMapper = new JacksonConfiguration().objectMapper();
+        events = events(eventType, dixitForEvents(withImages));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(events);
+    }
+}
@@ -0,0 +1,32 @@
+package tw.wally.dixit.simulation;
+
+import tw.wally.dixit.model.PlayCard;
+import tw.wally.dixit.model.Player;
+import tw.wally.dixit.model.Story;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * How a bot picks its moves, the random generator is the game's own so a simulated game is reproducible.
+ *
+ * @author - wally55077@gmail.com
+ */
+public interface BotStrategy {
+
+    /**
+     * @return the id of the storyteller's hand card the story is told with
+     */
+    int tellStory(Player storyteller, SplittableRandom random);
+
+    /**
+     * @return the id of the guesser's hand card played for the story
+     */
+    int playCard(Player guesser, Story story, SplittableRandom random);
+
+    /**
+     * @param playCards the story's card and the cards played by the other guessers
+     * @return the id of the card guessed to be the story's
+     */
+    int guessStory(Player guesser, List<PlayCard> playCards, SplittableRandom random);
+}
@@ -0,0 +1,39 @@
+package tw.wally.dixit.simulation;
+
+import tw.wally.dixit.model.PlayCard;
+import tw.wally.dixit.model.Player;
+import tw.wally.dixit.model.Story;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static java.lang.String.format;
+
+/**
+ * Always tells and plays its first hand card and guesses the first card that isn't its own,
+ * it draws nothing from the random generator, so it measures the model alone.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class FirstCardBotStrategy implements BotStrategy {
+
+    @Override
+    public int tellStory(Player storyteller, SplittableRandom random) {
+        return storyteller.getHandCards().get(0).getId();
+    }
+
+    @Override
+    public int playCard(Player guesser, Story story, SplittableRandom random) {
+        return guesser.getHandCards().get(0).getId();
+    }
+
+    @Override
+    public int guessStory(Player guesser, List<PlayCard> playCards, SplittableRandom random) {
+        for (PlayCard playCard : playCards) {
+            if (playCard.getPlayer() != guesser) {
+                return playCard.getCardId();
+            }
+        }
+        throw new IllegalStateException(format("Guesser: %s has no card to guess", guesser.getId()));
+    }
+}
@@ -0,0 +1,14 @@
+package tw.wally.dixit.simulation;
+
+import lombok.Value;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@Value
+public class GameResult {
+    int numberOfRounds;
+    int numberOfMoves;
+    // the final score of each player in the order they joined
+    int[] scores;
+}
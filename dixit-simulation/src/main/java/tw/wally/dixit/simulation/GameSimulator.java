@@ -0,0 +1,84 @@
+package tw.wally.dixit.simulation;
+
+import tw.wally.dixit.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static java.lang.String.format;
+import static java.util.Comparator.comparingInt;
+import static tw.wally.dixit.utils.StreamUtils.generate;
+
+/**
+ * Plays a complete game of bots against the {@link Dixit} model, from the start to its winners.
+ * A game is reproducible from its seed, the game shuffles from it and the bots draw from a generator split from it.
+ * It keeps no state between games, so one simulator plays games on many threads at once.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class GameSimulator {
+    private static final String PHRASE = "simulated story";
+    private static final int MAX_NUMBER_OF_ROUNDS = 1_000;
+    private final BotStrategy botStrategy;
+    private final int numberOfPlayers;
+    private final int winningScore;
+    private final List<Card> cards;
+
+    public GameSimulator(BotStrategy botStrategy, int numberOfPlayers, int winningScore, int numberOfCards) {
+        this.botStrategy = botStrategy;
+        this.numberOfPlayers = numberOfPlayers;
+        this.winningScore = winningScore;
+        this.cards = generate(numberOfCards, index -> new Card(index + 1, null));
+    }
+
+    public GameResult play(long seed) {
+        var random = new SplittableRandom(seed).split();
+        var dixit = new Dixit(String.valueOf(seed), new VictoryCondition(winningScore), cards, seed);
+        for (int number = 0; number < numberOfPlayers; number++) {
+            dixit.join(new Player(String.valueOf(number), "bot" + number));
+        }
+        dixit.start();
+        int numberOfMoves = 0;
+        while (true) {
+            numberOfMoves += playRound(dixit, random);
+            dixit.score();
+            if (GameState.OVER == dixit.getGameState()) {
+                break;
+            }
+            if (dixit.getNumberOfRounds() >= MAX_NUMBER_OF_ROUNDS) {
+                throw new IllegalStateException(format("Game: %s isn't over after %d rounds", dixit.getId(), MAX_NUMBER_OF_ROUNDS));
+            }
+            dixit.withdrawCards();
+            dixit.startNextRound();
+        }
+        var players = dixit.getPlayers();
+        int[] scores = new int[players.size()];
+        for (int index = 0; index < scores.length; index++) {
+            scores[index] = players.get(index).getScore();
+        }
+        return new GameResult(dixit.getNumberOfRounds(), numberOfMoves, scores);
+    }
+
+    /**
+     * @return the number of moves played
+     */
+    private int playRound(Dixit dixit, SplittableRandom random) {
+        Round round = dixit.getRound();
+        Player storyteller = round.getStoryteller();
+        dixit.tellStory(PHRASE, storyteller.getId(), botStrategy.tellStory(storyteller, random));
+        Story story = round.getStory();
+        for (Player guesser : round.getGuessers()) {
+            dixit.playCard(guesser.getId(), botStrategy.playCard(guesser, story, random));
+        }
+        // revealed in the order of their ids, so the position of a card tells nothing about whose it is
+        var playCards = new ArrayList<PlayCard>(round.getNumberOfGuessers() + 1);
+        playCards.add(story.getPlayCard());
+        playCards.addAll(round.getPlayCards());
+        playCards.sort(comparingInt(PlayCard::getCardId));
+        for (Player guesser : round.getGuessers()) {
+            dixit.guessStory(guesser.getId(), botStrategy.guessStory(guesser, playCards, random));
+        }
+        return 1 + 2 * round.getNumberOfGuessers();
+    }
+}
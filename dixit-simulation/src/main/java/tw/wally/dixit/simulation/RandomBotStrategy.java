@@ -0,0 +1,45 @@
+package tw.wally.dixit.simulation;
+
+import tw.wally.dixit.model.Card;
+import tw.wally.dixit.model.PlayCard;
+import tw.wally.dixit.model.Player;
+import tw.wally.dixit.model.Story;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static java.lang.String.format;
+
+/**
+ * Tells, plays and guesses any card, never guessing its own card.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class RandomBotStrategy implements BotStrategy {
+
+    @Override
+    public int tellStory(Player storyteller, SplittableRandom random) {
+        return anyHandCard(storyteller, random);
+    }
+
+    @Override
+    public int playCard(Player guesser, Story story, SplittableRandom random) {
+        return anyHandCard(guesser, random);
+    }
+
+    @Override
+    public int guessStory(Player guesser, List<PlayCard> playCards, SplittableRandom random) {
+        int index = random.nextInt(playCards.size() - 1);
+        for (PlayCard playCard : playCards) {
+            if (playCard.getPlayer() != guesser && index-- == 0) {
+                return playCard.getCardId();
+            }
+        }
+        throw new IllegalStateException(format("Guesser: %s has no card to guess", guesser.getId()));
+    }
+
+    private static int anyHandCard(Player player, SplittableRandom random) {
+        List<Card> handCards = player.getHandCards();
+        return handCards.get(random.nextInt(handCards.size())).getId();
+    }
+}
@@ -0,0 +1,106 @@
+package tw.wally.dixit.simulation;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.lang.String.format;
+import static tw.wally.dixit.model.Dixit.MAX_NUMBER_OF_PLAYERS;
+
+/**
+ * Plays a number of games of bots across a fork-join pool, game n is played with the seed plus n,
+ * so a simulation is reproducible from its seed whatever the number of threads.
+ * Run it with "mvn -pl dixit-simulation -am package exec:java -Dexec.args='games players strategy threads seed'".
+ *
+ * @author - wally55077@gmail.com
+ */
+public class Simulation {
+    public static final int DEFAULT_WINNING_SCORE = 30;
+    // the number of cards of the default deck
+    public static final int DEFAULT_NUMBER_OF_CARDS = 36;
+    private static final int GAMES_PER_TASK = 1_000;
+    private static final Map<String, BotStrategy> BOT_STRATEGIES = Map.of(
+            "random", new RandomBotStrategy(),
+            "first", new FirstCardBotStrategy());
+    private final GameSimulator gameSimulator;
+    private final ForkJoinPool forkJoinPool;
+
+    public Simulation(GameSimulator gameSimulator, ForkJoinPool forkJoinPool) {
+        this.gameSimulator = gameSimulator;
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public SimulationReport run(long numberOfGames, long seed) {
+        long start = System.nanoTime();
+        SimulationStatistics statistics = forkJoinPool.invoke(new PlayGamesTask(seed, 0, numberOfGames));
+        return new SimulationReport(statistics, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private class PlayGamesTask extends RecursiveTask<SimulationStatistics> {
+        private final long seed;
+        private final long fromGame;
+        private final long toGame;
+
+        private PlayGamesTask(long seed, long fromGame, long toGame) {
+            this.seed = seed;
+            this.fromGame = fromGame;
+            this.toGame = toGame;
+        }
+
+        @Override
+        protected SimulationStatistics compute() {
+            if (toGame - fromGame > GAMES_PER_TASK) {
+                long middleGame = (fromGame + toGame) >>> 1;
+                var secondHalf = new PlayGamesTask(seed, middleGame, toGame);
+                secondHalf.fork();
+                return new PlayGamesTask(seed, fromGame, middleGame).compute().merge(secondHalf.join());
+            }
+            var statistics = new SimulationStatistics();
+            long allocatedBytes = currentThreadAllocatedBytes();
+            for (long game = fromGame; game < toGame; game++) {
+                statistics.add(gameSimulator.play(seed + game));
+            }
+            statistics.addAllocatedBytes(allocatedBytes < 0 ? -1 : currentThreadAllocatedBytes() - allocatedBytes);
+            return statistics;
+        }
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        var threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * @param args the number of games, the number of players, the bot strategy (random or first),
+     *             the number of threads and the seed, each has a default when it's left out
+     */
+    public static void main(String[] args) {
+        long numberOfGames = args.length > 0 ? parseLong(args[0]) : 1_000_000;
+        int numberOfPlayers = args.length > 1 ? parseInt(args[1]) : MAX_NUMBER_OF_PLAYERS;
+        String strategy = args.length > 2 ? args[2] : "random";
+        int parallelism = args.length > 3 ? parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? parseLong(args[4]) : 0;
+        BotStrategy botStrategy = BOT_STRATEGIES.get(strategy);
+        if (botStrategy == null) {
+            throw new IllegalArgumentException(format("Bot strategy: %s not found, it should be one of %s", strategy, BOT_STRATEGIES.keySet()));
+        }
+        var gameSimulator = new GameSimulator(botStrategy, numberOfPlayers, DEFAULT_WINNING_SCORE, DEFAULT_NUMBER_OF_CARDS);
+        var forkJoinPool = new ForkJoinPool(parallelism);
+        try {
+            var simulation = new Simulation(gameSimulator, forkJoinPool);
+            // lets the JIT compile the model before anything is measured
+            simulation.run(Math.min(numberOfGames / 10, 100_000), seed - 100_000);
+            System.out.printf("%d games of %d %s bots on %d threads%n", numberOfGames, numberOfPlayers, strategy, parallelism);
+            System.out.println(simulation.run(numberOfGames, seed));
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+}
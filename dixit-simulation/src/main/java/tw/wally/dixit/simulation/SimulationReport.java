@@ -0,0 +1,58 @@
+package tw.wally.dixit.simulation;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+import static java.lang.String.format;
+import static tw.wally.dixit.simulation.SimulationStatistics.percentile;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@Value
+public class SimulationReport {
+    private static final double NANOS_PER_SECOND = 1e9;
+    SimulationStatistics statistics;
+    Duration elapsed;
+
+    public double getGamesPerSecond() {
+        return perSecond(statistics.getNumberOfGames());
+    }
+
+    public double getMovesPerSecond() {
+        return perSecond(statistics.getNumberOfMoves());
+    }
+
+    /**
+     * @return the bytes allocated per second, negative when the JVM doesn't measure it
+     */
+    public double getAllocatedBytesPerSecond() {
+        return statistics.getAllocatedBytes() < 0 ? -1 : perSecond(statistics.getAllocatedBytes());
+    }
+
+    private double perSecond(long count) {
+        return count * NANOS_PER_SECOND / Math.max(1, elapsed.toNanos());
+    }
+
+    @Override
+    public String toString() {
+        long numberOfGames = Math.max(1, statistics.getNumberOfGames());
+        return String.join(System.lineSeparator(),
+                format("elapsed: %d ms", elapsed.toMillis()),
+                format("games/sec: %.0f", getGamesPerSecond()),
+                format("moves/sec: %.0f", getMovesPerSecond()),
+                statistics.getAllocatedBytes() < 0 ? "allocation: not measured" :
+                        format("allocation: %.1f MB/sec, %d bytes/game",
+                                getAllocatedBytesPerSecond() / (1 << 20), statistics.getAllocatedBytes() / numberOfGames),
+                format("rounds/game: mean %.2f, %s", (double) statistics.getNumberOfRounds() / numberOfGames,
+                        percentiles(statistics.getRoundCounts())),
+                format("player score: %s", percentiles(statistics.getScoreCounts())),
+                format("winning score: %s", percentiles(statistics.getWinningScoreCounts())));
+    }
+
+    private static String percentiles(long[] counts) {
+        return format("p50 %d, p90 %d, p99 %d, max %d",
+                percentile(counts, 50), percentile(counts, 90), percentile(counts, 99), percentile(counts, 100));
+    }
+}
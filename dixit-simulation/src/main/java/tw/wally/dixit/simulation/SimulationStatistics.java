@@ -0,0 +1,76 @@
+package tw.wally.dixit.simulation;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Adds up the results of the games played by one task, the statistics of the tasks are merged when they join.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Getter
+public class SimulationStatistics {
+    // the highest score and number of rounds counted on their own, anything above shares the last bucket
+    private static final int MAX_COUNTED_SCORE = 64;
+    private static final int MAX_COUNTED_ROUNDS = 128;
+    private long numberOfGames;
+    private long numberOfMoves;
+    private long numberOfRounds;
+    // the bytes allocated by the threads playing the games, -1 when the JVM doesn't measure it
+    private long allocatedBytes;
+    private final long[] scoreCounts = new long[MAX_COUNTED_SCORE + 1];
+    private final long[] winningScoreCounts = new long[MAX_COUNTED_SCORE + 1];
+    private final long[] roundCounts = new long[MAX_COUNTED_ROUNDS + 1];
+
+    public void add(GameResult result) {
+        numberOfGames++;
+        numberOfMoves += result.getNumberOfMoves();
+        numberOfRounds += result.getNumberOfRounds();
+        roundCounts[Math.min(result.getNumberOfRounds(), MAX_COUNTED_ROUNDS)]++;
+        int winningScore = 0;
+        for (int score : result.getScores()) {
+            scoreCounts[Math.min(score, MAX_COUNTED_SCORE)]++;
+            winningScore = Math.max(winningScore, score);
+        }
+        winningScoreCounts[Math.min(winningScore, MAX_COUNTED_SCORE)]++;
+    }
+
+    public void addAllocatedBytes(long allocatedBytes) {
+        this.allocatedBytes = this.allocatedBytes < 0 || allocatedBytes < 0 ? -1 : this.allocatedBytes + allocatedBytes;
+    }
+
+    public SimulationStatistics merge(SimulationStatistics statistics) {
+        numberOfGames += statistics.numberOfGames;
+        numberOfMoves += statistics.numberOfMoves;
+        numberOfRounds += statistics.numberOfRounds;
+        addAllocatedBytes(statistics.allocatedBytes);
+        addCounts(scoreCounts, statistics.scoreCounts);
+        addCounts(winningScoreCounts, statistics.winningScoreCounts);
+        addCounts(roundCounts, statistics.roundCounts);
+        return this;
+    }
+
+    private static void addCounts(long[] counts, long[] addedCounts) {
+        for (int index = 0; index < counts.length; index++) {
+            counts[index] += addedCounts[index];
+        }
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return the lowest value that at least the percentile of the counted values are lower than or equal to
+     */
+    public static int percentile(long[] counts, double percentile) {
+        long total = Arrays.stream(counts).sum();
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long counted = 0;
+        for (int value = 0; value < counts.length; value++) {
+            counted += counts[value];
+            if (counted >= Math.max(1, rank)) {
+                return value;
+            }
+        }
+        return counts.length - 1;
+    }
+}
@@ -0,0 +1,71 @@
+package tw.wally.dixit.simulation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static tw.wally.dixit.simulation.Simulation.DEFAULT_NUMBER_OF_CARDS;
+import static tw.wally.dixit.simulation.Simulation.DEFAULT_WINNING_SCORE;
+import static tw.wally.dixit.simulation.SimulationStatistics.percentile;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+public class SimulationTest {
+    private static final int NUMBER_OF_GAMES = 5_000;
+    private static final long SEED = 17;
+    private final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+
+    @AfterEach
+    public void shutdownPool() {
+        forkJoinPool.shutdown();
+    }
+
+    @Test
+    public void WhenSimulateGamesOfRandomBots_ThenEveryGameShouldBePlayedToItsWinners() {
+        var report = simulation(new RandomBotStrategy(), 6).run(NUMBER_OF_GAMES, SEED);
+
+        var statistics = report.getStatistics();
+        assertEquals(NUMBER_OF_GAMES, statistics.getNumberOfGames());
+        assertEquals(NUMBER_OF_GAMES * 6L, Arrays.stream(statistics.getScoreCounts()).sum());
+        assertTrue(percentile(statistics.getWinningScoreCounts(), 0) >= DEFAULT_WINNING_SCORE);
+        assertTrue(statistics.getNumberOfMoves() > statistics.getNumberOfRounds() * 6);
+        assertTrue(report.getGamesPerSecond() > 0);
+        assertTrue(report.getMovesPerSecond() > report.getGamesPerSecond());
+    }
+
+    @Test
+    public void WhenSimulateGamesOnDifferentNumbersOfThreads_ThenShouldPlayTheSameGames() {
+        var simulation = simulation(new RandomBotStrategy(), 4);
+        var statistics = simulation.run(NUMBER_OF_GAMES, SEED).getStatistics();
+        var gameSimulator = new GameSimulator(new RandomBotStrategy(), 4, DEFAULT_WINNING_SCORE, DEFAULT_NUMBER_OF_CARDS);
+        var singleThreadPool = new ForkJoinPool(1);
+        try {
+            var singleThreadStatistics = new Simulation(gameSimulator, singleThreadPool).run(NUMBER_OF_GAMES, SEED).getStatistics();
+
+            assertEquals(statistics.getNumberOfMoves(), singleThreadStatistics.getNumberOfMoves());
+            assertArrayEquals(statistics.getScoreCounts(), singleThreadStatistics.getScoreCounts());
+            assertArrayEquals(statistics.getRoundCounts(), singleThreadStatistics.getRoundCounts());
+        } finally {
+            singleThreadPool.shutdown();
+        }
+    }
+
+    @Test
+    public void WhenPlayGameOfFirstCardBotsTwiceWithTheSameSeed_ThenShouldPlayTheSameGame() {
+        var gameSimulator = new GameSimulator(new FirstCardBotStrategy(), 5, DEFAULT_WINNING_SCORE, DEFAULT_NUMBER_OF_CARDS);
+
+        var result = gameSimulator.play(SEED);
+
+        assertEquals(result, gameSimulator.play(SEED));
+        assertEquals(1 + 2 * 4, result.getNumberOfMoves() / result.getNumberOfRounds());
+    }
+
+    private Simulation simulation(BotStrategy botStrategy, int numberOfPlayers) {
+        var gameSimulator = new GameSimulator(botStrategy, numberOfPlayers, DEFAULT_WINNING_SCORE, DEFAULT_NUMBER_OF_CARDS);
+        return new Simulation(gameSimulator, forkJoinPool);
+    }
+}
@@ -0,0 +1,57 @@
+package tw.wally.dixit.events;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Holds back the events a command publishes until the command has saved its changes,
+ * so a command that is re-applied after a conflict doesn't publish its events twice.
+ * Outside of {@link #buffer()} and {@link #flush()} events go straight to the underlying bus.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class BufferedEventBus implements EventBus {
+    private final EventBus eventBus;
+    private final ThreadLocal<List<Event>> bufferedEvents = new ThreadLocal<>();
+
+    public BufferedEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public void publish(Event event) {
+        List<Event> events = bufferedEvents.get();
+        if (events == null) {
+            eventBus.publish(event);
+        } else {
+            events.add(event);
+        }
+    }
+
+    @Override
+    public void publish(Collection<? extends Event> events) {
+        List<Event> buffer = bufferedEvents.get();
+        if (buffer == null) {
+            eventBus.publish(events);
+        } else {
+            buffer.addAll(events);
+        }
+    }
+
+    public void buffer() {
+        bufferedEvents.set(new ArrayList<>());
+    }
+
+    public void flush() {
+        List<Event> events = bufferedEvents.get();
+        bufferedEvents.remove();
+        if (events != null && !events.isEmpty()) {
+            eventBus.publish(events);
+        }
+    }
+
+    public void discard() {
+        bufferedEvents.remove();
+    }
+}
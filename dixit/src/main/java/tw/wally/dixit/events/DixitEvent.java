@@ -1,6 +1,8 @@
 package tw.wally.dixit.events;
 
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import tw.wally.dixit.events.EventBus.Event;
 import tw.wally.dixit.model.Guess;
 import tw.wally.dixit.model.PlayCard;
@@ -9,8 +11,12 @@ import tw.wally.dixit.model.Player;
 /**
  * @author - wally55077@gmail.com
  */
+@Getter
 @NoArgsConstructor
 public class DixitEvent extends Event {
+    // the version the game is saved at by the command publishing this event, it increases by one per command
+    @Setter
+    private long sequence;
 
     public DixitEvent(String gameId, int rounds, String playerId) {
         super(gameId, rounds, playerId);
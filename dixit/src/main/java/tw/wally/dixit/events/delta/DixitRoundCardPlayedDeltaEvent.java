@@ -0,0 +1,22 @@
+package tw.wally.dixit.events.delta;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import tw.wally.dixit.model.PlayCard;
+import tw.wally.dixit.model.RoundState;
+
+/**
+ * Only carries the card that has just been played, instead of every play card of the round.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Getter
+@NoArgsConstructor
+public class DixitRoundCardPlayedDeltaEvent extends DixitRoundDeltaEvent {
+    private PlayCard playCard;
+
+    public DixitRoundCardPlayedDeltaEvent(String gameId, int rounds, PlayCard playCard) {
+        super(gameId, rounds, RoundState.CARD_PLAYING);
+        this.playCard = renewPlayCard(playCard);
+    }
+}
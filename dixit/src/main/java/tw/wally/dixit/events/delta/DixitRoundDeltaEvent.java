@@ -0,0 +1,19 @@
+package tw.wally.dixit.events.delta;
+
+import lombok.NoArgsConstructor;
+import tw.wally.dixit.events.DixitRoundEvent;
+import tw.wally.dixit.model.RoundState;
+
+/**
+ * Carries only what a command has changed in a round, it is published once per game rather than once per player.
+ * It replaces the full event of the same round state for the clients that opt in to the delta format.
+ *
+ * @author - wally55077@gmail.com
+ */
+@NoArgsConstructor
+public abstract class DixitRoundDeltaEvent extends DixitRoundEvent {
+
+    public DixitRoundDeltaEvent(String gameId, int rounds, RoundState roundState) {
+        super(gameId, rounds, null, roundState);
+    }
+}
@@ -0,0 +1,22 @@
+package tw.wally.dixit.events.delta;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import tw.wally.dixit.model.Guess;
+import tw.wally.dixit.model.RoundState;
+
+/**
+ * Only carries the guess that has just been made, instead of every play card and guess of the round.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Getter
+@NoArgsConstructor
+public class DixitRoundStoryGuessedDeltaEvent extends DixitRoundDeltaEvent {
+    private Guess guess;
+
+    public DixitRoundStoryGuessedDeltaEvent(String gameId, int rounds, Guess guess) {
+        super(gameId, rounds, RoundState.STORY_GUESSING);
+        this.guess = renewGuess(guess);
+    }
+}
@@ -0,0 +1,27 @@
+package tw.wally.dixit.exceptions;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException() {
+        super();
+    }
+
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    public ConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ConflictException(Throwable cause) {
+        super(cause);
+    }
+
+    protected ConflictException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -15,13 +15,25 @@ import static java.util.Objects.hash;
 public class Card {
     private int id;
     private String image;
+    private String hash;
+
+    public Card(int id, String image) {
+        this(id, image, null);
+    }
+
+    /**
+     * @return the same card numbered by the given id, e.g. within its deck
+     */
+    public Card withId(int id) {
+        return new Card(id, getImage(), hash);
+    }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) {
             return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        if (!(o instanceof Card)) {
             return false;
         }
         Card card = (Card) o;
@@ -0,0 +1,20 @@
+package tw.wally.dixit.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One resolution of a card's image, the hash identifies the bytes of this resolution.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Getter
+@AllArgsConstructor
+public class CardImage {
+    private final int width;
+    private final String hash;
+    // a read-only view of the raw JPEG bytes
+    private final ByteBuffer bytes;
+}
@@ -0,0 +1,97 @@
+package tw.wally.dixit.model;
+
+import tw.wally.dixit.exceptions.InvalidGameStateException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static java.lang.Math.max;
+import static java.util.Arrays.copyOf;
+
+/**
+ * The cards left to deal, kept from the bottom to the top of the deck as an int[] with its size as the cursor to the top.
+ * The ints number the cards of the game densely in a table made with the deck, instead of by their ids,
+ * so neither the ids of the cards nor the decks they come from make it any larger.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class Deck {
+    // the cards of the game, a card put back without coming from the deck is added to them
+    private Card[] table;
+    private int tableSize;
+    private int[] cards;
+    private int size;
+
+    public Deck(Collection<Card> cards) {
+        this.table = new Card[cards.size()];
+        this.cards = new int[cards.size()];
+        cards.forEach(card -> this.cards[size++] = add(card));
+    }
+
+    /**
+     * @return the card on the top of the deck
+     */
+    public Card deal() {
+        if (size == 0) {
+            throw new InvalidGameStateException("There's no card left in the deck");
+        }
+        return table[cards[--size]];
+    }
+
+    public void putBack(Card card) {
+        int number = numberOf(card);
+        if (size == cards.length) {
+            cards = copyOf(cards, max(1, size * 2));
+        }
+        System.arraycopy(cards, 0, cards, 1, size);
+        cards[0] = number;
+        size++;
+    }
+
+    private int numberOf(Card card) {
+        for (int number = 0; number < tableSize; number++) {
+            if (table[number].getId() == card.getId()) {
+                return number;
+            }
+        }
+        return add(card);
+    }
+
+    private int add(Card card) {
+        if (tableSize == table.length) {
+            table = copyOf(table, max(1, tableSize * 2));
+        }
+        table[tableSize] = card;
+        return tableSize++;
+    }
+
+    int capacity() {
+        return max(cards.length, table.length);
+    }
+
+    public void shuffle(SplittableRandom random) {
+        for (int index = size - 1; index > 0; index--) {
+            int swapped = random.nextInt(index + 1);
+            int number = cards[index];
+            cards[index] = cards[swapped];
+            cards[swapped] = number;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the cards from the bottom to the top of the deck
+     */
+    public List<Card> getCards() {
+        var cards = new ArrayList<Card>(size);
+        for (int index = 0; index < size; index++) {
+            cards.add(table[this.cards[index]]);
+        }
+        return cards;
+    }
+}
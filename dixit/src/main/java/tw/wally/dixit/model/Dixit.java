@@ -3,14 +3,15 @@ package tw.wally.dixit.model;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.Setter;
 import tw.wally.dixit.exceptions.InvalidGameOperationException;
 import tw.wally.dixit.exceptions.InvalidGameStateException;
 import tw.wally.dixit.exceptions.NotFoundException;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static java.lang.String.format;
-import static java.util.Collections.shuffle;
 import static java.util.Comparator.comparing;
 import static java.util.List.copyOf;
 import static java.util.Optional.ofNullable;
@@ -27,24 +28,49 @@ public class Dixit {
     public static final int NUMBER_OF_DEALT_CARD = 1;
     public static final int MIN_NUMBER_OF_PLAYERS = 4;
     public static final int MAX_NUMBER_OF_PLAYERS = 6;
+    // the golden ratio gamma of SplittableRandom, it spreads the seeds of the rounds of a game apart
+    private static final long ROUND_SEED_GAMMA = 0x9e3779b97f4a7c15L;
     private final String id;
     private GameState gameState;
     private final VictoryCondition victoryCondition;
-    private final LinkedList<Card> deck;
+    // every shuffle of the game is derived from it, so the game can be replayed from its seed and its commands
+    private final long seed;
+    private final Deck deck;
     private List<Player> players;
     private int numberOfRounds;
     private Round round;
     private Collection<Player> winners;
+    // the persisted version this game was loaded from, null until it is saved for the first time
+    @Setter
+    private Long version;
 
     public Dixit(String id, VictoryCondition victoryCondition, Collection<Card> cards) {
+        this(id, victoryCondition, cards, ThreadLocalRandom.current().nextLong());
+    }
+
+    public Dixit(String id, VictoryCondition victoryCondition, Collection<Card> cards, long seed) {
         this.id = id;
         this.gameState = GameState.PREPARING;
         this.victoryCondition = victoryCondition;
-        this.deck = new LinkedList<>(cards);
-        shuffle(this.deck);
+        this.seed = seed;
+        this.deck = new Deck(cards);
         this.players = new ArrayList<>(MAX_NUMBER_OF_PLAYERS);
         this.numberOfRounds = 0;
         this.winners = new ArrayList<>(MAX_NUMBER_OF_PLAYERS);
+        this.deck.shuffle(random());
+    }
+
+    /**
+     * Each shuffle has its own generator seeded from the game's seed and the number of rounds,
+     * so a game restored in the middle shuffles the same way as the game replayed from the start.
+     */
+    private SplittableRandom random() {
+        return new SplittableRandom(seed + numberOfRounds * ROUND_SEED_GAMMA);
+    }
+
+    // the version the command that is changing this game saves it at
+    public long getNextVersion() {
+        return version == null ? 0 : version + 1;
     }
 
     public void join(Player player) {
@@ -79,12 +105,12 @@ public class Dixit {
     }
 
     private void dealCardsToAllPlayers(int numberOfCard) {
-        players.forEach(player -> player.addHandCards(generate(numberOfCard, index -> deck.pollLast())));
+        players.forEach(player -> player.addHandCards(generate(numberOfCard, index -> deck.deal())));
     }
 
     private void startNewRound() {
-        shuffle(deck);
         numberOfRounds++;
+        deck.shuffle(random());
         int currentStoryTellerPosition = numberOfRounds - 1;
         Player storyteller = players.get(currentStoryTellerPosition % players.size());
         var guessers = filterToList(players, player -> player != storyteller);
@@ -116,7 +142,7 @@ public class Dixit {
     }
 
     public void withdrawCards() {
-        getRound().withdrawCards().forEach(deck::addFirst);
+        getRound().withdrawCards().forEach(deck::putBack);
     }
 
     public Player getCurrentStoryteller() {
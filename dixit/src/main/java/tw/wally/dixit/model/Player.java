@@ -1,6 +1,5 @@
 package tw.wally.dixit.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import tw.wally.dixit.exceptions.InvalidGameOperationException;
@@ -10,26 +9,26 @@ import java.util.*;
 
 import static java.lang.Math.max;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Objects.hash;
 import static java.util.Objects.requireNonNullElseGet;
-import static java.util.function.Function.identity;
 import static tw.wally.dixit.model.Dixit.NUMBER_OF_DEALT_CARD;
 import static tw.wally.dixit.model.Dixit.NUMBER_OF_PLAYER_HAND_CARDS;
 import static tw.wally.dixit.model.Round.BONUS_SCORE;
 import static tw.wally.dixit.model.Round.GUESS_CORRECTLY_SCORE;
-import static tw.wally.dixit.utils.StreamUtils.toMap;
 
 /**
  * @author - wally55077@gmail.com
  */
 @Getter
 @NoArgsConstructor
-@AllArgsConstructor
 public class Player {
     private String id;
     private String name;
     private Color color;
-    private Map<Integer, Card> handCards;
+    // the hand cards in the order they were dealt, a hand never holds more than a few cards
+    private Card[] handCards = new Card[NUMBER_OF_PLAYER_HAND_CARDS];
+    private int numberOfHandCards;
     private int score;
 
     public Player(String id, String name) {
@@ -37,34 +36,36 @@ public class Player {
     }
 
     public Player(String id, String name, Collection<Card> handCards, int score) {
-        this(id, name, toMap(requireNonNullElseGet(handCards, List::of), Card::getId, identity()), score);
+        this(id, name, null, handCards, score);
     }
 
     public Player(String id, String name, int score) {
-        this(id, name, new HashMap<>(NUMBER_OF_PLAYER_HAND_CARDS), score);
+        this(id, name, null, List.of(), score);
     }
 
     public Player(String id, String name, Map<Integer, Card> handCards, int score) {
-        this.id = id;
-        this.name = name;
-        this.handCards = requireNonNullElseGet(handCards, HashMap::new);
-        this.score = max(0, score);
+        this(id, name, requireNonNullElseGet(handCards, Map::<Integer, Card>of).values(), score);
     }
 
     public Player(String id, String name, Color color, int score) {
-        this(id, name, color, new HashMap<>(NUMBER_OF_PLAYER_HAND_CARDS), score);
+        this(id, name, color, List.of(), score);
     }
 
     public Player(String id, String name, Color color, Collection<Card> handCards, int score) {
-        this(id, name, color, toMap(requireNonNullElseGet(handCards, List::of), Card::getId, identity()), score);
+        this.id = id;
+        this.name = name;
+        this.color = color;
+        requireNonNullElseGet(handCards, List::<Card>of).forEach(this::addHandCard);
+        this.score = max(0, score);
     }
 
     public void addHandCard(Card card) {
-        int numberOfHandCards = handCards.size();
         if (numberOfHandCards >= NUMBER_OF_PLAYER_HAND_CARDS) {
             throw new InvalidGameOperationException(format("Number of hand cards can not higher than %d.", NUMBER_OF_PLAYER_HAND_CARDS));
         }
-        handCards.put(card.getId(), card);
+        if (indexOfHandCard(card.getId()) < 0) {
+            handCards[numberOfHandCards++] = card;
+        }
     }
 
     public void addHandCards(Collection<Card> cards) {
@@ -77,10 +78,23 @@ public class Player {
     }
 
     public Card playCard(int cardId) {
-        if (!handCards.containsKey(cardId)) {
+        int index = indexOfHandCard(cardId);
+        if (index < 0) {
             throw new NotFoundException(format("CardId: %d does not exist", cardId));
         }
-        return handCards.remove(cardId);
+        Card card = handCards[index];
+        System.arraycopy(handCards, index + 1, handCards, index, numberOfHandCards - index - 1);
+        handCards[--numberOfHandCards] = null;
+        return card;
+    }
+
+    private int indexOfHandCard(int cardId) {
+        for (int index = 0; index < numberOfHandCards; index++) {
+            if (handCards[index].getId() == cardId) {
+                return index;
+            }
+        }
+        return -1;
     }
 
     public void addScore(int score) {
@@ -95,7 +109,7 @@ public class Player {
     }
 
     public List<Card> getHandCards() {
-        return new ArrayList<>(handCards.values());
+        return new ArrayList<>(asList(handCards).subList(0, numberOfHandCards));
     }
 
     public String getName() {
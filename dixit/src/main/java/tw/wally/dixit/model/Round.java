@@ -1,6 +1,5 @@
 package tw.wally.dixit.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import tw.wally.dixit.exceptions.InvalidGameOperationException;
@@ -11,7 +10,9 @@ import java.util.*;
 import java.util.function.Supplier;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.List.copyOf;
+import static java.util.Objects.requireNonNullElseGet;
 import static java.util.Optional.ofNullable;
 import static tw.wally.dixit.utils.StreamUtils.*;
 
@@ -19,8 +20,6 @@ import static tw.wally.dixit.utils.StreamUtils.*;
  * @author - wally55077@gmail.com
  */
 @Getter
-@Builder
-@AllArgsConstructor
 public class Round {
     public static final int BONUS_SCORE = 1;
     public static final int NORMAL_SCORE = 2;
@@ -30,16 +29,26 @@ public class Round {
     private final Player storyteller;
     private final List<Player> guessers;
     private Story story;
-    private final Map<Integer, PlayCard> playCards;
+    // the cards played by the guessers in the order they were played, one card per guesser
+    private final PlayCard[] playCards;
+    private int numberOfPlayCards;
     private final Map<String, Guess> guesses;
 
     public Round(Player storyteller, List<Player> guessers) {
-        this.roundState = RoundState.STORY_TELLING;
-        this.numberOfGuessers = guessers.size();
+        this(RoundState.STORY_TELLING, guessers.size(), storyteller, guessers, null, List.of(), new HashMap<>(guessers.size()));
+    }
+
+    @Builder
+    public Round(RoundState roundState, int numberOfGuessers, Player storyteller, List<Player> guessers, Story story,
+                 Collection<PlayCard> playCards, Map<String, Guess> guesses) {
+        this.roundState = roundState;
+        this.numberOfGuessers = numberOfGuessers;
         this.storyteller = storyteller;
         this.guessers = copyOf(guessers);
-        this.playCards = new HashMap<>(numberOfGuessers);
-        this.guesses = new HashMap<>(numberOfGuessers);
+        this.story = story;
+        this.playCards = new PlayCard[numberOfGuessers];
+        requireNonNullElseGet(playCards, List::<PlayCard>of).forEach(playCard -> this.playCards[numberOfPlayCards++] = playCard);
+        this.guesses = requireNonNullElseGet(guesses, () -> new HashMap<>(numberOfGuessers));
     }
 
     public void tellStory(String phrase, String storytellerId, int cardId) {
@@ -63,8 +72,9 @@ public class Round {
     public void playCard(String guesserId, int cardId) {
         Player guesser = getPlayer(guesserId);
         validatePlayCardAction(guesser);
-        playCards.put(cardId, new PlayCard(guesser, guesser.playCard(cardId)));
-        if (playCards.size() == numberOfGuessers) {
+        Card card = guesser.playCard(cardId);
+        playCards[numberOfPlayCards++] = new PlayCard(guesser, card);
+        if (numberOfPlayCards == numberOfGuessers) {
             roundState = RoundState.STORY_GUESSING;
         }
     }
@@ -75,10 +85,12 @@ public class Round {
         if (!guessers.contains(player)) {
             throw new InvalidGameOperationException(format("Player: %s is not a guesser.", playerName));
         }
-        if (contains(playCards.values(), card -> card.getPlayer().equals(player))) {
-            throw new InvalidGameOperationException(format("Player: %s can't play the card twice in same round.", playerName));
+        for (int index = 0; index < numberOfPlayCards; index++) {
+            if (playCards[index].getPlayer().equals(player)) {
+                throw new InvalidGameOperationException(format("Player: %s can't play the card twice in same round.", playerName));
+            }
         }
-        if (playCards.size() == numberOfGuessers) {
+        if (numberOfPlayCards == numberOfGuessers) {
             throw new InvalidGameOperationException(format("Number of playCards can't be higher than %d.", numberOfGuessers));
         }
     }
@@ -159,10 +171,12 @@ public class Round {
         if (story.getCardId() == cardId) {
             return story.getPlayCard();
         }
-        if (!playCards.containsKey(cardId)) {
-            throw new NotFoundException(format("Card: %d does not found", cardId));
+        for (int index = 0; index < numberOfPlayCards; index++) {
+            if (playCards[index].getCardId() == cardId) {
+                return playCards[index];
+            }
         }
-        return playCards.get(cardId);
+        throw new NotFoundException(format("Card: %d does not found", cardId));
     }
 
     public RoundState getState() {
@@ -170,13 +184,16 @@ public class Round {
     }
 
     public Collection<Card> withdrawCards() {
-        var playCards = mapToList(this.playCards.values(), PlayCard::getCard);
-        playCards.add(this.story.getCard());
-        return copyOf(playCards);
+        var cards = new ArrayList<Card>(numberOfPlayCards + 1);
+        for (int index = 0; index < numberOfPlayCards; index++) {
+            cards.add(playCards[index].getCard());
+        }
+        cards.add(story.getCard());
+        return copyOf(cards);
     }
 
     public List<PlayCard> getPlayCards() {
-        return copyOf(this.playCards.values());
+        return copyOf(asList(playCards).subList(0, numberOfPlayCards));
     }
 
     public List<Guess> getGuesses() {
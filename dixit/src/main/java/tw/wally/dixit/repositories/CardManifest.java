@@ -0,0 +1,153 @@
+package tw.wally.dixit.repositories;
+
+import lombok.Value;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static tw.wally.dixit.utils.StreamUtils.mapToList;
+
+/**
+ * Lists the card images of the deck, one "id, resource path, size, hash, variants" line per card separated by tabs.
+ * It is generated into the images folder at build time by {@link CardPackCompiler},
+ * so the cards are looked up directly at startup instead of scanning the jar for them.
+ * Cards are numbered from 1 in the order of their paths, so their ids are stable between builds.
+ * The variants, "width:offset:size:hash" separated by commas, locate each resolution of the image in the card pack.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class CardManifest {
+    public static final String IMAGES_FOLDER_PATH = "images";
+    public static final String FILE_NAME = "cards.manifest";
+    public static final String RESOURCE_PATH = IMAGES_FOLDER_PATH + "/" + FILE_NAME;
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String SEPARATOR = "\t";
+    private static final String VARIANT_SEPARATOR = ",";
+    private static final String VARIANT_FIELD_SEPARATOR = ":";
+    private final List<Entry> entries;
+
+    CardManifest(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * @param images the bytes of each image by its resource path
+     */
+    public static CardManifest of(SortedMap<String, byte[]> images) {
+        var entries = new ArrayList<Entry>(images.size());
+        images.forEach((path, bytes) -> entries.add(new Entry(entries.size() + 1, path, bytes.length, toHash(bytes), List.of())));
+        return new CardManifest(entries);
+    }
+
+    public static CardManifest scan(Path imagesFolder) {
+        try (Stream<Path> files = Files.walk(imagesFolder)) {
+            var images = new TreeMap<String, byte[]>();
+            for (Path file : files.filter(Files::isRegularFile).collect(toList())) {
+                String path = IMAGES_FOLDER_PATH + "/" + imagesFolder.relativize(file).toString().replace('\\', '/');
+                if (isImage(path)) {
+                    images.put(path, Files.readAllBytes(file));
+                }
+            }
+            return of(images);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static CardManifest read(InputStream inputStream) {
+        try (var reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8))) {
+            var entries = new ArrayList<Entry>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    String[] columns = line.split(SEPARATOR);
+                    var variants = columns.length > 4 ? mapToList(asList(columns[4].split(VARIANT_SEPARATOR)), CardManifest::toVariant) : List.<Variant>of();
+                    entries.add(new Entry(parseInt(columns[0]), columns[1], parseLong(columns[2]), columns[3], variants));
+                }
+            }
+            return new CardManifest(entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Variant toVariant(String variant) {
+        String[] fields = variant.split(VARIANT_FIELD_SEPARATOR);
+        return new Variant(parseInt(fields[0]), parseLong(fields[1]), parseLong(fields[2]), fields[3]);
+    }
+
+    public void write(Path file) throws IOException {
+        Files.write(file, mapToList(entries, entry -> String.join(SEPARATOR,
+                String.valueOf(entry.cardId), entry.path, String.valueOf(entry.size), entry.hash,
+                entry.variants.stream()
+                        .map(variant -> String.join(VARIANT_FIELD_SEPARATOR, String.valueOf(variant.width),
+                                String.valueOf(variant.offset), String.valueOf(variant.size), variant.hash))
+                        .collect(joining(VARIANT_SEPARATOR)))), UTF_8);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public static boolean isImage(String path) {
+        return path.startsWith(IMAGES_FOLDER_PATH + "/") && !path.endsWith("/")
+                && !path.endsWith(FILE_NAME) && !path.endsWith(CardPackCompiler.PACK_FILE_NAME);
+    }
+
+    static String toHash(byte[] bytes) {
+        try {
+            var digest = MessageDigest.getInstance(HASH_ALGORITHM).digest(bytes);
+            var hash = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hash.append(format("%02x", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return whether every card has its variants in the card pack
+     */
+    public boolean isPacked() {
+        return !entries.isEmpty() && entries.stream().noneMatch(entry -> entry.variants.isEmpty());
+    }
+
+    @Value
+    public static class Entry {
+        int cardId;
+        String path;
+        long size;
+        String hash;
+        // ordered by width, the last one is the original image
+        List<Variant> variants;
+    }
+
+    @Value
+    public static class Variant {
+        int width;
+        long offset;
+        long size;
+        String hash;
+    }
+}
@@ -0,0 +1,100 @@
+package tw.wally.dixit.repositories;
+
+import tw.wally.dixit.repositories.CardManifest.Entry;
+import tw.wally.dixit.repositories.CardManifest.Variant;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.String.format;
+import static tw.wally.dixit.repositories.CardManifest.FILE_NAME;
+import static tw.wally.dixit.repositories.CardManifest.toHash;
+
+/**
+ * Compiles the images folder into the card pack, every card's image scaled down to each of the widths
+ * that are smaller than the original followed by the original itself, and the {@link CardManifest} locating them.
+ * Runs at build time after the resources are copied, see the dixit pom.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class CardPackCompiler {
+    public static final String PACK_FILE_NAME = "cards.pack";
+    public static final String PACK_RESOURCE_PATH = CardManifest.IMAGES_FOLDER_PATH + "/" + PACK_FILE_NAME;
+    private static final String FORMAT_NAME = "jpeg";
+    private final int[] widths;
+
+    public CardPackCompiler(int... widths) {
+        this.widths = Arrays.stream(widths).sorted().toArray();
+    }
+
+    public CardManifest compile(Path imagesFolder) throws IOException {
+        var scanned = CardManifest.scan(imagesFolder);
+        var entries = new ArrayList<Entry>(scanned.getEntries().size());
+        try (var pack = Files.newOutputStream(imagesFolder.resolve(PACK_FILE_NAME))) {
+            long offset = 0;
+            for (Entry entry : scanned.getEntries()) {
+                byte[] original = Files.readAllBytes(imagesFolder.getParent().resolve(entry.getPath()));
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(original));
+                if (image == null) {
+                    throw new IOException(format("image: %s can't be decoded", entry.getPath()));
+                }
+                var variants = new ArrayList<Variant>(widths.length + 1);
+                for (int width : widths) {
+                    if (width < image.getWidth()) {
+                        variants.add(write(pack, offset, width, scale(image, width)));
+                        offset += variants.get(variants.size() - 1).getSize();
+                    }
+                }
+                variants.add(write(pack, offset, image.getWidth(), original));
+                offset += original.length;
+                entries.add(new Entry(entry.getCardId(), entry.getPath(), entry.getSize(), entry.getHash(), List.copyOf(variants)));
+            }
+        }
+        var manifest = new CardManifest(entries);
+        manifest.write(imagesFolder.resolve(FILE_NAME));
+        return manifest;
+    }
+
+    private static Variant write(OutputStream pack, long offset, int width, byte[] bytes) throws IOException {
+        pack.write(bytes);
+        return new Variant(width, offset, bytes.length, toHash(bytes));
+    }
+
+    private static byte[] scale(BufferedImage image, int width) throws IOException {
+        int height = Math.max(1, Math.round(image.getHeight() * (float) width / image.getWidth()));
+        var scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        var bytes = new ByteArrayOutputStream();
+        ImageIO.write(scaled, FORMAT_NAME, bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param args the images folder, followed by the widths to scale every image down to, as separate arguments or separated by spaces
+     */
+    public static void main(String[] args) throws IOException {
+        int[] widths = Arrays.stream(args).skip(1)
+                .flatMap(widthsArgument -> Arrays.stream(widthsArgument.trim().split("\\s+")))
+                .filter(width -> !width.isEmpty())
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        new CardPackCompiler(widths).compile(Path.of(args[0]));
+    }
+}
@@ -1,10 +1,18 @@
 package tw.wally.dixit.repositories;
 
+import tw.wally.dixit.exceptions.NotFoundException;
 import tw.wally.dixit.model.Card;
+import tw.wally.dixit.model.CardImage;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+
+import static java.lang.String.format;
+import static java.util.Optional.ofNullable;
 
 /**
  * @author - wally55077@gmail.com
@@ -12,10 +20,56 @@ import java.util.Map;
 public interface CardRepository {
 
     String EMPTY_CARD_IMAGE = "";
+    String DEFAULT_DECK = "default";
 
     default List<Card> findAll() {
         return new ArrayList<>(findAllAsMap().values());
     }
 
+    /**
+     * @return the cards of the default deck
+     */
     Map<Integer, Card> findAllAsMap();
+
+    /**
+     * @return the cards of the given decks, the default deck if none is given
+     * @throws NotFoundException if any of the decks doesn't exist
+     */
+    default List<Card> findAllByDecks(Collection<String> decks) {
+        for (String deck : decks) {
+            if (!DEFAULT_DECK.equals(deck)) {
+                throw new NotFoundException(format("Deck: %s not found", deck));
+            }
+        }
+        return findAll();
+    }
+
+    /**
+     * @return the card of any deck, the card of a game is looked up this way when the game is loaded
+     */
+    default Optional<Card> findCardById(int cardId) {
+        return ofNullable(findAllAsMap().get(cardId));
+    }
+
+    /**
+     * @return a read-only view of the raw JPEG bytes of the card's original image,
+     * it may be a direct buffer, so read it through the buffer instead of its array
+     */
+    default Optional<ByteBuffer> findImageById(int cardId) {
+        return findImageById(cardId, Integer.MAX_VALUE).map(CardImage::getBytes);
+    }
+
+    /**
+     * @return the smallest resolution of the card's image that is at least the given width,
+     * or the original image if none is, served by the card asset endpoint
+     */
+    Optional<CardImage> findImageById(int cardId, int width);
+
+    /**
+     * INLINE: every {@link Card} carries its base64 image.
+     * REFERENCE: cards carry only their id and content hash, clients fetch the image by id.
+     */
+    enum ImageMode {
+        INLINE, REFERENCE
+    }
 }
@@ -0,0 +1,227 @@
+package tw.wally.dixit.repositories;
+
+import tw.wally.dixit.exceptions.NotFoundException;
+import tw.wally.dixit.model.Card;
+import tw.wally.dixit.model.CardImage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.String.format;
+import static java.util.Optional.ofNullable;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * The default deck built into the service plus the expansion decks found in a directory, one sub-directory per deck
+ * named after the deck, holding a deck.properties with the deck's number and the images folder compiled by {@link CardPackCompiler}.
+ * Only the decks are indexed up front, a deck's manifest and images are loaded the first time a game uses it.
+ * The directory is scanned again when an unknown deck or card is asked for, so a deck is added without a restart.
+ * The cards of deck number n are numbered from n * {@link #CARDS_PER_DECK}, so the card ids a game keeps are unique
+ * across decks, a deck's number must never change or be reused.
+ * A deck that fails to load keeps failing with the same error without being loaded again until this instance restarts.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class DeckCardRepository implements CardRepository {
+    public static final String DECK_PROPERTIES = "deck.properties";
+    public static final String NUMBER = "number";
+    public static final int CARDS_PER_DECK = 1_000;
+    private static final Duration RESCAN_INTERVAL = Duration.ofSeconds(5);
+    private final CardRepository defaultDeck;
+    private final Path decksDirectory;
+    private final ImageMode imageMode;
+    private final long rescanIntervalNanos;
+    private final Map<String, Deck> decks = new ConcurrentHashMap<>();
+    private final Map<Integer, Deck> decksByNumber = new ConcurrentHashMap<>();
+    private volatile long lastScannedAt;
+
+    public DeckCardRepository(CardRepository defaultDeck, Path decksDirectory, ImageMode imageMode) {
+        this(defaultDeck, decksDirectory, imageMode, RESCAN_INTERVAL);
+    }
+
+    DeckCardRepository(CardRepository defaultDeck, Path decksDirectory, ImageMode imageMode, Duration rescanInterval) {
+        this.defaultDeck = defaultDeck;
+        this.decksDirectory = decksDirectory;
+        this.imageMode = imageMode;
+        this.rescanIntervalNanos = rescanInterval.toNanos();
+        scanDecks();
+    }
+
+    @Override
+    public Map<Integer, Card> findAllAsMap() {
+        return defaultDeck.findAllAsMap();
+    }
+
+    @Override
+    public List<Card> findAllByDecks(Collection<String> deckNames) {
+        if (deckNames.isEmpty()) {
+            return defaultDeck.findAll();
+        }
+        var cards = new ArrayList<Card>();
+        for (String deckName : deckNames) {
+            if (DEFAULT_DECK.equals(deckName)) {
+                cards.addAll(defaultDeck.findAll());
+            } else {
+                Deck deck = findDeck(decks, deckName)
+                        .orElseThrow(() -> new NotFoundException(format("Deck: %s not found", deckName)));
+                cards.addAll(deck.getCards().values());
+            }
+        }
+        return cards;
+    }
+
+    @Override
+    public Optional<Card> findCardById(int cardId) {
+        int deckNumber = cardId / CARDS_PER_DECK;
+        if (deckNumber == 0) {
+            return defaultDeck.findCardById(cardId);
+        }
+        return findDeck(decksByNumber, deckNumber).flatMap(deck -> ofNullable(deck.getCards().get(cardId)));
+    }
+
+    @Override
+    public Optional<CardImage> findImageById(int cardId, int width) {
+        int deckNumber = cardId / CARDS_PER_DECK;
+        if (deckNumber == 0) {
+            return defaultDeck.findImageById(cardId, width);
+        }
+        return findDeck(decksByNumber, deckNumber)
+                .flatMap(deck -> deck.getRepository().findImageById(cardId % CARDS_PER_DECK, width));
+    }
+
+    private <K> Optional<Deck> findDeck(Map<K, Deck> decks, K key) {
+        if (!decks.containsKey(key)) {
+            scanDecksIfDue();
+        }
+        return ofNullable(decks.get(key));
+    }
+
+    private void scanDecksIfDue() {
+        // an unknown card id is the client's mistake most of the time, it shouldn't list the directory on every request
+        if (System.nanoTime() - lastScannedAt >= rescanIntervalNanos) {
+            scanDecks();
+        }
+    }
+
+    /**
+     * Indexes the decks that have been added since the last scan, a deck that has been removed stays
+     * as long as this instance runs, since games may still be using its cards.
+     */
+    private synchronized void scanDecks() {
+        lastScannedAt = System.nanoTime();
+        if (!Files.isDirectory(decksDirectory)) {
+            return;
+        }
+        try (Stream<Path> directories = Files.list(decksDirectory)) {
+            for (Path directory : directories.filter(Files::isDirectory).collect(toList())) {
+                String name = directory.getFileName().toString();
+                Path properties = directory.resolve(DECK_PROPERTIES);
+                if (!decks.containsKey(name) && Files.isRegularFile(properties)) {
+                    index(new Deck(name, readNumber(properties), directory));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void index(Deck deck) {
+        if (deck.number <= 0 || decksByNumber.containsKey(deck.number) || DEFAULT_DECK.equals(deck.name)) {
+            throw new IllegalStateException(format("Deck: %s can't take the number %d", deck.name, deck.number));
+        }
+        decksByNumber.put(deck.number, deck);
+        decks.put(deck.name, deck);
+    }
+
+    private static int readNumber(Path file) throws IOException {
+        var properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            properties.load(inputStream);
+        }
+        return parseInt(properties.getProperty(NUMBER, "0").trim());
+    }
+
+    private class Deck {
+        private final String name;
+        private final int number;
+        private final Path directory;
+        private volatile CardRepository repository;
+        // the deck's cards numbered from the deck's number
+        private volatile Map<Integer, Card> cards;
+        private volatile RuntimeException failure;
+
+        private Deck(String name, int number, Path directory) {
+            this.name = name;
+            this.number = number;
+            this.directory = directory;
+        }
+
+        private CardRepository getRepository() {
+            if (repository == null) {
+                load();
+            }
+            return repository;
+        }
+
+        private Map<Integer, Card> getCards() {
+            if (repository == null) {
+                load();
+            }
+            return cards;
+        }
+
+        private synchronized void load() {
+            if (failure != null) {
+                throw failure;
+            }
+            if (repository != null) {
+                return;
+            }
+            URLClassLoader classLoader;
+            try {
+                classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null);
+            } catch (MalformedURLException e) {
+                throw failure = new NotFoundException(e);
+            }
+            try {
+                var resourceCardRepository = new ResourceCardRepository(imageMode, classLoader);
+                if (resourceCardRepository.findAllAsMap().size() >= CARDS_PER_DECK) {
+                    throw new IllegalStateException(format("Deck: %s has more than %d cards", name, CARDS_PER_DECK - 1));
+                }
+                cards = resourceCardRepository.findAllAsMap().values().stream()
+                        .map(card -> card.withId(number * CARDS_PER_DECK + card.getId()))
+                        .collect(toMap(Card::getId, identity()));
+                repository = resourceCardRepository;
+            } catch (RuntimeException e) {
+                close(classLoader, e);
+                throw failure = e;
+            }
+        }
+
+        private void close(URLClassLoader classLoader, RuntimeException failure) {
+            try {
+                classLoader.close();
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+}
@@ -13,5 +13,12 @@ public interface DixitRepository {
 
     Dixit save(Dixit dixit);
 
+    /**
+     * Forgets the changes a failed command has made to the game since it was last saved,
+     * a repository loading a new copy of the game on every find has nothing to forget.
+     */
+    default void discard(String id) {
+    }
+
     void deleteAll();
 }
@@ -0,0 +1,58 @@
+package tw.wally.dixit.repositories;
+
+import tw.wally.dixit.model.Card;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Base64.getEncoder;
+
+/**
+ * A card of the INLINE mode, its base64 image is encoded from the image in the mapped card pack the first time it's asked for
+ * and kept from then on, the same card renumbered within its deck shares it, so only the images of the cards in play
+ * are encoded and none of them more than once.
+ *
+ * @author - wally55077@gmail.com
+ */
+class InlineImageCard extends Card {
+    private final EncodedImage image;
+
+    InlineImageCard(int id, String hash, Supplier<ByteBuffer> image) {
+        this(id, hash, new EncodedImage(image));
+    }
+
+    private InlineImageCard(int id, String hash, EncodedImage image) {
+        super(id, null, hash);
+        this.image = image;
+    }
+
+    @Override
+    public String getImage() {
+        return image.get();
+    }
+
+    @Override
+    public Card withId(int id) {
+        return new InlineImageCard(id, getHash(), image);
+    }
+
+    private static class EncodedImage {
+        private final Supplier<ByteBuffer> bytes;
+        // encoding it twice on a race gives the same string, so it isn't locked
+        private volatile String encoded;
+
+        private EncodedImage(Supplier<ByteBuffer> bytes) {
+            this.bytes = bytes;
+        }
+
+        private String get() {
+            String encoded = this.encoded;
+            if (encoded == null) {
+                encoded = new String(getEncoder().encode(bytes.get()).array(), ISO_8859_1);
+                this.encoded = encoded;
+            }
+            return encoded;
+        }
+    }
+}
@@ -2,118 +2,263 @@ package tw.wally.dixit.repositories;
 
 import tw.wally.dixit.exceptions.NotFoundException;
 import tw.wally.dixit.model.Card;
+import tw.wally.dixit.model.CardImage;
+import tw.wally.dixit.repositories.CardManifest.Entry;
+import tw.wally.dixit.repositories.CardManifest.Variant;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
 
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.nio.file.Files.walk;
-import static java.nio.file.Paths.get;
-import static java.util.Base64.getEncoder;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Comparator.comparingLong;
+import static java.util.Optional.ofNullable;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
-import static java.util.stream.Collectors.toSet;
-import static java.util.stream.IntStream.range;
+import static tw.wally.dixit.repositories.CardManifest.IMAGES_FOLDER_PATH;
+import static tw.wally.dixit.repositories.CardManifest.RESOURCE_PATH;
+import static tw.wally.dixit.repositories.CardManifest.isImage;
+import static tw.wally.dixit.repositories.CardPackCompiler.PACK_RESOURCE_PATH;
 
 /**
+ * Loads the cards from the {@link CardManifest} generated at build time, each image is looked up by its path.
+ * No image is read at startup, the images are read on the first image request.
+ * In INLINE mode a card encodes its base64 image from the pack the first time it's asked for and keeps it.
+ * Without a manifest, e.g. running from sources that haven't been built, the images folder is scanned instead.
+ * The raw images are kept off the heap in one read-only memory-mapped pack, each image owns the region
+ * at the offset the manifest gives it, so the heap doesn't grow with the images of more decks.
+ * When the build has compiled the card pack, the pack with every resolution of every card is mapped,
+ * in place when it's a file, otherwise from a copy of it. Without the card pack the originals are copied into the pack.
+ * A pack is mapped once and shared by every repository of the same resources.
+ *
  * @author - wally55077@gmail.com
  */
 public class ResourceCardRepository implements CardRepository {
 
-    private static final String IMAGES_FOLDER_PATH = "images";
+    private static final String PACK_FILE_PREFIX = "dixit-cards";
+    // the read-only packs by the url of the resources they're mapped from
+    private static final Map<String, ByteBuffer> PACKS = new ConcurrentHashMap<>();
+    private final ClassLoader classLoader;
+    private final boolean packed;
+    private final Map<Integer, Entry> entries;
+    private final long packSize;
+    private volatile ByteBuffer pack;
     private final Map<Integer, Card> cards;
 
     public ResourceCardRepository() {
-        var images = new ArrayList<>(getImages());
-        this.cards = range(0, images.size())
-                .mapToObj(number -> new Card(number + 1, images.get(number)))
+        this(ImageMode.INLINE);
+    }
+
+    public ResourceCardRepository(ImageMode imageMode) {
+        this(imageMode, ResourceCardRepository.class.getClassLoader());
+    }
+
+    ResourceCardRepository(ImageMode imageMode, ClassLoader classLoader) {
+        this.classLoader = classLoader;
+        var manifest = getManifest();
+        this.packed = manifest.isPacked() && classLoader.getResource(PACK_RESOURCE_PATH) != null;
+        this.entries = (packed ? manifest.getEntries() : withOriginalsOnly(manifest.getEntries())).stream()
+                .collect(toMap(Entry::getCardId, identity()));
+        this.packSize = entries.values().stream()
+                .flatMap(entry -> entry.getVariants().stream())
+                .mapToLong(variant -> variant.getOffset() + variant.getSize())
+                .max().orElse(0);
+        this.cards = entries.values().stream()
+                .map(entry -> toCard(entry, imageMode))
                 .collect(toMap(Card::getId, identity()));
     }
 
-    private Collection<String> getImages() {
+    /**
+     * Without the card pack every card only has its original image, laid out one after another.
+     */
+    private static List<Entry> withOriginalsOnly(List<Entry> entries) {
+        var originals = new ArrayList<Entry>(entries.size());
+        long offset = 0;
+        for (Entry entry : entries) {
+            var original = new Variant(0, offset, entry.getSize(), entry.getHash());
+            originals.add(new Entry(entry.getCardId(), entry.getPath(), entry.getSize(), entry.getHash(), List.of(original)));
+            offset += entry.getSize();
+        }
+        return originals;
+    }
+
+    private Card toCard(Entry entry, ImageMode imageMode) {
+        return ImageMode.INLINE == imageMode ?
+                new InlineImageCard(entry.getCardId(), entry.getHash(), () -> getImage(original(entry))) :
+                new Card(entry.getCardId(), null, entry.getHash());
+    }
+
+    private static Variant original(Entry entry) {
+        var variants = entry.getVariants();
+        return variants.get(variants.size() - 1);
+    }
+
+    private static ByteBuffer mapReadOnly(Path packFile) throws IOException {
+        try (var channel = FileChannel.open(packFile, READ)) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private CardManifest getManifest() {
+        try (var inputStream = classLoader.getResourceAsStream(RESOURCE_PATH)) {
+            if (inputStream != null) {
+                return CardManifest.read(inputStream);
+            }
+        } catch (IOException e) {
+            throw new NotFoundException(e);
+        }
+        return scanImages();
+    }
+
+    private CardManifest scanImages() {
         try {
-            var resource = getClass().getClassLoader().getResource(IMAGES_FOLDER_PATH);
+            var resource = classLoader.getResource(IMAGES_FOLDER_PATH);
             if (resource == null) {
                 throw new NotFoundException(format("Resource not found from path %s", IMAGES_FOLDER_PATH));
             }
-            Collection<String> images;
-            if ("jar".equals(resource.getProtocol())) {
-                images = getImagesFromJar();
-            } else {
-                images = walk(get(resource.toURI()))
-                        .filter(Files::isRegularFile)
-                        .map(Path::toFile)
-                        .map(this::toImage)
-                        .collect(toSet());
-            }
-            if (images.isEmpty()) {
+            var manifest = "jar".equals(resource.getProtocol()) ?
+                    scanImagesFromJar(resource) : CardManifest.scan(Path.of(resource.toURI()));
+            if (manifest.getEntries().isEmpty()) {
                 throw new NotFoundException(format("Resource not found from path %s", IMAGES_FOLDER_PATH));
             }
-            return images;
-        } catch (IOException | URISyntaxException e) {
+            return manifest;
+        } catch (URISyntaxException e) {
             throw new NotFoundException(e);
         }
     }
 
-    private Collection<String> getImagesFromJar() {
-        var src = getClass().getProtectionDomain().getCodeSource();
-        if (src != null) {
-            URL jar = src.getLocation();
-            try (var zip = new ZipInputStream(jar.openStream())) {
-                ZipEntry e;
-                var images = new HashSet<String>();
-                while ((e = zip.getNextEntry()) != null) {
-                    String name = e.getName();
-                    if (name.startsWith(IMAGES_FOLDER_PATH) && !e.isDirectory()) {
-                        images.add(toImage(name));
+    private CardManifest scanImagesFromJar(URL resource) {
+        try {
+            var connection = (JarURLConnection) resource.openConnection();
+            connection.setUseCaches(false);
+            try (var jar = connection.getJarFile()) {
+                var images = new TreeMap<String, byte[]>();
+                for (JarEntry entry : Collections.list(jar.entries())) {
+                    if (isImage(entry.getName())) {
+                        try (var inputStream = jar.getInputStream(entry)) {
+                            images.put(entry.getName(), inputStream.readAllBytes());
+                        }
                     }
                 }
-                return images;
-            } catch (Exception e) {
-                throw new NotFoundException(e);
+                return CardManifest.of(images);
+            }
+        } catch (IOException e) {
+            throw new NotFoundException(e);
+        }
+    }
+
+    private ByteBuffer getImage(Variant variant) {
+        int offset = toIntExact(variant.getOffset());
+        return getPack().duplicate().position(offset).limit(offset + toIntExact(variant.getSize())).slice();
+    }
+
+    ByteBuffer getPack() {
+        if (pack == null) {
+            var location = classLoader.getResource(packed ? PACK_RESOURCE_PATH : IMAGES_FOLDER_PATH);
+            if (location == null) {
+                throw new NotFoundException(format("Resource not found from path %s", packed ? PACK_RESOURCE_PATH : IMAGES_FOLDER_PATH));
             }
-        } else {
-            throw new NotFoundException(format("folder %s does not have any files", IMAGES_FOLDER_PATH));
+            pack = PACKS.computeIfAbsent(location.toExternalForm(), key -> packed ? mapCardPack() : mapOriginals());
         }
+        return pack;
     }
 
-    private String toImage(File file) {
-        try (var inputStream = new FileInputStream(file)) {
-            var bytes = getEncoder().encode(inputStream.readAllBytes());
-            return new String(bytes, UTF_8);
-        } catch (IOException e) {
+    /**
+     * Maps the card pack where it is when it's a file, otherwise streams it into a file first,
+     * no copy of the whole pack is kept on the heap.
+     */
+    private ByteBuffer mapCardPack() {
+        try {
+            var resource = classLoader.getResource(PACK_RESOURCE_PATH);
+            if (resource == null) {
+                throw new NotFoundException(format("card pack: %s not found", PACK_RESOURCE_PATH));
+            }
+            Path packFile;
+            if ("file".equals(resource.getProtocol())) {
+                packFile = Path.of(resource.toURI());
+            } else {
+                packFile = createPackFile();
+                var connection = resource.openConnection();
+                connection.setUseCaches(false);
+                try (InputStream inputStream = connection.getInputStream()) {
+                    Files.copy(inputStream, packFile, REPLACE_EXISTING);
+                }
+            }
+            ByteBuffer cardPack = mapReadOnly(packFile);
+            if (cardPack.capacity() != packSize) {
+                throw new IllegalStateException(format("card pack: %s doesn't match the card manifest", PACK_RESOURCE_PATH));
+            }
+            return cardPack;
+        } catch (IOException | URISyntaxException e) {
             throw new NotFoundException(e);
         }
     }
 
-    private String toImage(String src) {
-        try (var inputStream = getClass().getClassLoader().getResourceAsStream(src)) {
-            if (inputStream != null) {
-                var bytes = getEncoder().encode(inputStream.readAllBytes());
-                return new String(bytes, UTF_8);
-            } else {
-                throw new NotFoundException(format("image: %s not found", src));
+    /**
+     * Streams the original of every card into a file one after another, as {@link #withOriginalsOnly} lays them out,
+     * no copy of the whole image is kept on the heap.
+     */
+    private ByteBuffer mapOriginals() {
+        try {
+            Path packFile = createPackFile();
+            try (var outputStream = Files.newOutputStream(packFile)) {
+                for (Entry entry : entries.values().stream().sorted(comparingLong(entry -> original(entry).getOffset())).collect(toList())) {
+                    try (InputStream inputStream = classLoader.getResourceAsStream(entry.getPath())) {
+                        if (inputStream == null) {
+                            throw new NotFoundException(format("image: %s not found", entry.getPath()));
+                        }
+                        if (inputStream.transferTo(outputStream) != entry.getSize()) {
+                            throw new IllegalStateException(format("image: %s doesn't match the card manifest", entry.getPath()));
+                        }
+                    }
+                }
             }
+            return mapReadOnly(packFile);
         } catch (IOException e) {
             throw new NotFoundException(e);
         }
     }
 
+    private static Path createPackFile() throws IOException {
+        Path packFile = Files.createTempFile(PACK_FILE_PREFIX, ".pack");
+        packFile.toFile().deleteOnExit();
+        return packFile;
+    }
+
     @Override
     public Map<Integer, Card> findAllAsMap() {
         return cards;
     }
 
+    @Override
+    public Optional<CardImage> findImageById(int cardId, int width) {
+        return ofNullable(entries.get(cardId)).map(entry -> {
+            Variant variant = entry.getVariants().stream()
+                    .filter(candidate -> candidate.getWidth() >= width)
+                    .findFirst()
+                    .orElse(original(entry));
+            return new CardImage(variant.getWidth(), variant.getHash(), getImage(variant));
+        });
+    }
+
 }
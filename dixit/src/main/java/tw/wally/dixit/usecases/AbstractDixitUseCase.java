@@ -3,12 +3,15 @@ package tw.wally.dixit.usecases;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import tw.wally.dixit.events.DixitEvent;
 import tw.wally.dixit.events.EventBus;
 import tw.wally.dixit.exceptions.InvalidGameOperationException;
 import tw.wally.dixit.exceptions.NotFoundException;
 import tw.wally.dixit.model.Dixit;
 import tw.wally.dixit.repositories.DixitRepository;
 
+import java.util.Collection;
+
 import static java.lang.String.format;
 
 /**
@@ -18,12 +21,38 @@ import static java.lang.String.format;
 public abstract class AbstractDixitUseCase {
     protected final DixitRepository dixitRepository;
     protected final EventBus eventBus;
+    protected final DixitCommandExecutor dixitCommandExecutor;
+
+    /**
+     * Runs the command by the executor, a command failing halfway may have changed the game it has loaded,
+     * so the repository discards what it keeps of the game in memory before the failure is rethrown.
+     */
+    protected void execute(String gameId, Runnable command) {
+        dixitCommandExecutor.execute(gameId, () -> {
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                dixitRepository.discard(gameId);
+                throw e;
+            }
+        });
+    }
 
     protected Dixit findDixit(String id) {
         return dixitRepository.findDixitById(id)
                 .orElseThrow(() -> new NotFoundException(format("Dixit: %s not found", id)));
     }
 
+    /**
+     * Every event of a command carries the version the command saves the game at as its sequence,
+     * a client that sees a gap in the sequences has missed a command and resyncs from the overview.
+     */
+    protected void publish(Dixit dixit, Collection<? extends DixitEvent> events) {
+        long sequence = dixit.getNextVersion();
+        events.forEach(event -> event.setSequence(sequence));
+        eventBus.publish(events);
+    }
+
     protected void validateRound(Dixit dixit, int round) {
         if (dixit.getNumberOfRounds() != round) {
             throw new InvalidGameOperationException(format("Round: %d is not the current round", round));
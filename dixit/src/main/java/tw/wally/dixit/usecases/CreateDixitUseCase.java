@@ -12,6 +12,7 @@ import tw.wally.dixit.repositories.DixitRepository;
 
 import javax.inject.Named;
 import java.util.Collection;
+import java.util.List;
 
 import static tw.wally.dixit.utils.StreamUtils.mapToList;
 import static tw.wally.dixit.utils.StreamUtils.toMap;
@@ -22,28 +23,38 @@ import static tw.wally.dixit.utils.StreamUtils.toMap;
 @Named
 public class CreateDixitUseCase extends AbstractDixitUseCase {
     private final CardRepository cardRepository;
+    private final DixitOverviewCache dixitOverviewCache;
 
     public CreateDixitUseCase(DixitRepository dixitRepository,
                               CardRepository cardRepository,
-                              EventBus eventBus) {
-        super(dixitRepository, eventBus);
+                              EventBus eventBus,
+                              DixitCommandExecutor dixitCommandExecutor,
+                              DixitOverviewCache dixitOverviewCache) {
+        super(dixitRepository, eventBus, dixitCommandExecutor);
         this.cardRepository = cardRepository;
+        this.dixitOverviewCache = dixitOverviewCache;
     }
 
     public void execute(Request request) {
-        Dixit dixit = dixit(request);
+        execute(request.gameId, () -> {
+            Dixit dixit = dixit(request);
 
-        request.players.forEach(dixit::join);
-        dixit.start();
+            request.players.forEach(player -> dixit.join(new Player(player.getId(), player.getName())));
+            dixit.start();
 
-        publishDixitGameStartedAndDixitRoundStoryToldEvents(dixit);
-        dixitRepository.save(dixit);
+            publishDixitGameStartedAndDixitRoundStoryToldEvents(dixit);
+            long version = dixit.getNextVersion();
+            dixitRepository.save(dixit);
+            dixitOverviewCache.invalidate(dixit.getId(), version);
+        });
     }
 
     public Dixit dixit(Request request) {
         var options = toMap(request.options, Option::getName, Option::getValue);
-        var cards = cardRepository.findAll();
-        return new Dixit(request.gameId, new VictoryCondition(options.get("winningScore")), cards);
+        var cards = cardRepository.findAllByDecks(request.decks == null ? List.of() : request.decks);
+        var victoryCondition = new VictoryCondition(options.get("winningScore"));
+        return request.seed == null ?
+                new Dixit(request.gameId, victoryCondition, cards) : new Dixit(request.gameId, victoryCondition, cards, request.seed);
     }
 
     private void publishDixitGameStartedAndDixitRoundStoryToldEvents(Dixit dixit) {
@@ -52,7 +63,7 @@ public class CreateDixitUseCase extends AbstractDixitUseCase {
         int rounds = dixit.getNumberOfRounds();
         GameState gameState = dixit.getGameState();
         var dixitGameStartedEvents = mapToList(players, player -> new DixitGameStartedEvent(dixitId, rounds, player.getId(), gameState, players));
-        eventBus.publish(dixitGameStartedEvents);
+        publish(dixit, dixitGameStartedEvents);
 
         publishDixitRoundStoryToldEvents(dixit);
     }
@@ -64,7 +75,7 @@ public class CreateDixitUseCase extends AbstractDixitUseCase {
         RoundState roundState = dixit.getCurrentRoundState();
         var storyteller = dixit.getCurrentStoryteller();
         var dixitRoundStoryToldEvents = mapToList(players, player -> new DixitRoundStoryToldEvent(dixitId, rounds, roundState, storyteller, player));
-        eventBus.publish(dixitRoundStoryToldEvents);
+        publish(dixit, dixitRoundStoryToldEvents);
     }
 
     @Getter
@@ -76,6 +87,14 @@ public class CreateDixitUseCase extends AbstractDixitUseCase {
         public String hostId;
         public Collection<Player> players;
         public Collection<Option> options;
+        // the names of the decks the game is played with, the default deck if none is given
+        public Collection<String> decks;
+        // the seed of the game's shuffles to replay or simulate a game, a random one if none is given
+        public Long seed;
+
+        public Request(String roomId, String gameId, String hostId, Collection<Player> players, Collection<Option> options) {
+            this(roomId, gameId, hostId, players, options, List.of(), null);
+        }
     }
 
     @Getter
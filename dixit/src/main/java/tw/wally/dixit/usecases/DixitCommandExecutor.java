@@ -0,0 +1,12 @@
+package tw.wally.dixit.usecases;
+
+/**
+ * Runs the commands of the same game strictly one after another, in the order they arrived,
+ * while the commands of different games run in parallel.
+ *
+ * @author - wally55077@gmail.com
+ */
+public interface DixitCommandExecutor {
+
+    void execute(String gameId, Runnable command);
+}
@@ -0,0 +1,12 @@
+package tw.wally.dixit.usecases;
+
+/**
+ * Holds the overviews of the games presented to their players, the commands of a game invalidate them
+ * once they have saved the game at a newer version, while still holding the game.
+ *
+ * @author - wally55077@gmail.com
+ */
+public interface DixitOverviewCache {
+
+    void invalidate(String gameId, long version);
+}
@@ -16,23 +16,26 @@ import static tw.wally.dixit.utils.StreamUtils.mapToList;
 @Named
 public class GetDixitOverviewUseCase extends AbstractDixitUseCase {
 
-    public GetDixitOverviewUseCase(DixitRepository dixitRepository, EventBus eventBus) {
-        super(dixitRepository, eventBus);
+    public GetDixitOverviewUseCase(DixitRepository dixitRepository, EventBus eventBus, DixitCommandExecutor dixitCommandExecutor) {
+        super(dixitRepository, eventBus, dixitCommandExecutor);
     }
 
     public void execute(Request request, Presenter presenter) {
-        Dixit dixit = findDixit(request.gameId);
-
-        presenter.showGameState(dixit.getGameState());
-        presenter.showRoundState(dixit.getCurrentRoundState());
-        presenter.showRounds(dixit.getNumberOfRounds());
-        presenter.showPlayers(mapToList(dixit.getPlayers(), this::rePlayer));
-        presenter.showStoryteller(rePlayer(dixit.getCurrentStoryteller()));
-        showHandCards(request, dixit, presenter);
-        showStory(dixit, presenter);
-        showPlayCards(dixit, presenter);
-        showGuesses(dixit, presenter);
-        presenter.showWinners(mapToList(dixit.getWinners(), this::rePlayer));
+        dixitCommandExecutor.execute(request.gameId, () -> {
+            Dixit dixit = findDixit(request.gameId);
+
+            presenter.showSequence(dixit.getVersion() == null ? 0 : dixit.getVersion());
+            presenter.showGameState(dixit.getGameState());
+            presenter.showRoundState(dixit.getCurrentRoundState());
+            presenter.showRounds(dixit.getNumberOfRounds());
+            presenter.showPlayers(mapToList(dixit.getPlayers(), this::rePlayer));
+            presenter.showStoryteller(rePlayer(dixit.getCurrentStoryteller()));
+            showHandCards(request, dixit, presenter);
+            showStory(dixit, presenter);
+            showPlayCards(dixit, presenter);
+            showGuesses(dixit, presenter);
+            presenter.showWinners(mapToList(dixit.getWinners(), this::rePlayer));
+        });
     }
 
     private void showHandCards(Request request, Dixit dixit, Presenter presenter) {
@@ -81,6 +84,8 @@ public class GetDixitOverviewUseCase extends AbstractDixitUseCase {
     }
 
     public interface Presenter {
+        void showSequence(long sequence);
+
         void showGameState(GameState gameState);
 
         void showRoundState(RoundState roundState);
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import tw.wally.dixit.events.EventBus;
+import tw.wally.dixit.events.delta.DixitRoundStoryGuessedDeltaEvent;
 import tw.wally.dixit.events.gamestate.DixitGameOverEvent;
 import tw.wally.dixit.events.roundstate.DixitRoundScoredEvent;
 import tw.wally.dixit.events.roundstate.DixitRoundStoryGuessedEvent;
@@ -15,6 +16,7 @@ import tw.wally.dixit.model.Story;
 import tw.wally.dixit.repositories.DixitRepository;
 
 import javax.inject.Named;
+import java.util.List;
 
 import static tw.wally.dixit.utils.StreamUtils.mapToList;
 
@@ -23,20 +25,30 @@ import static tw.wally.dixit.utils.StreamUtils.mapToList;
  */
 @Named
 public class GuessStoryUseCase extends AbstractDixitUseCase {
-
-    public GuessStoryUseCase(DixitRepository dixitRepository, EventBus eventBus) {
-        super(dixitRepository, eventBus);
+    private final DixitOverviewCache dixitOverviewCache;
+
+    public GuessStoryUseCase(DixitRepository dixitRepository,
+                             EventBus eventBus,
+                             DixitCommandExecutor dixitCommandExecutor,
+                             DixitOverviewCache dixitOverviewCache) {
+        super(dixitRepository, eventBus, dixitCommandExecutor);
+        this.dixitOverviewCache = dixitOverviewCache;
     }
 
     public void execute(Request request) {
-        Dixit dixit = findDixit(request.gameId);
-        validateRound(dixit, request.round);
-
-        dixit.guessStory(request.playerId, request.cardId);
-
-        publishDixitRoundStoryGuessedEvents(dixit);
-        mayPublishDixitRoundScoredEvents(dixit);
-        dixitRepository.save(dixit);
+        execute(request.gameId, () -> {
+            Dixit dixit = findDixit(request.gameId);
+            validateRound(dixit, request.round);
+
+            dixit.guessStory(request.playerId, request.cardId);
+
+            publishDixitRoundStoryGuessedEvents(dixit);
+            publishDixitRoundStoryGuessedDeltaEvent(dixit, request.playerId);
+            mayPublishDixitRoundScoredEvents(dixit);
+            long version = dixit.getNextVersion();
+            dixitRepository.save(dixit);
+            dixitOverviewCache.invalidate(dixit.getId(), version);
+        });
     }
 
     private void publishDixitRoundStoryGuessedEvents(Dixit dixit) {
@@ -47,7 +59,14 @@ public class GuessStoryUseCase extends AbstractDixitUseCase {
         var playCards = dixit.getCurrentPlayCards();
         var guesses = dixit.getCurrentGuesses();
         var dixitRoundStoryGuessedEvents = mapToList(players, player -> new DixitRoundStoryGuessedEvent(dixitId, rounds, player.getId(), RoundState.STORY_GUESSING, story, playCards, guesses));
-        eventBus.publish(dixitRoundStoryGuessedEvents);
+        publish(dixit, dixitRoundStoryGuessedEvents);
+    }
+
+    private void publishDixitRoundStoryGuessedDeltaEvent(Dixit dixit, String guesserId) {
+        dixit.getCurrentGuesses().stream()
+                .filter(guess -> guesserId.equals(guess.getGuesserId()))
+                .findFirst()
+                .ifPresent(guess -> publish(dixit, List.of(new DixitRoundStoryGuessedDeltaEvent(dixit.getId(), dixit.getNumberOfRounds(), guess))));
     }
 
     private void mayPublishDixitRoundScoredEvents(Dixit dixit) {
@@ -59,7 +78,7 @@ public class GuessStoryUseCase extends AbstractDixitUseCase {
             String dixitId = dixit.getId();
             int rounds = dixit.getNumberOfRounds();
             var dixitRoundScoredEvents = mapToList(players, player -> new DixitRoundScoredEvent(dixitId, rounds, player.getId(), roundState, players));
-            eventBus.publish(dixitRoundScoredEvents);
+            publish(dixit, dixitRoundScoredEvents);
 
             mayPublishDixitGameOverOrDixitRoundStoryToldEvents(dixit);
         }
@@ -72,7 +91,7 @@ public class GuessStoryUseCase extends AbstractDixitUseCase {
             int rounds = dixit.getNumberOfRounds();
             var winners = dixit.getWinners();
             var dixitGameOverEvents = mapToList(dixit.getPlayers(), player -> new DixitGameOverEvent(dixitId, rounds, player.getId(), gameState, winners));
-            eventBus.publish(dixitGameOverEvents);
+            publish(dixit, dixitGameOverEvents);
         } else {
             dixit.startNextRound();
             publishDixitRoundStoryToldEvents(dixit);
@@ -88,7 +107,7 @@ public class GuessStoryUseCase extends AbstractDixitUseCase {
             var storyteller = dixit.getCurrentStoryteller();
             var dixitRoundStoryToldEvents = mapToList(players, player -> new DixitRoundStoryToldEvent(dixitId, rounds, currentRoundState, storyteller, player));
 
-            eventBus.publish(dixitRoundStoryToldEvents);
+            publish(dixit, dixitRoundStoryToldEvents);
         }
     }
 
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import tw.wally.dixit.events.EventBus;
+import tw.wally.dixit.events.delta.DixitRoundCardPlayedDeltaEvent;
 import tw.wally.dixit.events.roundstate.DixitRoundCardPlayedEvent;
 import tw.wally.dixit.events.roundstate.DixitRoundStoryGuessedEvent;
 import tw.wally.dixit.model.Dixit;
@@ -12,6 +13,7 @@ import tw.wally.dixit.model.Story;
 import tw.wally.dixit.repositories.DixitRepository;
 
 import javax.inject.Named;
+import java.util.List;
 
 import static tw.wally.dixit.utils.StreamUtils.mapToList;
 
@@ -20,20 +22,30 @@ import static tw.wally.dixit.utils.StreamUtils.mapToList;
  */
 @Named
 public class PlayCardUseCase extends AbstractDixitUseCase {
+    private final DixitOverviewCache dixitOverviewCache;
 
-    public PlayCardUseCase(DixitRepository dixitRepository, EventBus eventBus) {
-        super(dixitRepository, eventBus);
+    public PlayCardUseCase(DixitRepository dixitRepository,
+                           EventBus eventBus,
+                           DixitCommandExecutor dixitCommandExecutor,
+                           DixitOverviewCache dixitOverviewCache) {
+        super(dixitRepository, eventBus, dixitCommandExecutor);
+        this.dixitOverviewCache = dixitOverviewCache;
     }
 
     public void execute(Request request) {
-        Dixit dixit = findDixit(request.gameId);
-        validateRound(dixit, request.round);
+        execute(request.gameId, () -> {
+            Dixit dixit = findDixit(request.gameId);
+            validateRound(dixit, request.round);
 
-        dixit.playCard(request.playerId, request.cardId);
+            dixit.playCard(request.playerId, request.cardId);
 
-        publishDixitRoundCardPlayedEvents(dixit);
-        mayPublishDixitRoundStoryGuessedEvents(dixit);
-        dixitRepository.save(dixit);
+            publishDixitRoundCardPlayedEvents(dixit);
+            publishDixitRoundCardPlayedDeltaEvent(dixit, request.playerId);
+            mayPublishDixitRoundStoryGuessedEvents(dixit);
+            long version = dixit.getNextVersion();
+            dixitRepository.save(dixit);
+            dixitOverviewCache.invalidate(dixit.getId(), version);
+        });
     }
 
     private void publishDixitRoundCardPlayedEvents(Dixit dixit) {
@@ -43,7 +55,14 @@ public class PlayCardUseCase extends AbstractDixitUseCase {
         Story story = dixit.getCurrentStory();
         var playCards = dixit.getCurrentPlayCards();
         var dixitRoundCardPlayedEvents = mapToList(players, player -> new DixitRoundCardPlayedEvent(dixitId, rounds, player.getId(), RoundState.CARD_PLAYING, story, playCards));
-        eventBus.publish(dixitRoundCardPlayedEvents);
+        publish(dixit, dixitRoundCardPlayedEvents);
+    }
+
+    private void publishDixitRoundCardPlayedDeltaEvent(Dixit dixit, String playerId) {
+        dixit.getCurrentPlayCards().stream()
+                .filter(playCard -> playerId.equals(playCard.getPlayerId()))
+                .findFirst()
+                .ifPresent(playCard -> publish(dixit, List.of(new DixitRoundCardPlayedDeltaEvent(dixit.getId(), dixit.getNumberOfRounds(), playCard))));
     }
 
     private void mayPublishDixitRoundStoryGuessedEvents(Dixit dixit) {
@@ -56,7 +75,7 @@ public class PlayCardUseCase extends AbstractDixitUseCase {
             var playCards = dixit.getCurrentPlayCards();
             var guesses = dixit.getCurrentGuesses();
             var dixitRoundStoryGuessedEvents = mapToList(players, player -> new DixitRoundStoryGuessedEvent(dixitId, rounds, player.getId(), roundState, story, playCards, guesses));
-            eventBus.publish(dixitRoundStoryGuessedEvents);
+            publish(dixit, dixitRoundStoryGuessedEvents);
         }
     }
 
@@ -0,0 +1,43 @@
+package tw.wally.dixit.usecases;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.String.format;
+
+/**
+ * Serializes commands with a fixed set of fair locks, a game always maps to the same lock.
+ * Fair locks hand the lock over in arrival order, so the commands of a game run in order.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class StripedDixitCommandExecutor implements DixitCommandExecutor {
+    private final ReentrantLock[] locks;
+
+    public StripedDixitCommandExecutor(int numberOfStripes) {
+        if (numberOfStripes <= 0) {
+            throw new IllegalArgumentException(format("Number of stripes should be positive, but was %d.", numberOfStripes));
+        }
+        this.locks = new ReentrantLock[numberOfStripes];
+        for (int stripe = 0; stripe < numberOfStripes; stripe++) {
+            locks[stripe] = new ReentrantLock(true);
+        }
+    }
+
+    @Override
+    public void execute(String gameId, Runnable command) {
+        ReentrantLock lock = lockOf(gameId);
+        lock.lock();
+        try {
+            command.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockOf(String gameId) {
+        int hash = gameId.hashCode();
+        // spread the high bits so that similar game ids don't pile up on neighbouring stripes
+        hash ^= hash >>> 16;
+        return locks[Math.floorMod(hash, locks.length)];
+    }
+}
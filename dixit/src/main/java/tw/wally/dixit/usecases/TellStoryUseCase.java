@@ -19,19 +19,28 @@ import static tw.wally.dixit.utils.StreamUtils.mapToList;
  */
 @Named
 public class TellStoryUseCase extends AbstractDixitUseCase {
+    private final DixitOverviewCache dixitOverviewCache;
 
-    public TellStoryUseCase(DixitRepository dixitRepository, EventBus eventBus) {
-        super(dixitRepository, eventBus);
+    public TellStoryUseCase(DixitRepository dixitRepository,
+                            EventBus eventBus,
+                            DixitCommandExecutor dixitCommandExecutor,
+                            DixitOverviewCache dixitOverviewCache) {
+        super(dixitRepository, eventBus, dixitCommandExecutor);
+        this.dixitOverviewCache = dixitOverviewCache;
     }
 
     public void execute(Request request) {
-        Dixit dixit = findDixit(request.gameId);
-        validateRound(dixit, request.round);
+        execute(request.gameId, () -> {
+            Dixit dixit = findDixit(request.gameId);
+            validateRound(dixit, request.round);
 
-        dixit.tellStory(request.phrase, request.playerId , request.cardId);
+            dixit.tellStory(request.phrase, request.playerId , request.cardId);
 
-        publishDixitRoundCardPlayedEvents(dixit);
-        dixitRepository.save(dixit);
+            publishDixitRoundCardPlayedEvents(dixit);
+            long version = dixit.getNextVersion();
+            dixitRepository.save(dixit);
+            dixitOverviewCache.invalidate(dixit.getId(), version);
+        });
     }
 
     private void publishDixitRoundCardPlayedEvents(Dixit dixit) {
@@ -42,7 +51,7 @@ public class TellStoryUseCase extends AbstractDixitUseCase {
         Story story = dixit.getCurrentStory();
         var playCards = dixit.getCurrentPlayCards();
         var dixitRoundCardPlayedEvents = mapToList(players, player -> new DixitRoundCardPlayedEvent(dixitId, rounds, player.getId(), roundState, story, playCards));
-        eventBus.publish(dixitRoundCardPlayedEvents);
+        publish(dixit, dixitRoundCardPlayedEvents);
     }
 
     @Getter
@@ -0,0 +1,72 @@
+package tw.wally.dixit.model;
+
+import org.junit.jupiter.api.Test;
+import tw.wally.dixit.exceptions.InvalidGameStateException;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static tw.wally.dixit.utils.StreamUtils.generate;
+
+public class DeckTest extends AbstractDixitTest {
+
+    @Test
+    public void WhenDealCards_ThenShouldDealFromTheTopOfTheDeck() {
+        var cards = generateCards(3);
+        var deck = new Deck(cards);
+
+        assertSame(cards.get(2), deck.deal());
+        assertSame(cards.get(1), deck.deal());
+        assertEquals(List.of(cards.get(0)), deck.getCards());
+    }
+
+    @Test
+    public void WhenPutBackCardNotDealtFromTheDeck_ThenShouldDealItLast() {
+        var cards = generateCards(2);
+        var deck = new Deck(cards);
+        var returnedCard = new Card(100, CARD_IMAGE + 100);
+
+        deck.putBack(returnedCard);
+
+        assertEquals(List.of(returnedCard, cards.get(0), cards.get(1)), deck.getCards());
+        deck.deal();
+        deck.deal();
+        assertSame(returnedCard, deck.deal());
+        assertEquals(0, deck.size());
+    }
+
+    @Test
+    public void WhenShuffle_ThenShouldKeepTheSameCards() {
+        var cards = generateCards(36);
+        var deck = new Deck(cards);
+
+        deck.shuffle(new SplittableRandom());
+
+        var dealtCards = generate(36, index -> deck.deal());
+        assertTrue(dealtCards.containsAll(cards));
+        assertEquals(cards.size(), dealtCards.size());
+    }
+
+    @Test
+    public void GivenCardsOfHighNumberedDeck_WhenDealAndPutBackEveryRound_ThenDeckShouldOnlyHoldAsManyCardsAsItHas() {
+        var cards = generate(36, number -> new Card(100_000 + number, CARD_IMAGE + number));
+        var deck = new Deck(cards);
+
+        for (int round = 0; round < 10; round++) {
+            var dealtCards = generate(6, index -> deck.deal());
+            dealtCards.forEach(deck::putBack);
+        }
+
+        assertEquals(cards.size(), deck.size());
+        assertTrue(deck.capacity() <= 2 * cards.size());
+        assertTrue(deck.getCards().containsAll(cards));
+    }
+
+    @Test
+    public void GivenEmptyDeck_WhenDeal_ThenShouldFail() {
+        var deck = new Deck(List.of());
+
+        assertThrows(InvalidGameStateException.class, deck::deal);
+    }
+}
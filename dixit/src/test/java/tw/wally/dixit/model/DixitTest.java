@@ -7,19 +7,23 @@ import tw.wally.dixit.exceptions.InvalidGameStateException;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static tw.wally.dixit.model.Dixit.NUMBER_OF_PLAYER_HAND_CARDS;
 import static tw.wally.dixit.model.Round.GUESS_CORRECTLY_SCORE;
+import static tw.wally.dixit.utils.StreamUtils.generate;
 import static tw.wally.dixit.utils.StreamUtils.limit;
+import static tw.wally.dixit.utils.StreamUtils.mapToList;
 
 public class DixitTest extends AbstractDixitTest {
 
     public static final String DIXIT_ID = "dixitId";
     public static final int DEFAULT_CARD_SIZE = 36;
     public static final int DEFAULT_WINNING_SCORE = 30;
+    private static final long SEED = 16;
     private Dixit dixit;
     private Map<Player, Card> cardOfPlayers;
 
@@ -94,6 +98,48 @@ public class DixitTest extends AbstractDixitTest {
         assertGameStartedAndNumberOfRound(2);
     }
 
+    @Test
+    public void GivenTwoGamesWithTheSameSeed_WhenGamesStart_ThenPlayersShouldBeDealtTheSameCards() {
+        var startedDixits = generate(2, index -> startedDixit(SEED));
+
+        assertEquals(handCardsOf(startedDixits.get(0)), handCardsOf(startedDixits.get(1)));
+        assertEquals(startedDixits.get(0).getDeck().getCards(), startedDixits.get(1).getDeck().getCards());
+        assertNotEquals(startedDixits.get(0).getDeck().getCards(), startedDixit(SEED + 1).getDeck().getCards());
+    }
+
+    @Test
+    public void GivenGameRestoredInFirstRound_WhenSecondRoundStart_ThenShouldShuffleTheSameAsTheOriginalGame() {
+        Dixit originalDixit = startedDixit(SEED);
+        Dixit restoredDixit = Dixit.builder()
+                .id(originalDixit.getId())
+                .gameState(originalDixit.getGameState())
+                .victoryCondition(originalDixit.getVictoryCondition())
+                .seed(originalDixit.getSeed())
+                .deck(new Deck(originalDixit.getDeck().getCards()))
+                .players(mapToList(originalDixit.getPlayers(), player -> new Player(player.getId(), player.getName(), player.getColor(), player.getHandCards(), player.getScore())))
+                .numberOfRounds(originalDixit.getNumberOfRounds())
+                .build();
+
+        for (Dixit dixit : List.of(originalDixit, restoredDixit)) {
+            dixit.getPlayers().forEach(player -> player.playCard(player.getHandCards().get(0).getId()));
+            dixit.startNextRound();
+        }
+
+        assertEquals(handCardsOf(originalDixit), handCardsOf(restoredDixit));
+        assertEquals(originalDixit.getDeck().getCards(), restoredDixit.getDeck().getCards());
+    }
+
+    private Dixit startedDixit(long seed) {
+        var dixit = new Dixit(DIXIT_ID, new VictoryCondition(DEFAULT_WINNING_SCORE), generateCards(DEFAULT_CARD_SIZE), seed);
+        generatePlayers(4).forEach(dixit::join);
+        dixit.start();
+        return dixit;
+    }
+
+    private List<List<Card>> handCardsOf(Dixit dixit) {
+        return mapToList(dixit.getPlayers(), Player::getHandCards);
+    }
+
     @Test
     public void GivenGameScored_WhenOnePlayerAchievedWinningScore_ThenGameStateShouldBeOverAndShouldHaveOneWinner() {
         givenGameStartedAndRoundStateIsStoryGuessing(4);
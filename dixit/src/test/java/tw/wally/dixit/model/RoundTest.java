@@ -5,6 +5,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import tw.wally.dixit.exceptions.InvalidGameOperationException;
 import tw.wally.dixit.exceptions.InvalidGameStateException;
+import tw.wally.dixit.exceptions.NotFoundException;
 
 import java.util.*;
 
@@ -72,6 +73,19 @@ public class RoundTest extends AbstractDixitTest {
         assertEquals(RoundState.STORY_GUESSING, currentRound.getState());
     }
 
+    @Test
+    public void GivenStoryToldAndGuesserPlayedUnknownCard_WhenGuesserPlayCard_ThenRoundShouldHaveOnlyThatPlayCard() {
+        tellStory();
+        Player guesser = guessers.get(0);
+        assertThrows(NotFoundException.class, () -> currentRound.playCard(guesser.getId(), -1));
+
+        playCard(guesser);
+
+        var playCards = currentRound.getPlayCards();
+        assertEquals(1, playCards.size());
+        assertEquals(cardOfPlayers.get(guesser), playCards.get(0).getCard());
+    }
+
     @Test
     public void GivenStoryToldAndGuesser1PlayedCard_WhenGuesser1PlayCardAgain_ThenShouldFail() {
         tellStory();
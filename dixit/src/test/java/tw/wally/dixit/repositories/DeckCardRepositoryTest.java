@@ -0,0 +1,113 @@
+package tw.wally.dixit.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tw.wally.dixit.exceptions.NotFoundException;
+import tw.wally.dixit.model.Card;
+import tw.wally.dixit.model.CardImage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+import static tw.wally.dixit.model.DixitTest.DEFAULT_CARD_SIZE;
+import static tw.wally.dixit.repositories.CardManifest.IMAGES_FOLDER_PATH;
+import static tw.wally.dixit.repositories.CardRepository.DEFAULT_DECK;
+import static tw.wally.dixit.repositories.DeckCardRepository.CARDS_PER_DECK;
+import static tw.wally.dixit.repositories.DeckCardRepository.DECK_PROPERTIES;
+import static tw.wally.dixit.utils.StreamUtils.mapToList;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+public class DeckCardRepositoryTest {
+    private static final String EXPANSION_DECK = "expansion";
+    private static final int EXPANSION_DECK_NUMBER = 2;
+    private static final int NUMBER_OF_EXPANSION_CARDS = 3;
+    private static final ResourceCardRepository DEFAULT_CARD_REPOSITORY = new ResourceCardRepository(CardRepository.ImageMode.REFERENCE);
+
+    @TempDir
+    Path decksDirectory;
+    private DeckCardRepository deckCardRepository;
+
+    @BeforeEach
+    public void setup() {
+        deckCardRepository = new DeckCardRepository(DEFAULT_CARD_REPOSITORY, decksDirectory, CardRepository.ImageMode.REFERENCE, Duration.ZERO);
+    }
+
+    @Test
+    public void GivenDeckAddedAfterStartup_WhenFindAllByDeck_ThenShouldLoadItsCardsNumberedFromTheDeckNumber() throws IOException {
+        addExpansionDeck();
+
+        var cards = deckCardRepository.findAllByDecks(List.of(EXPANSION_DECK));
+
+        var firstCardId = EXPANSION_DECK_NUMBER * CARDS_PER_DECK + 1;
+        assertEquals(List.of(firstCardId, firstCardId + 1, firstCardId + 2), mapToList(cards, Card::getId));
+        assertEquals(cards.get(0), deckCardRepository.findCardById(firstCardId).orElseThrow());
+        var thumbnail = deckCardRepository.findImageById(firstCardId, 128).orElseThrow();
+        assertEquals(128, thumbnail.getWidth());
+        assertEquals(cards.get(0).getHash(), deckCardRepository.findImageById(firstCardId, Integer.MAX_VALUE).map(CardImage::getHash).orElseThrow());
+    }
+
+    @Test
+    public void WhenFindAllByDefaultAndExpansionDecks_ThenShouldCombineTheirCards() throws IOException {
+        addExpansionDeck();
+
+        var cards = deckCardRepository.findAllByDecks(List.of(DEFAULT_DECK, EXPANSION_DECK));
+
+        assertEquals(DEFAULT_CARD_SIZE + NUMBER_OF_EXPANSION_CARDS, cards.size());
+        assertEquals(DEFAULT_CARD_REPOSITORY.findAllAsMap(), deckCardRepository.findAllAsMap());
+    }
+
+    @Test
+    public void WhenFindAllByNoDeck_ThenShouldBeTheDefaultDeck() {
+        assertEquals(DEFAULT_CARD_SIZE, deckCardRepository.findAllByDecks(List.of()).size());
+        assertTrue(deckCardRepository.findCardById(1).isPresent());
+    }
+
+    @Test
+    public void WhenFindAllByUnknownDeck_ThenShouldThrowNotFound() {
+        assertThrows(NotFoundException.class, () -> deckCardRepository.findAllByDecks(List.of(EXPANSION_DECK)));
+        assertTrue(deckCardRepository.findCardById(EXPANSION_DECK_NUMBER * CARDS_PER_DECK + 1).isEmpty());
+    }
+
+    @Test
+    public void GivenDeckWithTooManyCards_WhenFindAllByItTwice_ThenShouldFailWithoutLoadingItAgain() throws IOException {
+        addDeckWithTooManyCards();
+
+        var failure = assertThrows(IllegalStateException.class, () -> deckCardRepository.findAllByDecks(List.of(EXPANSION_DECK)));
+        assertEquals(format("Deck: %s has more than %d cards", EXPANSION_DECK, CARDS_PER_DECK - 1), failure.getMessage());
+
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> deckCardRepository.findAllByDecks(List.of(EXPANSION_DECK))));
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> deckCardRepository.findCardById(EXPANSION_DECK_NUMBER * CARDS_PER_DECK + 1)));
+    }
+
+    private void addDeckWithTooManyCards() throws IOException {
+        Path deckDirectory = decksDirectory.resolve(EXPANSION_DECK);
+        Path imagesFolder = Files.createDirectories(deckDirectory.resolve(IMAGES_FOLDER_PATH));
+        var manifest = new StringBuilder();
+        for (int cardId = 1; cardId <= CARDS_PER_DECK; cardId++) {
+            manifest.append(format("%d\timages/%d.jpeg\t1\thash%d\n", cardId, cardId, cardId));
+        }
+        Files.writeString(imagesFolder.resolve(CardManifest.FILE_NAME), manifest);
+        Files.writeString(deckDirectory.resolve(DECK_PROPERTIES), "number=" + EXPANSION_DECK_NUMBER);
+    }
+
+    private void addExpansionDeck() throws IOException {
+        Path deckDirectory = decksDirectory.resolve(EXPANSION_DECK);
+        Path imagesFolder = Files.createDirectories(deckDirectory.resolve(IMAGES_FOLDER_PATH));
+        try (var images = Files.list(Path.of("src/main/resources", IMAGES_FOLDER_PATH))) {
+            for (Path image : images.sorted().limit(NUMBER_OF_EXPANSION_CARDS).collect(toList())) {
+                Files.copy(image, imagesFolder.resolve(image.getFileName()));
+            }
+        }
+        new CardPackCompiler(128).compile(imagesFolder);
+        Files.writeString(deckDirectory.resolve(DECK_PROPERTIES), "number=" + EXPANSION_DECK_NUMBER);
+    }
+}
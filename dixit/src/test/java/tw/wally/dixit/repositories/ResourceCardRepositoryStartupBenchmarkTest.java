@@ -0,0 +1,102 @@
+package tw.wally.dixit.repositories;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import tw.wally.dixit.model.Card;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+import static tw.wally.dixit.repositories.CardManifest.IMAGES_FOLDER_PATH;
+import static tw.wally.dixit.repositories.CardManifest.RESOURCE_PATH;
+import static tw.wally.dixit.repositories.CardPackCompiler.PACK_RESOURCE_PATH;
+
+/**
+ * Compares the startup of the card repository from a jar with and without the card manifest,
+ * the jar is padded with other entries like the fat jar the service runs from.
+ * Only that both load the same cards is checked by default, the startup times are compared when asked to:
+ * "mvn -pl dixit -am test -Dtest=ResourceCardRepositoryStartupBenchmarkTest -DfailIfNoTests=false -Ddixit.startup-benchmark=true".
+ *
+ * @author - wally55077@gmail.com
+ */
+public class ResourceCardRepositoryStartupBenchmarkTest {
+    private static final int NUMBER_OF_OTHER_ENTRIES = 20_000;
+    private static final int NUMBER_OF_RUNS = 5;
+    private static Path jarWithManifest;
+    private static Path jarWithoutManifest;
+
+    @BeforeAll
+    public static void buildJars(@TempDir Path folder) throws IOException {
+        Path imagesFolder = Path.of("target/classes", IMAGES_FOLDER_PATH);
+        jarWithManifest = buildJar(folder.resolve("with-manifest.jar"), imagesFolder, true);
+        jarWithoutManifest = buildJar(folder.resolve("without-manifest.jar"), imagesFolder, false);
+    }
+
+    @Test
+    public void WhenLoadCardsFromJarWithManifest_ThenShouldLoadTheSameCardsAsScanningTheJar() throws IOException {
+        var cardsFromManifest = load(jarWithManifest);
+        var cardsFromScanning = load(jarWithoutManifest);
+        assertEquals(cardsFromScanning, cardsFromManifest);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "dixit.startup-benchmark", matches = "true")
+    public void WhenLoadCardsFromJarWithManifest_ThenShouldLoadFasterThanScanningTheJar() throws IOException {
+        long manifestNanos = medianStartupNanos(jarWithManifest);
+        long scanningNanos = medianStartupNanos(jarWithoutManifest);
+
+        System.out.printf("Card repository startup: manifest %d ms, scanning %d ms%n",
+                NANOSECONDS.toMillis(manifestNanos), NANOSECONDS.toMillis(scanningNanos));
+        assertTrue(manifestNanos < scanningNanos);
+    }
+
+    private Map<Integer, Card> load(Path jar) throws IOException {
+        try (var classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+            return new ResourceCardRepository(CardRepository.ImageMode.REFERENCE, classLoader).findAllAsMap();
+        }
+    }
+
+    private long medianStartupNanos(Path jar) throws IOException {
+        long[] nanos = new long[NUMBER_OF_RUNS];
+        for (int run = 0; run < NUMBER_OF_RUNS; run++) {
+            long start = System.nanoTime();
+            load(jar);
+            nanos[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[NUMBER_OF_RUNS / 2];
+    }
+
+    private static Path buildJar(Path jar, Path imagesFolder, boolean withManifest) throws IOException {
+        try (var outputStream = new JarOutputStream(Files.newOutputStream(jar))) {
+            byte[] otherContent = new byte[512];
+            for (int number = 0; number < NUMBER_OF_OTHER_ENTRIES; number++) {
+                outputStream.putNextEntry(new JarEntry("BOOT-INF/classes/other/Entry" + number + ".class"));
+                outputStream.write(otherContent);
+            }
+            outputStream.putNextEntry(new JarEntry(IMAGES_FOLDER_PATH + "/"));
+            try (var files = Files.list(imagesFolder)) {
+                for (Path file : files.sorted().collect(toList())) {
+                    String name = IMAGES_FOLDER_PATH + "/" + file.getFileName();
+                    if (withManifest || !RESOURCE_PATH.equals(name) && !PACK_RESOURCE_PATH.equals(name)) {
+                        outputStream.putNextEntry(new JarEntry(name));
+                        outputStream.write(Files.readAllBytes(file));
+                    }
+                }
+            }
+        }
+        return jar;
+    }
+}
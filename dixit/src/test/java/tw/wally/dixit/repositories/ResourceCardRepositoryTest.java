@@ -0,0 +1,118 @@
+package tw.wally.dixit.repositories;
+
+import org.junit.jupiter.api.Test;
+import tw.wally.dixit.model.Card;
+import tw.wally.dixit.model.CardImage;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static java.util.Base64.getDecoder;
+import static org.junit.jupiter.api.Assertions.*;
+import static tw.wally.dixit.model.DixitTest.DEFAULT_CARD_SIZE;
+
+public class ResourceCardRepositoryTest {
+
+    @Test
+    public void WhenLoadCardsInInlineMode_ThenEachCardShouldCarryItsImageAndHash() {
+        var cardRepository = new ResourceCardRepository(CardRepository.ImageMode.INLINE);
+
+        var cards = cardRepository.findAll();
+
+        assertEquals(DEFAULT_CARD_SIZE, cards.size());
+        for (Card card : cards) {
+            assertNotNull(card.getHash());
+            ByteBuffer image = cardRepository.findImageById(card.getId()).orElseThrow();
+            assertEquals(ByteBuffer.wrap(getDecoder().decode(card.getImage())), image);
+            assertTrue(image.isReadOnly());
+        }
+    }
+
+    @Test
+    public void WhenLoadCardsInReferenceMode_ThenCardsShouldCarryOnlyIdAndHash() {
+        var inlineCards = new ResourceCardRepository(CardRepository.ImageMode.INLINE).findAllAsMap();
+        var cardRepository = new ResourceCardRepository(CardRepository.ImageMode.REFERENCE);
+
+        var cards = cardRepository.findAllAsMap();
+
+        assertEquals(inlineCards.keySet(), cards.keySet());
+        cards.values().forEach(card -> {
+            assertNull(card.getImage());
+            assertEquals(inlineCards.get(card.getId()).getHash(), card.getHash());
+            assertTrue(cardRepository.findImageById(card.getId()).isPresent());
+        });
+    }
+
+    @Test
+    public void WhenSeveralRepositoriesLoadTheSameCards_ThenTheyShouldShareOneReadOnlyPack() {
+        var inlineCardRepository = new ResourceCardRepository(CardRepository.ImageMode.INLINE);
+        var referenceCardRepository = new ResourceCardRepository(CardRepository.ImageMode.REFERENCE);
+
+        assertSame(inlineCardRepository.getPack(), referenceCardRepository.getPack());
+        assertTrue(inlineCardRepository.getPack().isReadOnly());
+    }
+
+    @Test
+    public void WhenInlineCardIsRenumbered_ThenItShouldStillCarryItsImage() {
+        Card card = new ResourceCardRepository(CardRepository.ImageMode.INLINE).findAllAsMap().get(1);
+
+        Card renumbered = card.withId(1001);
+
+        assertEquals(1001, renumbered.getId());
+        assertEquals(card.getHash(), renumbered.getHash());
+        assertEquals(card.getImage(), renumbered.getImage());
+    }
+
+    @Test
+    public void WhenGetInlineImageSeveralTimes_ThenShouldEncodeItOnlyOnce() {
+        Card card = new ResourceCardRepository(CardRepository.ImageMode.INLINE).findAllAsMap().get(1);
+
+        String image = card.getImage();
+
+        assertSame(image, card.getImage());
+        assertSame(image, card.withId(1001).getImage());
+    }
+
+    @Test
+    public void WhenFindImageSeveralTimes_ThenEachShouldBeAnIndependentViewOfTheSameImage() {
+        var cardRepository = new ResourceCardRepository(CardRepository.ImageMode.REFERENCE);
+
+        ByteBuffer image = cardRepository.findImageById(1).orElseThrow();
+        image.get(new byte[image.remaining()]);
+
+        assertFalse(image.hasRemaining());
+        assertEquals(cardRepository.findAllAsMap().get(1).getHash(),
+                CardManifest.toHash(toBytes(cardRepository.findImageById(1).orElseThrow())));
+    }
+
+    @Test
+    public void WhenFindImageAtThumbnailWidth_ThenShouldReturnTheSmallestVariantThatFits() throws IOException {
+        var cardRepository = new ResourceCardRepository(CardRepository.ImageMode.REFERENCE);
+        Card card = cardRepository.findAllAsMap().get(1);
+
+        CardImage thumbnail = cardRepository.findImageById(card.getId(), 100).orElseThrow();
+        CardImage original = cardRepository.findImageById(card.getId(), Integer.MAX_VALUE).orElseThrow();
+
+        assertEquals(128, thumbnail.getWidth());
+        assertEquals(128, ImageIO.read(new ByteArrayInputStream(toBytes(thumbnail.getBytes()))).getWidth());
+        assertNotEquals(card.getHash(), thumbnail.getHash());
+        assertTrue(thumbnail.getBytes().remaining() < original.getBytes().remaining());
+        assertEquals(card.getHash(), original.getHash());
+        assertEquals(original.getBytes(), cardRepository.findImageById(card.getId()).orElseThrow());
+    }
+
+    @Test
+    public void WhenFindImageOfUnknownCard_ThenShouldBeEmpty() {
+        var cardRepository = new ResourceCardRepository(CardRepository.ImageMode.REFERENCE);
+
+        assertTrue(cardRepository.findImageById(-1).isEmpty());
+    }
+
+    private byte[] toBytes(ByteBuffer image) {
+        byte[] bytes = new byte[image.remaining()];
+        image.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,278 @@
+package tw.wally.dixit.usecases;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tw.wally.dixit.events.EventBus;
+import tw.wally.dixit.events.roundstate.DixitRoundScoredEvent;
+import tw.wally.dixit.model.*;
+import tw.wally.dixit.repositories.CardRepository;
+import tw.wally.dixit.repositories.DixitRepository;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.Collections.shuffle;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.IntStream.range;
+import static org.junit.jupiter.api.Assertions.*;
+import static tw.wally.dixit.model.Round.BONUS_SCORE;
+import static tw.wally.dixit.model.Round.GUESS_CORRECTLY_SCORE;
+import static tw.wally.dixit.utils.StreamUtils.generate;
+import static tw.wally.dixit.utils.StreamUtils.mapToList;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+public class StripedDixitCommandExecutorTest {
+    private static final int NUMBER_OF_GAMES = 1000;
+    private static final int NUMBER_OF_PLAYERS = 4;
+    private static final int FIRST_ROUND = 1;
+    private static final String PHRASE = "phrase";
+    private final ExecutorService players = Executors.newFixedThreadPool(64);
+    private final DixitCommandExecutor dixitCommandExecutor = new StripedDixitCommandExecutor(1024);
+    private final InMemoryDixitRepository dixitRepository = new InMemoryDixitRepository();
+    private final ScoredEventCounter eventBus = new ScoredEventCounter();
+    private final DixitOverviewCache dixitOverviewCache = (gameId, version) -> {
+    };
+    private final CreateDixitUseCase createDixitUseCase = new CreateDixitUseCase(dixitRepository, new GeneratedCardRepository(), eventBus, dixitCommandExecutor, dixitOverviewCache);
+    private final TellStoryUseCase tellStoryUseCase = new TellStoryUseCase(dixitRepository, eventBus, dixitCommandExecutor, dixitOverviewCache);
+    private final PlayCardUseCase playCardUseCase = new PlayCardUseCase(dixitRepository, eventBus, dixitCommandExecutor, dixitOverviewCache);
+    private final GuessStoryUseCase guessStoryUseCase = new GuessStoryUseCase(dixitRepository, eventBus, dixitCommandExecutor, dixitOverviewCache);
+
+    @AfterEach
+    public void tearDown() {
+        players.shutdownNow();
+    }
+
+    @Test
+    public void GivenThousandsOfSimultaneousMovesAcrossGames_WhenExecute_ThenNoMoveShouldBeLostAndEachPlayerShouldBeScoredOnce() throws Exception {
+        var gameIds = generate(NUMBER_OF_GAMES, number -> "dixit-" + number);
+        runSimultaneously(gameIds, gameId -> () -> createDixitUseCase.execute(createRequest(gameId)));
+        runSimultaneously(gameIds, gameId -> () -> tellStory(gameId));
+
+        runSimultaneously(guessersOf(gameIds), move -> () -> playCard(move.gameId, move.guesser));
+        runSimultaneously(guessersOf(gameIds), move -> () -> guessStory(move.gameId, move.guesser));
+
+        for (String gameId : gameIds) {
+            Dixit dixit = dixitRepository.findDixitById(gameId).orElseThrow();
+            assertEquals(FIRST_ROUND + 1, dixit.getNumberOfRounds());
+            assertEquals(RoundState.STORY_TELLING, dixit.getCurrentRoundState());
+            var scores = dixitRepository.scoresOfFirstRound(gameId);
+            assertEquals(List.of(GUESS_CORRECTLY_SCORE, GUESS_CORRECTLY_SCORE + 2 * BONUS_SCORE, 0, 0), scores);
+            for (Player player : dixit.getPlayers()) {
+                assertEquals(1, eventBus.numberOfScoredEvents(gameId, player.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void GivenCommandOfOneGameIsRunning_WhenExecuteCommandOfAnotherGame_ThenShouldNotWaitForIt() throws Exception {
+        CountDownLatch running = new CountDownLatch(1), release = new CountDownLatch(1);
+        Future<?> blockedCommand = players.submit(() -> dixitCommandExecutor.execute("A", () -> {
+            running.countDown();
+            await(release);
+        }));
+        running.await();
+
+        AtomicInteger executed = new AtomicInteger();
+        CompletableFuture.runAsync(() -> dixitCommandExecutor.execute("B", executed::incrementAndGet), players)
+                .get(5, SECONDS);
+
+        assertEquals(1, executed.get());
+        assertFalse(blockedCommand.isDone());
+        release.countDown();
+        blockedCommand.get(5, SECONDS);
+    }
+
+    private <T> void runSimultaneously(List<T> targets, Function<T, Runnable> moveOf) throws Exception {
+        var moves = new ArrayList<Runnable>(targets.size());
+        targets.forEach(target -> moves.add(moveOf.apply(target)));
+        shuffle(moves);
+        CountDownLatch startingGun = new CountDownLatch(1);
+        var futures = new ArrayList<Future<?>>(moves.size());
+        for (Runnable move : moves) {
+            futures.add(players.submit(() -> {
+                await(startingGun);
+                move.run();
+            }));
+        }
+        startingGun.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, SECONDS);
+        }
+    }
+
+    private CreateDixitUseCase.Request createRequest(String gameId) {
+        var players = generate(NUMBER_OF_PLAYERS, number -> new Player(String.valueOf(number), "dixitPlayer" + number));
+        var options = singletonList(new CreateDixitUseCase.Option("winningScore", 30));
+        return new CreateDixitUseCase.Request("roomId", gameId, players.get(0).getId(), players, options);
+    }
+
+    private void tellStory(String gameId) {
+        Player storyteller = dixitRepository.findDixitById(gameId).orElseThrow().getCurrentStoryteller();
+        int cardId = storyteller.getHandCards().get(0).getId();
+        tellStoryUseCase.execute(new TellStoryUseCase.Request(gameId, FIRST_ROUND, storyteller.getId(), PHRASE, cardId));
+    }
+
+    private List<Move> guessersOf(List<String> gameIds) {
+        var moves = new ArrayList<Move>(gameIds.size() * (NUMBER_OF_PLAYERS - 1));
+        for (String gameId : gameIds) {
+            Dixit dixit = dixitRepository.findDixitById(gameId).orElseThrow();
+            dixit.getCurrentGuessers().forEach(guesser -> moves.add(new Move(gameId, guesser)));
+        }
+        return moves;
+    }
+
+    private void playCard(String gameId, Player guesser) {
+        int cardId = guesser.getHandCards().get(0).getId();
+        playCardUseCase.execute(new PlayCardUseCase.Request(gameId, FIRST_ROUND, guesser.getId(), cardId));
+    }
+
+    /**
+     * The first guesser finds the story, the others pick the first guesser's card,
+     * so the storyteller and the first guesser score and every lost guess changes the result.
+     */
+    private void guessStory(String gameId, Player guesser) {
+        Dixit dixit = dixitRepository.findDixitById(gameId).orElseThrow();
+        Player firstGuesser = dixit.getCurrentGuessers().get(0);
+        int cardId = guesser.equals(firstGuesser) ? dixit.getCurrentStory().getCard().getId() :
+                dixit.getCurrentPlayCards().stream()
+                        .filter(playCard -> playCard.getPlayer().equals(firstGuesser))
+                        .findFirst().orElseThrow()
+                        .getCard().getId();
+        guessStoryUseCase.execute(new GuessStoryUseCase.Request(gameId, FIRST_ROUND, guesser.getId(), cardId));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Move {
+        private final String gameId;
+        private final Player guesser;
+
+        private Move(String gameId, Player guesser) {
+            this.gameId = gameId;
+            this.guesser = guesser;
+        }
+    }
+
+    /**
+     * Like a real database, every load and save copies the whole game,
+     * so two unserialized moves of the same game overwrite each other.
+     */
+    private static class InMemoryDixitRepository implements DixitRepository {
+        private final Map<String, Dixit> dixits = new ConcurrentHashMap<>();
+        private final Map<String, List<String>> firstRoundPlayerOrders = new ConcurrentHashMap<>();
+
+        @Override
+        public Optional<Dixit> findDixitById(String id) {
+            return Optional.ofNullable(dixits.get(id)).map(InMemoryDixitRepository::copy);
+        }
+
+        @Override
+        public Dixit save(Dixit dixit) {
+            dixits.put(dixit.getId(), copy(dixit));
+            firstRoundPlayerOrders.computeIfAbsent(dixit.getId(), id -> {
+                var order = new ArrayList<String>();
+                order.add(dixit.getCurrentStoryteller().getId());
+                dixit.getCurrentGuessers().forEach(guesser -> order.add(guesser.getId()));
+                return order;
+            });
+            return dixit;
+        }
+
+        @Override
+        public void deleteAll() {
+            dixits.clear();
+        }
+
+        private static Dixit copy(Dixit dixit) {
+            var players = new LinkedHashMap<String, Player>();
+            dixit.getPlayers().forEach(player -> players.put(player.getId(),
+                    new Player(player.getId(), player.getName(), player.getColor(), player.getHandCards(), player.getScore())));
+            return Dixit.builder()
+                    .id(dixit.getId())
+                    .gameState(dixit.getGameState())
+                    .victoryCondition(dixit.getVictoryCondition())
+                    .deck(new Deck(dixit.getDeck().getCards()))
+                    .players(new ArrayList<>(players.values()))
+                    .numberOfRounds(dixit.getNumberOfRounds())
+                    .round(copy(dixit.getRound(), players))
+                    .winners(mapToList(dixit.getWinners(), winner -> players.get(winner.getId())))
+                    .build();
+        }
+
+        private static Round copy(Round round, Map<String, Player> players) {
+            var playCards = mapToList(round.getPlayCards(), playCard -> copy(playCard, players));
+            var guesses = new HashMap<String, Guess>();
+            round.getGuesses().forEach(guess -> guesses.put(guess.getGuesserId(),
+                    new Guess(players.get(guess.getGuesserId()), copy(guess.getPlayCard(), players))));
+            return Round.builder()
+                    .roundState(round.getRoundState())
+                    .numberOfGuessers(round.getNumberOfGuessers())
+                    .storyteller(players.get(round.getStoryteller().getId()))
+                    .guessers(mapToList(round.getGuessers(), guesser -> players.get(guesser.getId())))
+                    .story(round.mayHaveStory().map(story -> new Story(story.getPhrase(), copy(story.getPlayCard(), players))).orElse(null))
+                    .playCards(playCards)
+                    .guesses(guesses)
+                    .build();
+        }
+
+        private static PlayCard copy(PlayCard playCard, Map<String, Player> players) {
+            return new PlayCard(players.get(playCard.getPlayerId()), playCard.getCard());
+        }
+
+        /**
+         * @return the scores ordered as storyteller, first guesser, second guesser, third guesser of the first round
+         */
+        private List<Integer> scoresOfFirstRound(String gameId) {
+            Dixit dixit = dixits.get(gameId);
+            var scores = new ArrayList<Integer>();
+            firstRoundPlayerOrders.get(gameId).forEach(playerId -> scores.add(dixit.getPlayer(playerId).getScore()));
+            return scores;
+        }
+    }
+
+    private static class ScoredEventCounter implements EventBus {
+        private final Map<String, AtomicInteger> numberOfScoredEvents = new ConcurrentHashMap<>();
+
+        @Override
+        public void publish(Event event) {
+            if (event instanceof DixitRoundScoredEvent) {
+                numberOfScoredEvents.computeIfAbsent(event.getGameId() + "/" + event.getPlayerId(), key -> new AtomicInteger())
+                        .incrementAndGet();
+            }
+        }
+
+        private int numberOfScoredEvents(String gameId, String playerId) {
+            return numberOfScoredEvents.getOrDefault(gameId + "/" + playerId, new AtomicInteger()).get();
+        }
+    }
+
+    private static class GeneratedCardRepository implements CardRepository {
+        private final Map<Integer, Card> cards = range(0, 36)
+                .mapToObj(number -> new Card(number, "image: " + number))
+                .collect(toMap(Card::getId, identity()));
+
+        @Override
+        public Map<Integer, Card> findAllAsMap() {
+            return cards;
+        }
+
+        @Override
+        public Optional<CardImage> findImageById(int cardId, int width) {
+            return Optional.empty();
+        }
+    }
+}
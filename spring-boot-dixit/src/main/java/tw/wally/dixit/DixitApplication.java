@@ -1,12 +1,17 @@
 package tw.wally.dixit;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.autoconfigure.metrics.data.RepositoryMetricsAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 /**
+ * The spring data repository metrics are left out, in spring boot 2.5.0 they create the meter registry
+ * before it is configured, so it didn't have the distribution settings,
+ * the DixitRepository is timed by the MetricsAdvice instead.
+ *
  * @author - wally55077@gmail.com
  */
-@SpringBootApplication
+@SpringBootApplication(exclude = RepositoryMetricsAutoConfiguration.class)
 public class DixitApplication {
 
     public static void main(String[] args) {
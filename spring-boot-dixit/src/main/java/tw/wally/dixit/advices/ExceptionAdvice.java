@@ -1,10 +1,13 @@
 package tw.wally.dixit.advices;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import tw.wally.dixit.exceptions.ConflictException;
 import tw.wally.dixit.exceptions.InvalidGameOperationException;
 import tw.wally.dixit.exceptions.InvalidGameStateException;
+import tw.wally.dixit.exceptions.InvalidTokenException;
 import tw.wally.dixit.exceptions.NotFoundException;
 
 /**
@@ -23,4 +26,14 @@ public class ExceptionAdvice {
         return ResponseEntity.badRequest().build();
     }
 
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<?> conflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    @ExceptionHandler(InvalidTokenException.class)
+    public ResponseEntity<?> unauthorized() {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
 }
@@ -0,0 +1,62 @@
+package tw.wally.dixit.advices;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import tw.wally.dixit.advices.MetricsAdvice.Outcome;
+import tw.wally.dixit.jfr.UseCaseEvent;
+import tw.wally.dixit.model.Dixit;
+
+import java.util.Optional;
+
+/**
+ * Records a UseCaseEvent around every use case's execute, it is only recorded when dixit.jfr.enabled is on
+ * and a recording is running. The commands of a game run on the thread executing the use case,
+ * so the games loaded and saved on that thread describe the event being recorded.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Aspect
+@Component
+public class FlightRecorderAdvice {
+    private static final ThreadLocal<UseCaseEvent> RECORDING = new ThreadLocal<>();
+
+    @Around("execution(public * tw.wally.dixit.usecases.*UseCase.execute(..))")
+    public Object recordUseCase(ProceedingJoinPoint joinPoint) throws Throwable {
+        var event = new UseCaseEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        RECORDING.set(event);
+        event.begin();
+        Outcome outcome = Outcome.OK;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = Outcome.of(e);
+            throw e;
+        } finally {
+            RECORDING.remove();
+            event.commit(joinPoint.getSignature().getDeclaringType().getSimpleName(), joinPoint.getArgs()[0], outcome.name());
+        }
+    }
+
+    @AfterReturning(pointcut = "execution(* tw.wally.dixit.repositories.DixitRepository.findDixitById(..))", returning = "dixit")
+    public void describeLoadedDixit(Optional<Dixit> dixit) {
+        dixit.ifPresent(this::describeUseCase);
+    }
+
+    @AfterReturning(pointcut = "execution(* tw.wally.dixit.repositories.DixitRepository.save(..))", returning = "dixit")
+    public void describeSavedDixit(Dixit dixit) {
+        describeUseCase(dixit);
+    }
+
+    private void describeUseCase(Dixit dixit) {
+        UseCaseEvent event = RECORDING.get();
+        if (event != null) {
+            event.describe(dixit);
+        }
+    }
+}
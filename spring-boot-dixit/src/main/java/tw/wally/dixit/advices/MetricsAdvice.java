@@ -0,0 +1,108 @@
+package tw.wally.dixit.advices;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+import tw.wally.dixit.exceptions.ConflictException;
+import tw.wally.dixit.exceptions.InvalidGameOperationException;
+import tw.wally.dixit.exceptions.InvalidGameStateException;
+import tw.wally.dixit.exceptions.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Times every use case's execute, every call to the DixitRepository and the mapping between a game and its document,
+ * the domain knows nothing about metrics.
+ * Each timer is tagged with the outcome of the call, the exceptions the ExceptionAdvice maps to a response
+ * have an outcome of their own. A timer is registered on its first use and looked up by its tags afterwards.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Aspect
+@Component
+public class MetricsAdvice {
+    private static final String OUTCOME = "outcome";
+    private final MeterRegistry meterRegistry;
+    // by the name of the timer followed by its tags
+    private final Map<List<String>, Timer> timers = new ConcurrentHashMap<>();
+
+    public MetricsAdvice(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * tw.wally.dixit.usecases.*UseCase.execute(..))")
+    public Object timeUseCase(ProceedingJoinPoint joinPoint) throws Throwable {
+        return proceedAndRecord(joinPoint, "dixit.usecase", "Time a use case takes to execute, including waiting for the game's lock",
+                "usecase", joinPoint.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    @Around("execution(* tw.wally.dixit.repositories.DixitRepository.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return proceedAndRecord(joinPoint, "dixit.repository", "Time a call to the DixitRepository takes",
+                "repository", AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName(),
+                "method", joinPoint.getSignature().getName());
+    }
+
+    @Around("execution(public * tw.wally.dixit.repositories.DixitDataMapper.*(..))")
+    public Object timeMapping(ProceedingJoinPoint joinPoint) throws Throwable {
+        String direction = "toData".equals(joinPoint.getSignature().getName()) ? "to-data" : "to-entity";
+        return proceedAndRecord(joinPoint, "dixit.data.mapping", "Time mapping between a game and its document takes",
+                "direction", direction);
+    }
+
+    /**
+     * @param tags the keys and values of the tags besides the outcome
+     */
+    private Object proceedAndRecord(ProceedingJoinPoint joinPoint, String name, String description, String... tags) throws Throwable {
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.OK;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = Outcome.of(e);
+            throw e;
+        } finally {
+            getTimer(name, description, outcome, tags).record(System.nanoTime() - start, NANOSECONDS);
+        }
+    }
+
+    private Timer getTimer(String name, String description, Outcome outcome, String... tags) {
+        var key = new ArrayList<String>(tags.length + 3);
+        key.add(name);
+        key.addAll(asList(tags));
+        key.add(OUTCOME);
+        key.add(outcome.name());
+        return timers.computeIfAbsent(key, id -> Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .tag(OUTCOME, outcome.name())
+                .register(meterRegistry));
+    }
+
+    public enum Outcome {
+        OK, NOT_FOUND, INVALID_OPERATION, INVALID_STATE, CONFLICT, ERROR;
+
+        public static Outcome of(Throwable e) {
+            if (e instanceof NotFoundException) {
+                return NOT_FOUND;
+            } else if (e instanceof InvalidGameOperationException) {
+                return INVALID_OPERATION;
+            } else if (e instanceof InvalidGameStateException) {
+                return INVALID_STATE;
+            } else if (e instanceof ConflictException) {
+                return CONFLICT;
+            }
+            return ERROR;
+        }
+    }
+}
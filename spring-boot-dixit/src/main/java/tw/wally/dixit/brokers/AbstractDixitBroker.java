@@ -5,13 +5,35 @@ import tw.wally.dixit.model.GameState;
 import tw.wally.dixit.model.RoundState;
 
 import static java.lang.String.format;
+import static tw.wally.dixit.configs.WebSocketConfiguration.STOMP_QUEUE_DESTINATION_PREFIX;
 import static tw.wally.dixit.configs.WebSocketConfiguration.STOMP_ROOT_DESTINATION_PREFIX;
+import static tw.wally.dixit.configs.WebSocketConfiguration.STOMP_USER_DESTINATION_PREFIX;
 
 /**
  * @author - wally55077@gmail.com
  */
 public abstract class AbstractDixitBroker implements EventBus {
 
+    // topic/dixit/{dixitId}/gameStates/{gameState} GameState: STARTED | OVER
+    protected String generateDixitGameStateTopic(String gameId, GameState gameState) {
+        return format("%s/dixit/%s/gameStates/%s", STOMP_ROOT_DESTINATION_PREFIX, gameId, gameState);
+    }
+
+    // topic/dixit/{dixitId}/roundStates/{roundState} RoundState: STORY_TELLING | CARD_PLAYING | STORY_GUESSING | SCORING
+    protected String generateDixitRoundStateTopic(String gameId, RoundState roundState) {
+        return format("%s/dixit/%s/roundStates/%s", STOMP_ROOT_DESTINATION_PREFIX, gameId, roundState);
+    }
+
+    // user/{playerId}/queue/dixit/{dixitId}/handCards, only reaches the sessions authenticated as the player
+    protected String generateDixitHandCardsDestination(String gameId, String playerId) {
+        return format("%s/%s%s/dixit/%s/handCards", STOMP_USER_DESTINATION_PREFIX, playerId, STOMP_QUEUE_DESTINATION_PREFIX, gameId);
+    }
+
+    // user/queue/dixit/{dixitId}/handCards, what the player subscribes to for their hand cards
+    protected String generateDixitHandCardsSubscription(String gameId) {
+        return format("%s%s/dixit/%s/handCards", STOMP_USER_DESTINATION_PREFIX, STOMP_QUEUE_DESTINATION_PREFIX, gameId);
+    }
+
     // topic/dixit/{dixitId}/gameStates/{gameState}/players/{playerId} GameState: STARTED | OVER
     protected String generateDixitGameStateEventTopic(String gameId, GameState gameState, String playerId) {
         return format("%s/dixit/%s/gameStates/%s/players/%s", STOMP_ROOT_DESTINATION_PREFIX, gameId, gameState, playerId);
@@ -1,35 +1,337 @@
 package tw.wally.dixit.brokers;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
 import tw.wally.dixit.events.DixitGameEvent;
 import tw.wally.dixit.events.DixitRoundEvent;
+import tw.wally.dixit.events.delta.DixitRoundDeltaEvent;
+import tw.wally.dixit.events.roundstate.DixitRoundStoryToldEvent;
+import tw.wally.dixit.jfr.StompSendEvent;
+import tw.wally.dixit.model.RoundState;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+
+import static java.lang.Math.floorMod;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static org.springframework.util.MimeTypeUtils.APPLICATION_JSON;
 
 /**
+ * Sends the public part of events to game-wide topics and the hand cards to the user destination of each player,
+ * the legacy per-player topics of every event are kept behind dixit.broker.per-player-topics.
+ * With dixit.broker.event-format DELTA the growing round events are replaced by deltas.
+ * Publishes the events of a command as one batch on a dispatcher thread, so the HTTP thread returns
+ * as soon as the batch is queued. Every game always uses the same single-threaded dispatcher,
+ * so its events are sent in the order they were published.
+ * A batch that doesn't fit into the bounded queue of its dispatcher is dropped.
+ * Every payload is serialized once, on the single line the server-sent events need too, and sent as those bytes.
+ * The size of every payload sent is recorded by the class of its event and the kind of its topic,
+ * and every send is recorded as a StompSendEvent for the flight recorder.
+ * What is sent to the game-wide topics and the hand cards destinations is also offered to the server-sent event streams of the game.
+ * An event whose topic has neither a STOMP subscriber nor a server-sent event stream is skipped before it is serialized,
+ * the sent and skipped events are counted by the kind of their topic.
+ *
  * @author - wally55077@gmail.com
  */
+@Slf4j
 @Component
-@AllArgsConstructor
 public class DixitBroker extends AbstractDixitBroker {
 
+    private static final List<String> PRIVATE_FIELDS = List.of("playerId", "handCards");
+    private static final List<String> HAND_CARDS_FIELDS = List.of("gameId", "rounds", "playerId", "sequence", "roundState", "handCards");
     private final SimpMessagingTemplate simpMessagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter objectWriter;
+    private final boolean perPlayerTopics;
+    private final EventFormat eventFormat;
+    private final ThreadPoolExecutor[] dispatchers;
+    private final Counter droppedEvents;
+    private final Timer dispatchLatency;
+    private final Timer publishDuration;
+    private final MeterRegistry meterRegistry;
+    private final DixitEventStreams dixitEventStreams;
+    private final DixitSubscriptions dixitSubscriptions;
+    private final Map<TopicKind, Counter> sentEvents = new EnumMap<>(TopicKind.class);
+    private final Map<TopicKind, Counter> skippedEvents = new EnumMap<>(TopicKind.class);
+    private final Map<TopicKind, Map<Class<?>, DistributionSummary>> payloadSizes = new EnumMap<>(TopicKind.class);
+
+    public DixitBroker(SimpMessagingTemplate simpMessagingTemplate,
+                       DixitEventStreams dixitEventStreams,
+                       DixitSubscriptions dixitSubscriptions,
+                       ObjectMapper objectMapper,
+                       @Value("${dixit.broker.per-player-topics}") boolean perPlayerTopics,
+                       @Value("${dixit.broker.event-format}") EventFormat eventFormat,
+                       @Value("${dixit.broker.dispatch.threads}") int numberOfDispatchers,
+                       @Value("${dixit.broker.dispatch.queue-capacity}") int queueCapacity,
+                       MeterRegistry meterRegistry) {
+        this.simpMessagingTemplate = simpMessagingTemplate;
+        this.dixitEventStreams = dixitEventStreams;
+        this.dixitSubscriptions = dixitSubscriptions;
+        this.objectMapper = objectMapper;
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.perPlayerTopics = perPlayerTopics;
+        this.eventFormat = eventFormat;
+        this.dispatchers = new ThreadPoolExecutor[numberOfDispatchers];
+        for (int index = 0; index < numberOfDispatchers; index++) {
+            String threadName = "dixit-broker-" + index;
+            dispatchers[index] = new ThreadPoolExecutor(1, 1, 0, MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        Gauge.builder("dixit.broker.queue.depth", this, DixitBroker::getQueueDepth)
+                .description("Batches of events waiting to be dispatched")
+                .register(meterRegistry);
+        this.droppedEvents = meterRegistry.counter("dixit.broker.dropped");
+        this.dispatchLatency = Timer.builder("dixit.broker.dispatch.latency")
+                .description("Time from an event being published to being handed to the message broker")
+                .register(meterRegistry);
+        this.publishDuration = Timer.builder("dixit.broker.publish")
+                .description("Time the publishing thread spends grouping the events of a command and queueing them")
+                .register(meterRegistry);
+        for (TopicKind topicKind : TopicKind.values()) {
+            sentEvents.put(topicKind, meterRegistry.counter("dixit.broker.events", "topic", topicKind.name(), "result", "sent"));
+            skippedEvents.put(topicKind, meterRegistry.counter("dixit.broker.events", "topic", topicKind.name(), "result", "skipped"));
+            payloadSizes.put(topicKind, new ConcurrentHashMap<>());
+        }
+        this.meterRegistry = meterRegistry;
+    }
 
     @Override
     public void publish(Event event) {
-        String topic;
+        publish(List.of(event));
+    }
+
+    @Override
+    public void publish(Collection<? extends Event> events) {
+        long publishedAt = System.nanoTime();
+        events.stream()
+                .collect(groupingBy(Event::getGameId, LinkedHashMap::new, toList()))
+                .forEach((gameId, gameEvents) -> dispatch(gameId, generateTopicMessages(gameEvents), publishedAt));
+        publishDuration.record(System.nanoTime() - publishedAt, NANOSECONDS);
+    }
+
+    /**
+     * The use cases publish one event per player, and the public part of those events is the same for every player.
+     * It is sent once to the game-wide topic, only the hand cards are sent to each player's user destination.
+     * In the delta format a delta event is sent instead of the full events of its round state.
+     */
+    private List<TopicMessage> generateTopicMessages(List<? extends Event> events) {
+        var topicMessages = new ArrayList<TopicMessage>();
+        var sharedTopics = new HashSet<String>();
+        var roundStatesReplacedByDeltas = EventFormat.DELTA == eventFormat ? findRoundStatesOfDeltaEvents(events) : Set.<RoundState>of();
+        for (Event event : events) {
+            if (event instanceof DixitRoundDeltaEvent) {
+                if (EventFormat.DELTA == eventFormat) {
+                    topicMessages.add(new TopicMessage(generateSharedTopic(event), TopicKind.SHARED, event, () -> event));
+                }
+                continue;
+            }
+            String sharedTopic = generateSharedTopic(event);
+            if (!isReplacedByDelta(event, roundStatesReplacedByDeltas) && sharedTopics.add(sharedTopic)) {
+                topicMessages.add(new TopicMessage(sharedTopic, TopicKind.SHARED, event, () -> objectMapper.<ObjectNode>valueToTree(event).remove(PRIVATE_FIELDS)));
+            }
+            if (event instanceof DixitRoundStoryToldEvent) {
+                topicMessages.add(new TopicMessage(generateDixitHandCardsDestination(event.getGameId(), event.getPlayerId()), TopicKind.HAND_CARDS, event,
+                        () -> objectMapper.<ObjectNode>valueToTree(event).retain(HAND_CARDS_FIELDS)));
+            }
+            if (perPlayerTopics) {
+                topicMessages.add(new TopicMessage(generatePerPlayerTopic(event), TopicKind.PLAYER, event, () -> event));
+            }
+        }
+        return topicMessages;
+    }
+
+    private Set<RoundState> findRoundStatesOfDeltaEvents(List<? extends Event> events) {
+        var roundStates = EnumSet.noneOf(RoundState.class);
+        for (Event event : events) {
+            if (event instanceof DixitRoundDeltaEvent) {
+                roundStates.add(((DixitRoundDeltaEvent) event).getRoundState());
+            }
+        }
+        return roundStates;
+    }
+
+    private boolean isReplacedByDelta(Event event, Set<RoundState> roundStatesReplacedByDeltas) {
+        return event instanceof DixitRoundEvent && roundStatesReplacedByDeltas.contains(((DixitRoundEvent) event).getRoundState());
+    }
+
+    private void dispatch(String gameId, List<TopicMessage> topicMessages, long publishedAt) {
+        try {
+            dispatchers[floorMod(gameId.hashCode(), dispatchers.length)].execute(() -> send(topicMessages, publishedAt));
+        } catch (RejectedExecutionException e) {
+            droppedEvents.increment(topicMessages.size());
+            log.warn("The dispatch queue is full, {} events of the dixit: {} are dropped.", topicMessages.size(), gameId);
+        }
+    }
+
+    private void send(List<TopicMessage> topicMessages, long publishedAt) {
+        for (TopicMessage topicMessage : topicMessages) {
+            if (!isListenedTo(topicMessage)) {
+                skippedEvents.get(topicMessage.topicKind).increment();
+                continue;
+            }
+            sentEvents.get(topicMessage.topicKind).increment();
+            var sendEvent = new StompSendEvent();
+            sendEvent.begin();
+            try {
+                byte[] json = serialize(topicMessage.payload.get());
+                simpMessagingTemplate.send(topicMessage.topic, MessageBuilder.createMessage(json, jsonHeaders()));
+                sendEvent.payloadBytes = recordPayloadSize(topicMessage, json);
+                mayStream(topicMessage, json);
+            } catch (RuntimeException e) {
+                droppedEvents.increment();
+                log.error("Failed to send the event to {}.", topicMessage.topic, e);
+            }
+            dispatchLatency.record(System.nanoTime() - publishedAt, NANOSECONDS);
+            sendEvent.commit(topicMessage.event, topicMessage.topic);
+        }
+    }
+
+    private boolean isListenedTo(TopicMessage topicMessage) {
+        return dixitSubscriptions.hasSubscribers(topicMessage.topic)
+                || TopicKind.PLAYER != topicMessage.topicKind && dixitEventStreams.hasStreams(topicMessage.event.getGameId());
+    }
+
+    private byte[] serialize(Object payload) {
+        try {
+            return objectWriter.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Left mutable, so the messaging template sets the destination on them instead of copying the message.
+     */
+    private static MessageHeaders jsonHeaders() {
+        var headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        return headers.getMessageHeaders();
+    }
+
+    private void mayStream(TopicMessage topicMessage, byte[] json) {
+        Event event = topicMessage.event;
+        if (TopicKind.PLAYER != topicMessage.topicKind && dixitEventStreams.hasStreams(event.getGameId())) {
+            if (TopicKind.HAND_CARDS == topicMessage.topicKind) {
+                dixitEventStreams.send(event, event.getPlayerId(), generateDixitHandCardsSubscription(event.getGameId()), json);
+            } else {
+                dixitEventStreams.send(event, null, topicMessage.topic, json);
+            }
+        }
+    }
+
+    private int recordPayloadSize(TopicMessage topicMessage, byte[] json) {
+        int size = json.length;
+        payloadSizes.get(topicMessage.topicKind)
+                .computeIfAbsent(topicMessage.event.getClass(), eventClass -> DistributionSummary.builder("dixit.broker.payload.size")
+                        .baseUnit(BaseUnits.BYTES)
+                        .tag("event", eventClass.getSimpleName())
+                        .tag("topic", topicMessage.topicKind.name())
+                        .register(meterRegistry))
+                .record(size);
+        return size;
+    }
+
+    private String generateSharedTopic(Event event) {
+        String gameId = event.getGameId();
+        if (event instanceof DixitGameEvent) {
+            return generateDixitGameStateTopic(gameId, ((DixitGameEvent) event).getGameState());
+        } else if (event instanceof DixitRoundEvent) {
+            return generateDixitRoundStateTopic(gameId, ((DixitRoundEvent) event).getRoundState());
+        } else {
+            throw new RuntimeException("Do not forget to add the event's condition");
+        }
+    }
+
+    private String generatePerPlayerTopic(Event event) {
         String gameId = event.getGameId();
         String playerId = event.getPlayerId();
         if (event instanceof DixitGameEvent) {
             var dixitGameEvent = ((DixitGameEvent) event);
-            topic = generateDixitGameStateEventTopic(gameId, dixitGameEvent.getGameState(), playerId);
+            return generateDixitGameStateEventTopic(gameId, dixitGameEvent.getGameState(), playerId);
         } else if (event instanceof DixitRoundEvent) {
             var dixitRoundEvent = ((DixitRoundEvent) event);
-            topic = generateDixitRoundStateEventTopic(gameId, dixitRoundEvent.getRoundState(), playerId);
+            return generateDixitRoundStateEventTopic(gameId, dixitRoundEvent.getRoundState(), playerId);
         } else {
             throw new RuntimeException("Do not forget to add the event's condition");
         }
-        simpMessagingTemplate.convertAndSend(topic, event);
     }
 
+    public int getQueueDepth() {
+        int queueDepth = 0;
+        for (ThreadPoolExecutor dispatcher : dispatchers) {
+            queueDepth += dispatcher.getQueue().size();
+        }
+        return queueDepth;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor dispatcher : dispatchers) {
+            dispatcher.shutdown();
+        }
+        for (ThreadPoolExecutor dispatcher : dispatchers) {
+            dispatcher.awaitTermination(10, SECONDS);
+        }
+    }
+
+    public enum EventFormat {
+        FULL, DELTA
+    }
+
+    private enum TopicKind {
+        SHARED, HAND_CARDS, PLAYER
+    }
+
+    private static class TopicMessage {
+        private final String topic;
+        private final TopicKind topicKind;
+        private final Event event;
+        private final Supplier<Object> payload;
+
+        private TopicMessage(String topic, TopicKind topicKind, Event event, Supplier<Object> payload) {
+            this.topic = topic;
+            this.topicKind = topicKind;
+            this.event = event;
+            this.payload = payload;
+        }
+    }
 }
@@ -0,0 +1,207 @@
+package tw.wally.dixit.brokers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+import tw.wally.dixit.events.DixitEvent;
+import tw.wally.dixit.events.EventBus.Event;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Streams what the DixitBroker sends to the game-wide topics of a game and to the hand cards topic of a player
+ * as server-sent events named by their topic, for the clients whose proxies break WebSocket.
+ * The dispatcher of the broker only offers an event to the bounded buffer of every stream of its game,
+ * the writer threads drain the buffers into the emitters. A stream whose buffer is full is closed rather than waited for,
+ * its client reconnects and resyncs from the overview.
+ * <p>
+ * The streams only receive the events published on this instance.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Slf4j
+@Component
+public class DixitEventStreams {
+    private final int bufferCapacity;
+    private final Duration timeout;
+    private final Map<String, Set<DixitEventStream>> streamsOfGames = new ConcurrentHashMap<>();
+    private final AtomicInteger numberOfStreams = new AtomicInteger();
+    private final ExecutorService writers;
+    private final Counter droppedStreams;
+
+    public DixitEventStreams(@Value("${dixit.broker.sse.buffer-capacity}") int bufferCapacity,
+                             @Value("${dixit.broker.sse.timeout}") Duration timeout,
+                             @Value("${dixit.broker.sse.threads}") int numberOfWriters,
+                             MeterRegistry meterRegistry) {
+        this.bufferCapacity = bufferCapacity;
+        this.timeout = timeout;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(numberOfWriters, runnable -> {
+            Thread thread = new Thread(runnable, "dixit-sse-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("dixit.broker.sse.streams", numberOfStreams, AtomicInteger::get)
+                .description("Open server-sent event streams")
+                .register(meterRegistry);
+        this.droppedStreams = meterRegistry.counter("dixit.broker.sse.dropped");
+    }
+
+    public SseEmitter open(String gameId, String playerId) {
+        var stream = new DixitEventStream(gameId, playerId, new SseEmitter(timeout.toMillis()));
+        stream.emitter.onCompletion(stream::close);
+        stream.emitter.onTimeout(stream::close);
+        stream.emitter.onError(e -> stream.close());
+        streamsOfGames.compute(gameId, (id, streams) -> {
+            streams = streams == null ? ConcurrentHashMap.newKeySet() : streams;
+            if (streams.add(stream)) {
+                numberOfStreams.incrementAndGet();
+            }
+            return streams;
+        });
+        return stream.emitter;
+    }
+
+    public boolean hasStreams(String gameId) {
+        return streamsOfGames.containsKey(gameId);
+    }
+
+    /**
+     * Never blocks, the same event is offered to every stream.
+     *
+     * @param playerId the only player whose streams receive the payload, every stream of the game if it is null
+     * @param json     the payload serialized on a single line, every line of an event's data would have to be prefixed
+     */
+    public void send(Event event, String playerId, String topic, byte[] json) {
+        Set<DixitEventStream> streams = streamsOfGames.get(event.getGameId());
+        if (streams == null) {
+            return;
+        }
+        String sequence = event instanceof DixitEvent ? String.valueOf(((DixitEvent) event).getSequence()) : null;
+        var streamedEvent = new StreamedEvent(topic, sequence, new String(json, UTF_8));
+        for (DixitEventStream stream : streams) {
+            if (playerId == null || playerId.equals(stream.playerId)) {
+                stream.offer(streamedEvent);
+            }
+        }
+    }
+
+    private void unregister(DixitEventStream stream) {
+        streamsOfGames.computeIfPresent(stream.gameId, (gameId, streams) -> {
+            if (streams.remove(stream)) {
+                numberOfStreams.decrementAndGet();
+            }
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writers.shutdown();
+        writers.awaitTermination(10, SECONDS);
+    }
+
+    private class DixitEventStream {
+        private final String gameId;
+        private final String playerId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamedEvent> buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private DixitEventStream(String gameId, String playerId, SseEmitter emitter) {
+            this.gameId = gameId;
+            this.playerId = playerId;
+            this.emitter = emitter;
+        }
+
+        private void offer(StreamedEvent streamedEvent) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(streamedEvent)) {
+                drop();
+            } else if (draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+
+        /**
+         * Only one writer drains a stream at a time, a writer that finds the buffer refilled after it has stopped draining
+         * drains it again unless another writer already does.
+         */
+        private void drain() {
+            do {
+                StreamedEvent streamedEvent;
+                while (!closed.get() && (streamedEvent = buffer.poll()) != null) {
+                    try {
+                        emitter.send(streamedEvent.toSseEvent());
+                    } catch (IOException | IllegalStateException e) {
+                        // the client is gone or the emitter has completed, the container completes the request
+                        close();
+                        return;
+                    }
+                }
+                draining.set(false);
+            } while (!closed.get() && !buffer.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private boolean close() {
+            if (closed.compareAndSet(false, true)) {
+                unregister(this);
+                buffer.clear();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * The emitter is completed by a writer, the dispatcher must not wait for a write the client isn't reading.
+         */
+        private void drop() {
+            if (close()) {
+                droppedStreams.increment();
+                log.warn("The server-sent event stream of the player: {} of the dixit: {} can't keep up and is closed.", playerId, gameId);
+                writers.execute(emitter::complete);
+            }
+        }
+    }
+
+    /**
+     * An SseEventBuilder can only be built once, every stream builds its own from the serialized event.
+     */
+    @AllArgsConstructor
+    private static class StreamedEvent {
+        private final String topic;
+        private final String sequence;
+        private final String data;
+
+        private SseEventBuilder toSseEvent() {
+            SseEventBuilder sseEvent = SseEmitter.event().name(topic);
+            if (sequence != null) {
+                sseEvent.id(sequence);
+            }
+            return sseEvent.data(data);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package tw.wally.dixit.brokers;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import tw.wally.dixit.configs.WebSocketConfiguration.BrokerMode;
+
+import static tw.wally.dixit.configs.WebSocketConfiguration.STOMP_USER_DESTINATION_PREFIX;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the live STOMP subscriptions of every destination from the connect, subscribe, unsubscribe and disconnect
+ * events of the sessions, so the DixitBroker can skip the events nobody is subscribed to before serializing them.
+ * The events of a session are published before its frames reach the message broker,
+ * so a destination is known to be subscribed to no later than the message broker knows it.
+ * A user destination subscribed to is counted as the user destination of the session's player it is sent to.
+ * <p>
+ * In the relay mode the subscriptions of the other instances aren't seen here, every destination is then
+ * taken as subscribed to.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Slf4j
+@Component
+public class DixitSubscriptions {
+    private final boolean tracking;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Map<String, String>> destinationsOfSessions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> subscribersOfDestinations = new ConcurrentHashMap<>();
+    // the simple broker matches the destination patterns subscribed to, they are rare and matched one by one
+    private final Map<String, Integer> subscribersOfPatterns = new ConcurrentHashMap<>();
+    private final AtomicInteger numberOfSubscriptions = new AtomicInteger();
+
+    public DixitSubscriptions(@Value("${dixit.broker.mode}") BrokerMode brokerMode,
+                              @Value("${dixit.broker.skip-unsubscribed}") boolean skipUnsubscribed,
+                              MeterRegistry meterRegistry) {
+        this.tracking = skipUnsubscribed && BrokerMode.SIMPLE == brokerMode;
+        if (skipUnsubscribed && !tracking) {
+            log.info("The subscriptions are kept by the relayed broker, the events are sent whether they are subscribed to or not.");
+        }
+        Gauge.builder("dixit.broker.subscriptions", numberOfSubscriptions, AtomicInteger::get)
+                .description("Live STOMP subscriptions of this instance")
+                .register(meterRegistry);
+    }
+
+    public boolean hasSubscribers(String destination) {
+        if (!tracking || subscribersOfDestinations.containsKey(destination)) {
+            return true;
+        }
+        for (String pattern : subscribersOfPatterns.keySet()) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId != null) {
+            destinationsOfSessions.putIfAbsent(sessionId, new ConcurrentHashMap<>());
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        var headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = headers.getSessionId(), subscriptionId = headers.getSubscriptionId();
+        String destination = resolveUserDestination(headers.getDestination(), event.getUser());
+        if (sessionId == null || subscriptionId == null || destination == null) {
+            return;
+        }
+        String replaced = destinationsOfSessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (replaced != null) {
+            removeSubscriber(replaced);
+        }
+        addSubscriber(destination);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        var headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = headers.getSessionId(), subscriptionId = headers.getSubscriptionId();
+        Map<String, String> destinations = sessionId == null ? null : destinationsOfSessions.get(sessionId);
+        String destination = destinations == null || subscriptionId == null ? null : destinations.remove(subscriptionId);
+        if (destination != null) {
+            removeSubscriber(destination);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> destinations = destinationsOfSessions.remove(event.getSessionId());
+        if (destinations != null) {
+            destinations.values().forEach(this::removeSubscriber);
+        }
+    }
+
+    /**
+     * @return /user/{playerId}/queue/... of the /user/queue/... the player subscribes to, other destinations as they are
+     */
+    private static String resolveUserDestination(String destination, Principal user) {
+        if (destination == null || user == null || !destination.startsWith(STOMP_USER_DESTINATION_PREFIX + "/")) {
+            return destination;
+        }
+        return STOMP_USER_DESTINATION_PREFIX + "/" + user.getName() + destination.substring(STOMP_USER_DESTINATION_PREFIX.length());
+    }
+
+    private void addSubscriber(String destination) {
+        subscribersOf(destination).merge(destination, 1, Integer::sum);
+        numberOfSubscriptions.incrementAndGet();
+    }
+
+    private void removeSubscriber(String destination) {
+        subscribersOf(destination).computeIfPresent(destination, (key, subscribers) -> subscribers == 1 ? null : subscribers - 1);
+        numberOfSubscriptions.decrementAndGet();
+    }
+
+    private Map<String, Integer> subscribersOf(String destination) {
+        return pathMatcher.isPattern(destination) ? subscribersOfPatterns : subscribersOfDestinations;
+    }
+}
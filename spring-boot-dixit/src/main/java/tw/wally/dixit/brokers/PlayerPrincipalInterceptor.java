@@ -0,0 +1,55 @@
+package tw.wally.dixit.brokers;
+
+import lombok.AllArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import tw.wally.dixit.services.TokenService;
+
+import java.security.Principal;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * Authenticates the STOMP session by the token of the Authorization header of its CONNECT frame,
+ * the player of the token becomes the principal of the session, so only that player's sessions
+ * receive what is sent to the player's user destinations.
+ * A session connecting without a token stays anonymous and only receives the game-wide topics,
+ * a session connecting with an invalid token is refused.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Component
+@AllArgsConstructor
+public class PlayerPrincipalInterceptor implements ChannelInterceptor {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private final TokenService tokenService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        var headers = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (headers != null && StompCommand.CONNECT == headers.getCommand()) {
+            String authorization = headers.getFirstNativeHeader(AUTHORIZATION);
+            if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+                var token = tokenService.parseAndValidateToken(authorization.substring(BEARER_PREFIX.length()));
+                headers.setUser(new PlayerPrincipal(token.getPlayerId()));
+            }
+        }
+        return message;
+    }
+
+    @AllArgsConstructor
+    private static class PlayerPrincipal implements Principal {
+        private final String playerId;
+
+        @Override
+        public String getName() {
+            return playerId;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package tw.wally.dixit.configs;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import tw.wally.dixit.configs.web.ByteBufferHttpMessageConverter;
 import tw.wally.dixit.repositories.CardRepository;
+import tw.wally.dixit.repositories.DeckCardRepository;
 import tw.wally.dixit.repositories.ResourceCardRepository;
 
+import java.nio.file.Path;
+
 /**
  * @author - wally55077@gmail.com
  */
@@ -12,7 +17,15 @@ import tw.wally.dixit.repositories.ResourceCardRepository;
 public class CardConfiguration {
 
     @Bean
-    public CardRepository cardRepository() {
-        return new ResourceCardRepository();
+    public CardRepository cardRepository(@Value("${dixit.card.image-mode}") CardRepository.ImageMode imageMode,
+                                         @Value("${dixit.card.decks-directory}") String decksDirectory) {
+        var defaultDeck = new ResourceCardRepository(imageMode);
+        return decksDirectory.isBlank() ? defaultDeck : new DeckCardRepository(defaultDeck, Path.of(decksDirectory), imageMode);
+    }
+
+    // picked up by the HttpMessageConverters of spring boot, card images are served from ByteBuffers
+    @Bean
+    public ByteBufferHttpMessageConverter byteBufferHttpMessageConverter() {
+        return new ByteBufferHttpMessageConverter();
     }
 }
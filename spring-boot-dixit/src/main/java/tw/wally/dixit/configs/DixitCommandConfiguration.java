@@ -0,0 +1,33 @@
+package tw.wally.dixit.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import tw.wally.dixit.brokers.DixitBroker;
+import tw.wally.dixit.events.BufferedEventBus;
+import tw.wally.dixit.services.RetryingDixitCommandExecutor;
+import tw.wally.dixit.usecases.DixitCommandExecutor;
+import tw.wally.dixit.usecases.StripedDixitCommandExecutor;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@Configuration
+public class DixitCommandConfiguration {
+
+    @Bean
+    @Primary
+    public BufferedEventBus bufferedEventBus(DixitBroker dixitBroker) {
+        return new BufferedEventBus(dixitBroker);
+    }
+
+    @Bean
+    public DixitCommandExecutor dixitCommandExecutor(@Value("${dixit.command.stripes}") int numberOfStripes,
+                                                     @Value("${dixit.command.retry.max-attempts}") int maxAttempts,
+                                                     BufferedEventBus bufferedEventBus,
+                                                     MeterRegistry meterRegistry) {
+        return new RetryingDixitCommandExecutor(new StripedDixitCommandExecutor(numberOfStripes), bufferedEventBus, maxAttempts, meterRegistry);
+    }
+}
@@ -0,0 +1,51 @@
+package tw.wally.dixit.configs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+import tw.wally.dixit.configs.WebSocketConfiguration.BrokerMode;
+import tw.wally.dixit.services.LongPollingDixitOverviewCache;
+import tw.wally.dixit.services.SerializedDixitOverviewCache;
+
+import java.time.Duration;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@Slf4j
+@Configuration
+public class DixitOverviewCacheConfiguration {
+
+    @Bean
+    public SerializedDixitOverviewCache serializedDixitOverviewCache(ObjectMapper objectMapper,
+                                                                     @Value("${dixit.overview.cache.max-size}") DataSize maxSize,
+                                                                     @Value("${dixit.broker.mode}") BrokerMode brokerMode,
+                                                                     MeterRegistry meterRegistry) {
+        // the instances relaying their events to each other don't invalidate the overviews cached by one another
+        if (brokerMode == BrokerMode.RELAY && maxSize.toBytes() > 0) {
+            log.info("The overviews aren't cached, the moves made on the other instances of the relayed broker wouldn't invalidate them.");
+            maxSize = DataSize.ofBytes(0);
+        }
+        return new SerializedDixitOverviewCache(objectMapper, maxSize.toBytes(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public LongPollingDixitOverviewCache longPollingDixitOverviewCache(SerializedDixitOverviewCache serializedDixitOverviewCache,
+                                                                       @Value("${dixit.overview.long-poll.timeout}") Duration timeout,
+                                                                       @Value("${dixit.overview.long-poll.threads}") int numberOfThreads,
+                                                                       @Value("${dixit.broker.mode}") BrokerMode brokerMode,
+                                                                       MeterRegistry meterRegistry) {
+        // the moves made on the other instances of the relayed broker don't wake the clients waiting here
+        if (brokerMode == BrokerMode.RELAY && !timeout.isZero()) {
+            log.info("The overviews aren't long-polled, the moves made on the other instances of the relayed broker wouldn't wake their waiters.");
+            timeout = Duration.ZERO;
+        }
+        return new LongPollingDixitOverviewCache(serializedDixitOverviewCache, timeout, numberOfThreads, meterRegistry);
+    }
+}
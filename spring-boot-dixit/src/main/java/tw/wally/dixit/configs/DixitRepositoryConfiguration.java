@@ -0,0 +1,49 @@
+package tw.wally.dixit.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import tw.wally.dixit.repositories.DixitDataMapper;
+import tw.wally.dixit.repositories.EventSourcedDixitRepository;
+import tw.wally.dixit.repositories.MongoDixitDAO;
+import tw.wally.dixit.repositories.MongoDixitEventDAO;
+import tw.wally.dixit.repositories.WriteBehindDixitRepository;
+
+import java.time.Duration;
+
+/**
+ * The MongoDixitRepository is used unless dixit.repository.mode selects one of the repositories below.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Configuration
+public class DixitRepositoryConfiguration {
+    private static final String MODE = "dixit.repository.mode";
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = MODE, havingValue = "write-behind")
+    public WriteBehindDixitRepository writeBehindDixitRepository(MongoDixitDAO mongoDixitDAO,
+                                                                 MongoTemplate mongoTemplate,
+                                                                 DixitDataMapper dixitDataMapper,
+                                                                 @Value("${dixit.repository.write-behind.flush-interval}") Duration flushInterval,
+                                                                 @Value("${dixit.repository.write-behind.idle-timeout}") Duration idleTimeout,
+                                                                 MeterRegistry meterRegistry) {
+        return new WriteBehindDixitRepository(mongoDixitDAO, mongoTemplate, dixitDataMapper, flushInterval, idleTimeout, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = MODE, havingValue = "event-sourced")
+    public EventSourcedDixitRepository eventSourcedDixitRepository(MongoDixitEventDAO mongoDixitEventDAO,
+                                                                   MongoTemplate mongoTemplate,
+                                                                   DixitDataMapper dixitDataMapper,
+                                                                   @Value("${dixit.repository.event-sourced.snapshot-interval}") int snapshotInterval,
+                                                                   @Value("${dixit.repository.event-sourced.verification-rate}") double verificationRate) {
+        return new EventSourcedDixitRepository(mongoDixitEventDAO, mongoTemplate, dixitDataMapper, snapshotInterval, verificationRate);
+    }
+}
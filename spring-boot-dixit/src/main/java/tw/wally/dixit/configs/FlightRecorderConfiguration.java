@@ -0,0 +1,24 @@
+package tw.wally.dixit.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import tw.wally.dixit.jfr.DixitFlightRecorder;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@Configuration
+public class FlightRecorderConfiguration {
+    private final boolean enabled;
+
+    public FlightRecorderConfiguration(@Value("${dixit.jfr.enabled}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void registerEventTypes() {
+        DixitFlightRecorder.setEnabled(enabled);
+    }
+}
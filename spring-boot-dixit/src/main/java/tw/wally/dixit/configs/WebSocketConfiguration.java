@@ -1,12 +1,20 @@
 package tw.wally.dixit.configs;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import tw.wally.dixit.brokers.PlayerPrincipalInterceptor;
 
 /**
+ * In the relay mode subscriptions and events are relayed to an external STOMP broker,
+ * so an event published on any instance reaches the subscribers connected to every instance.
+ * The user destinations of a player reach only the sessions authenticated as the player,
+ * in the relay mode the sessions of the players are shared between the instances through the relayed broker too.
+ *
  * @author - wally55077@gmail.com
  */
 @Configuration
@@ -14,6 +22,28 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer {
 
     public static final String STOMP_ROOT_DESTINATION_PREFIX = "/topic";
+    public static final String STOMP_QUEUE_DESTINATION_PREFIX = "/queue";
+    public static final String STOMP_USER_DESTINATION_PREFIX = "/user";
+    private final PlayerPrincipalInterceptor playerPrincipalInterceptor;
+    private final BrokerMode brokerMode;
+    private final String relayHost;
+    private final int relayPort;
+    private final String relayLogin;
+    private final String relayPasscode;
+
+    public WebSocketConfiguration(PlayerPrincipalInterceptor playerPrincipalInterceptor,
+                                  @Value("${dixit.broker.mode}") BrokerMode brokerMode,
+                                  @Value("${dixit.broker.relay.host}") String relayHost,
+                                  @Value("${dixit.broker.relay.port}") int relayPort,
+                                  @Value("${dixit.broker.relay.login}") String relayLogin,
+                                  @Value("${dixit.broker.relay.passcode}") String relayPasscode) {
+        this.playerPrincipalInterceptor = playerPrincipalInterceptor;
+        this.brokerMode = brokerMode;
+        this.relayHost = relayHost;
+        this.relayPort = relayPort;
+        this.relayLogin = relayLogin;
+        this.relayPasscode = relayPasscode;
+    }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -23,7 +53,29 @@ public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.setApplicationDestinationPrefixes("/app")
-                .enableSimpleBroker(STOMP_ROOT_DESTINATION_PREFIX);
+        registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix(STOMP_USER_DESTINATION_PREFIX);
+        if (BrokerMode.RELAY == brokerMode) {
+            registry.enableStompBrokerRelay(STOMP_ROOT_DESTINATION_PREFIX, STOMP_QUEUE_DESTINATION_PREFIX)
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setUserDestinationBroadcast(STOMP_ROOT_DESTINATION_PREFIX + "/unresolved-user-destination")
+                    .setUserRegistryBroadcast(STOMP_ROOT_DESTINATION_PREFIX + "/simp-user-registry");
+        } else {
+            registry.enableSimpleBroker(STOMP_ROOT_DESTINATION_PREFIX, STOMP_QUEUE_DESTINATION_PREFIX);
+        }
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(playerPrincipalInterceptor);
+    }
+
+    public enum BrokerMode {
+        SIMPLE, RELAY
     }
 }
@@ -0,0 +1,49 @@
+package tw.wally.dixit.configs.web;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+/**
+ * Writes a {@link ByteBuffer} body, e.g. a card image in the memory-mapped pack, straight to the response
+ * through a channel, instead of copying the whole buffer into a byte array first.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class ByteBufferHttpMessageConverter extends AbstractHttpMessageConverter<ByteBuffer> {
+
+    public ByteBufferHttpMessageConverter() {
+        super(MediaType.APPLICATION_OCTET_STREAM, MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ByteBuffer.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected ByteBuffer readInternal(Class<? extends ByteBuffer> clazz, HttpInputMessage inputMessage) throws IOException {
+        return ByteBuffer.wrap(StreamUtils.copyToByteArray(inputMessage.getBody()));
+    }
+
+    @Override
+    protected Long getContentLength(ByteBuffer byteBuffer, MediaType contentType) {
+        return (long) byteBuffer.remaining();
+    }
+
+    @Override
+    protected void writeInternal(ByteBuffer byteBuffer, HttpOutputMessage outputMessage) throws IOException {
+        var channel = Channels.newChannel(outputMessage.getBody());
+        // the buffer may be shared, only a duplicate's position is moved
+        var body = byteBuffer.duplicate();
+        while (body.hasRemaining()) {
+            channel.write(body);
+        }
+    }
+}
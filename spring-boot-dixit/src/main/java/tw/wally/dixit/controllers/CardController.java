@@ -0,0 +1,55 @@
+package tw.wally.dixit.controllers;
+
+import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tw.wally.dixit.exceptions.NotFoundException;
+import tw.wally.dixit.model.CardImage;
+import tw.wally.dixit.repositories.CardRepository;
+
+import java.nio.ByteBuffer;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static org.springframework.http.HttpHeaders.CACHE_CONTROL;
+import static org.springframework.http.MediaType.IMAGE_JPEG;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@CrossOrigin
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/dixit/cards")
+public class CardController {
+    // card ids are positional, adding or renaming an image shifts them, so only the URL carrying the card's hash is cached for good
+    private static final String VERSIONED_CARD_IMAGE_CACHE_CONTROL = CacheControl.maxAge(365, DAYS).cachePublic().getHeaderValue() + ", immutable";
+    private static final String CARD_IMAGE_CACHE_CONTROL = CacheControl.noCache().getHeaderValue();
+    private static final String ORIGINAL_WIDTH = "" + Integer.MAX_VALUE;
+    private final CardRepository cardRepository;
+
+    /**
+     * @param width the width of the client's slot, the smallest resolution at least that wide is served, the original by default
+     * @param hash  the hash of the card the client has been given, the image is then cached as immutable,
+     *              without it or with a stale one the client revalidates the image by its ETag
+     */
+    @GetMapping("/{cardId}/image")
+    public ResponseEntity<ByteBuffer> getCardImage(@PathVariable int cardId,
+                                                   @RequestParam(required = false, defaultValue = ORIGINAL_WIDTH) int width,
+                                                   @RequestParam(required = false) String hash) {
+        CardImage image = cardRepository.findImageById(cardId, width)
+                .orElseThrow(() -> new NotFoundException(format("Card: %d not found", cardId)));
+        return ResponseEntity.ok()
+                .contentType(IMAGE_JPEG)
+                .header(CACHE_CONTROL, isCurrentHash(cardId, hash) ? VERSIONED_CARD_IMAGE_CACHE_CONTROL : CARD_IMAGE_CACHE_CONTROL)
+                .eTag(image.getHash())
+                .body(image.getBytes());
+    }
+
+    private boolean isCurrentHash(int cardId, String hash) {
+        return hash != null && cardRepository.findCardById(cardId)
+                .map(card -> hash.equals(card.getHash()))
+                .orElse(false);
+    }
+}
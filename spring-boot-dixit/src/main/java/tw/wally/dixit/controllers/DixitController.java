@@ -1,14 +1,24 @@
 package tw.wally.dixit.controllers;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import tw.wally.dixit.model.*;
+import tw.wally.dixit.services.LongPollingDixitOverviewCache;
+import tw.wally.dixit.services.SerializedDixitOverviewCache;
+import tw.wally.dixit.services.SerializedDixitOverviewCache.SerializedDixitOverview;
 import tw.wally.dixit.services.TokenService;
 import tw.wally.dixit.usecases.*;
 import tw.wally.dixit.views.*;
 
 import java.util.Collection;
+import java.util.List;
 
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static tw.wally.dixit.utils.StreamUtils.mapToList;
 
 /**
@@ -19,12 +29,16 @@ import static tw.wally.dixit.utils.StreamUtils.mapToList;
 @AllArgsConstructor
 @RequestMapping("/api/dixit")
 public class DixitController {
+    // clients may keep an overview but have to revalidate it, it changes on every move of its game
+    private static final CacheControl DIXIT_OVERVIEW_CACHE_CONTROL = CacheControl.noCache();
     private final TokenService tokenService;
     private final CreateDixitUseCase createDixitUseCase;
     private final TellStoryUseCase tellStoryUseCase;
     private final PlayCardUseCase playCardUseCase;
     private final GuessStoryUseCase guessStoryUseCase;
     private final GetDixitOverviewUseCase getDixitOverviewUseCase;
+    private final SerializedDixitOverviewCache serializedDixitOverviewCache;
+    private final LongPollingDixitOverviewCache longPollingDixitOverviewCache;
 
     @PostMapping("/{dixitId}")
     public void createDixit(@PathVariable String dixitId,
@@ -66,19 +80,76 @@ public class DixitController {
         guessStoryUseCase.execute(request);
     }
 
+    /**
+     * The ETag of an overview is the version of its game, a client that still has the overview of the game's version
+     * is answered with 304, neither is the game loaded as long as its overviews are cached.
+     */
     @GetMapping("/{dixitId}/players/{playerId}/overview")
-    public DixitOverview getDixitOverview(@PathVariable String dixitId,
-                                          @PathVariable String playerId) {
+    public ResponseEntity<byte[]> getDixitOverview(@PathVariable String dixitId,
+                                                   @PathVariable String playerId,
+                                                   @RequestHeader(name = IF_NONE_MATCH, required = false) List<String> ifNoneMatch) {
+        var overview = serializedDixitOverviewCache.getOverview(dixitId, playerId, () -> presentDixitOverview(dixitId, playerId));
+        String eTag = eTag(overview.getVersion());
+        if (ifNoneMatch != null && matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        return ok(overview);
+    }
+
+    /**
+     * Responds as soon as a move takes the game past the version the client knows, with the overview of the new version,
+     * or with 304 when the game hasn't moved until the long-poll timeout, no request thread is held in the meantime.
+     * With the RELAY broker it responds at once, the moves made on the other instances wouldn't wake it up.
+     */
+    @GetMapping(value = "/{dixitId}/players/{playerId}/overview", params = "after")
+    public DeferredResult<ResponseEntity<byte[]>> awaitDixitOverview(@PathVariable String dixitId,
+                                                                     @PathVariable String playerId,
+                                                                     @RequestParam long after) {
+        return longPollingDixitOverviewCache.awaitOverview(dixitId, playerId, after,
+                () -> presentDixitOverview(dixitId, playerId), DixitController::ok, () -> notModified(eTag(after)));
+    }
+
+    public DixitOverview presentDixitOverview(String dixitId, String playerId) {
         var presenter = new DixitOverviewPresenter();
         getDixitOverviewUseCase.execute(new AbstractDixitUseCase.Request(dixitId, playerId), presenter);
         return presenter.present();
     }
+
+    private static ResponseEntity<byte[]> ok(SerializedDixitOverview overview) {
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_JSON)
+                .cacheControl(DIXIT_OVERVIEW_CACHE_CONTROL)
+                .eTag(eTag(overview.getVersion()))
+                .body(overview.getJson());
+    }
+
+    private static ResponseEntity<byte[]> notModified(String eTag) {
+        return ResponseEntity.status(NOT_MODIFIED)
+                .cacheControl(DIXIT_OVERVIEW_CACHE_CONTROL)
+                .eTag(eTag)
+                .build();
+    }
+
+    private static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String eTag) {
+        return ifNoneMatch.stream()
+                .map(String::trim)
+                .anyMatch(tag -> "*".equals(tag) || eTag.equals(tag) || ("W/" + eTag).equals(tag));
+    }
 }
 
 class DixitOverviewPresenter implements GetDixitOverviewUseCase.Presenter {
 
     private final DixitOverview.DixitOverviewBuilder dixitOverviewBuilder = DixitOverview.builder();
 
+    @Override
+    public void showSequence(long sequence) {
+        dixitOverviewBuilder.sequence(sequence);
+    }
+
     @Override
     public void showGameState(GameState gameState) {
         dixitOverviewBuilder.gameState(gameState);
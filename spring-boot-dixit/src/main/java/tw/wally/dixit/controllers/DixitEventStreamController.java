@@ -0,0 +1,42 @@
+package tw.wally.dixit.controllers;
+
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tw.wally.dixit.brokers.DixitEventStreams;
+import tw.wally.dixit.exceptions.InvalidTokenException;
+import tw.wally.dixit.services.TokenService;
+
+import static java.lang.String.format;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@CrossOrigin
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/dixit")
+public class DixitEventStreamController {
+    private final DixitEventStreams dixitEventStreams;
+    private final TokenService tokenService;
+
+    /**
+     * Streams the events of the game-wide topics, each named by its topic and identified by its sequence,
+     * a client that sees a gap in the sequences resyncs from the overview.
+     * The player's hand cards are streamed too, named by their user destination, only with the player's token,
+     * given as a parameter as an EventSource can't send headers.
+     */
+    @GetMapping(value = "/{dixitId}/players/{playerId}/events", produces = TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDixitEvents(@PathVariable String dixitId,
+                                        @PathVariable String playerId,
+                                        @RequestParam(required = false) String token) {
+        if (token == null) {
+            return dixitEventStreams.open(dixitId, null);
+        }
+        if (!playerId.equals(tokenService.parseAndValidateToken(token).getPlayerId())) {
+            throw new InvalidTokenException(format("The token isn't the player: %s's", playerId));
+        }
+        return dixitEventStreams.open(dixitId, playerId);
+    }
+}
@@ -0,0 +1,29 @@
+package tw.wally.dixit.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+
+import java.util.List;
+
+/**
+ * The event types are only registered when they are enabled, an unregistered event is never recorded
+ * and costs no more than its allocation, so they can be left in place in production.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class DixitFlightRecorder {
+    public static final List<Class<? extends Event>> EVENT_TYPES = List.of(UseCaseEvent.class, RepositoryEvent.class, StompSendEvent.class);
+
+    private DixitFlightRecorder() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        for (Class<? extends Event> eventType : EVENT_TYPES) {
+            if (enabled) {
+                FlightRecorder.register(eventType);
+            } else {
+                FlightRecorder.unregister(eventType);
+            }
+        }
+    }
+}
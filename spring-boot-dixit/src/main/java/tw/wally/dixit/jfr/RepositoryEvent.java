@@ -0,0 +1,69 @@
+package tw.wally.dixit.jfr;
+
+import jdk.jfr.*;
+import tw.wally.dixit.model.Dixit;
+
+import java.util.function.IntSupplier;
+
+/**
+ * A game loaded from or saved to Mongo.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Name("tw.wally.dixit.Repository")
+@Label("Repository")
+@Category("Dixit")
+@StackTrace(false)
+@Registered(false)
+public class RepositoryEvent extends Event {
+    public static final String LOAD = "load", SAVE = "save";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Round")
+    public int round;
+
+    @Label("Players")
+    public int players;
+
+    @Label("Version")
+    @Description("The version the game is loaded at or saved from")
+    public long version;
+
+    @Label("Partial")
+    @Description("Whether only the changes since the game was loaded are written")
+    public boolean partial;
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("Document Bytes")
+    @Description("The size as BSON of the document loaded, of the document replaced or of the changes written")
+    @DataAmount
+    public int documentBytes;
+
+    /**
+     * @param dixit         the game loaded or the game being saved, null if it isn't found
+     * @param documentBytes encodes what is loaded or written to measure it, only called when the event is committed
+     */
+    public void commit(String operation, String gameId, Dixit dixit, boolean partial, IntSupplier documentBytes) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.gameId = gameId;
+            this.partial = partial;
+            this.found = dixit != null;
+            if (dixit != null) {
+                this.round = dixit.getNumberOfRounds();
+                this.players = dixit.getPlayers().size();
+                this.version = dixit.getVersion() == null ? -1 : dixit.getVersion();
+                this.documentBytes = documentBytes.getAsInt();
+            }
+            commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package tw.wally.dixit.jfr;
+
+import jdk.jfr.*;
+import tw.wally.dixit.events.EventBus;
+
+/**
+ * An event of a game converted and handed to the message broker, sent on a dispatch thread of the DixitBroker.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Name("tw.wally.dixit.StompSend")
+@Label("STOMP Send")
+@Category("Dixit")
+@StackTrace(false)
+@Registered(false)
+public class StompSendEvent extends Event {
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Round")
+    public int round;
+
+    @Label("Event")
+    public String event;
+
+    @Label("Topic")
+    public String topic;
+
+    @Label("Payload Bytes")
+    @DataAmount
+    public int payloadBytes;
+
+    public void commit(EventBus.Event dixitEvent, String topic) {
+        end();
+        if (shouldCommit()) {
+            this.gameId = dixitEvent.getGameId();
+            this.round = dixitEvent.getRounds();
+            this.event = dixitEvent.getClass().getSimpleName();
+            this.topic = topic;
+            commit();
+        }
+    }
+}
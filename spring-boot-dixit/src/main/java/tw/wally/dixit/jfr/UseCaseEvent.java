@@ -0,0 +1,80 @@
+package tw.wally.dixit.jfr;
+
+import jdk.jfr.*;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.usecases.AbstractDixitUseCase;
+import tw.wally.dixit.usecases.CreateDixitUseCase;
+import tw.wally.dixit.usecases.GuessStoryUseCase;
+import tw.wally.dixit.usecases.PlayCardUseCase;
+import tw.wally.dixit.usecases.TellStoryUseCase;
+
+/**
+ * A use case's execute, its duration includes waiting for the game's lock and the retries of conflicting saves.
+ * The players are those of the game the use case has last loaded or saved.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Name("tw.wally.dixit.UseCase")
+@Label("Use Case")
+@Category("Dixit")
+@StackTrace(false)
+@Registered(false)
+public class UseCaseEvent extends Event {
+
+    @Label("Use Case")
+    public String useCase;
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Round")
+    public int round;
+
+    @Label("Player Id")
+    public String playerId;
+
+    @Label("Players")
+    @Description("The number of players of the game the use case has loaded or saved")
+    public int players;
+
+    @Label("Outcome")
+    public String outcome;
+
+    public void describe(Dixit dixit) {
+        players = dixit.getPlayers().size();
+    }
+
+    public void commit(String useCase, Object request, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.useCase = useCase;
+            this.outcome = outcome;
+            describe(request);
+            commit();
+        }
+    }
+
+    private void describe(Object request) {
+        if (request instanceof CreateDixitUseCase.Request) {
+            var createDixitRequest = (CreateDixitUseCase.Request) request;
+            gameId = createDixitRequest.gameId;
+            playerId = createDixitRequest.hostId;
+        } else if (request instanceof AbstractDixitUseCase.Request) {
+            var dixitRequest = (AbstractDixitUseCase.Request) request;
+            gameId = dixitRequest.gameId;
+            playerId = dixitRequest.playerId;
+            round = round(dixitRequest);
+        }
+    }
+
+    private static int round(AbstractDixitUseCase.Request request) {
+        if (request instanceof TellStoryUseCase.Request) {
+            return ((TellStoryUseCase.Request) request).round;
+        } else if (request instanceof PlayCardUseCase.Request) {
+            return ((PlayCardUseCase.Request) request).round;
+        } else if (request instanceof GuessStoryUseCase.Request) {
+            return ((GuessStoryUseCase.Request) request).round;
+        }
+        return 0;
+    }
+}
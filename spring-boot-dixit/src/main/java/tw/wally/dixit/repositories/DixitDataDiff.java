@@ -0,0 +1,97 @@
+package tw.wally.dixit.repositories;
+
+import org.springframework.data.mongodb.core.query.Update;
+import tw.wally.dixit.repositories.entities.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static tw.wally.dixit.utils.StreamUtils.mapToList;
+
+/**
+ * Turns what changed between the loaded and the current {@link DixitData} into targeted Mongo updates,
+ * e.g. a guess only pushes one {@link GuessData} into round.guesses.
+ * Play cards, guesses and hand cards are rebuilt into arrays in their stored order when loaded,
+ * and the round presents its play cards in the order they were played, so their order is kept:
+ * elements are only pushed after the loaded ones, any other change replaces the whole array.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class DixitDataDiff {
+    public static final String VERSION = "version";
+
+    private DixitDataDiff() {
+    }
+
+    public static Update diff(DixitData loaded, DixitData current) {
+        Update update = new Update();
+        setIfChanged(update, "gameState", loaded.getGameState(), current.getGameState());
+        setIfChanged(update, "numberOfRounds", loaded.getNumberOfRounds(), current.getNumberOfRounds());
+        setIfChanged(update, "winnerIds", asList(loaded.getWinnerIds()), asList(current.getWinnerIds()));
+        setIfChanged(update, "deckCardId", asList(loaded.getDeckCardId()), asList(current.getDeckCardId()));
+        diffPlayers(update, loaded.getPlayers(), current.getPlayers());
+        if (loaded.getNumberOfRounds() == current.getNumberOfRounds()) {
+            diffRound(update, loaded.getRound(), current.getRound());
+        } else {
+            update.set("round", current.getRound());
+        }
+        return update.inc(VERSION, 1);
+    }
+
+    private static void diffPlayers(Update update, List<PlayerData> loadedPlayers, List<PlayerData> currentPlayers) {
+        if (loadedPlayers.size() != currentPlayers.size()) {
+            update.set("players", currentPlayers);
+            return;
+        }
+        for (int index = 0; index < currentPlayers.size(); index++) {
+            PlayerData loadedPlayer = loadedPlayers.get(index), currentPlayer = currentPlayers.get(index);
+            String path = format("players.%d.", index);
+            if (!loadedPlayer.getId().equals(currentPlayer.getId())) {
+                update.set(format("players.%d", index), currentPlayer);
+                continue;
+            }
+            setIfChanged(update, path + "color", loadedPlayer.getColor(), currentPlayer.getColor());
+            setIfChanged(update, path + "score", loadedPlayer.getScore(), currentPlayer.getScore());
+            if (!Objects.equals(asList(loadedPlayer.getHandCardIds()), asList(currentPlayer.getHandCardIds()))) {
+                update.set(path + "handCardIds", currentPlayer.getHandCardIds());
+            }
+        }
+    }
+
+    private static void diffRound(Update update, RoundData loadedRound, RoundData currentRound) {
+        setIfChanged(update, "round.roundState", loadedRound.getRoundState(), currentRound.getRoundState());
+        if (loadedRound.getStory() == null && currentRound.getStory() != null) {
+            update.set("round.story", currentRound.getStory());
+        }
+        pushOrSet(update, "round.playCards", loadedRound.getPlayCards(), currentRound.getPlayCards(), PlayCardData::getCardId);
+        pushOrSet(update, "round.guesses", loadedRound.getGuesses(), currentRound.getGuesses(), GuessData::getGuesserId);
+    }
+
+    /**
+     * Pushes the elements that were appended since loaded, or replaces the whole array if the loaded elements
+     * aren't its beginning anymore, in the same order.
+     */
+    private static <T, K> void pushOrSet(Update update, String path, Collection<T> loaded, Collection<T> current, Function<T, K> key) {
+        var loadedKeys = mapToList(loaded, key);
+        var currentKeys = mapToList(current, key);
+        if (currentKeys.size() < loadedKeys.size() || !currentKeys.subList(0, loadedKeys.size()).equals(loadedKeys)) {
+            update.set(path, current);
+            return;
+        }
+        var addedElements = new ArrayList<>(current).subList(loadedKeys.size(), currentKeys.size());
+        if (!addedElements.isEmpty()) {
+            update.push(path).each(addedElements.toArray());
+        }
+    }
+
+    private static void setIfChanged(Update update, String path, Object loaded, Object current) {
+        if (!Objects.equals(loaded, current)) {
+            update.set(path, current);
+        }
+    }
+
+    private static <T> List<T> asList(Collection<T> collection) {
+        return collection == null ? null : new ArrayList<>(collection);
+    }
+}
@@ -0,0 +1,29 @@
+package tw.wally.dixit.repositories;
+
+import lombok.AllArgsConstructor;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.repositories.entities.DixitData;
+
+import javax.inject.Named;
+
+/**
+ * Maps between a game and its document for the repositories, a bean of its own so the MetricsAdvice times the mapping.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Named
+@AllArgsConstructor
+public class DixitDataMapper {
+    private final CardRepository cardRepository;
+
+    public DixitData toData(Dixit dixit) {
+        return DixitData.toData(dixit);
+    }
+
+    /**
+     * @throws tw.wally.dixit.exceptions.NotFoundException if a card's deck is no longer there
+     */
+    public Dixit toEntity(DixitData dixitData) {
+        return dixitData.toEntity(cardRepository);
+    }
+}
@@ -0,0 +1,213 @@
+package tw.wally.dixit.repositories;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import tw.wally.dixit.exceptions.ConflictException;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.repositories.entities.*;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.lang.String.format;
+import static java.util.Collections.synchronizedMap;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static tw.wally.dixit.utils.StreamUtils.filterToList;
+import static tw.wally.dixit.utils.StreamUtils.mapToList;
+import static tw.wally.dixit.utils.StreamUtils.mapToSet;
+
+/**
+ * Persists every game as an append-only log of {@link DixitEventData} instead of replacing its document.
+ * A move within a round is appended as one compact event. A snapshot is appended when a round or the game state
+ * changes, since dealing cards is random and can't be replayed, and after every snapshot-interval events.
+ * A game is rebuilt by replaying the events after its latest snapshot through the domain.
+ * The version of a game is the sequence of its latest entry, the unique (gameId, sequence) index rejects
+ * a second command appending on top of the same version. Every save appends exactly one entry, a change that isn't
+ * a single move is kept by a snapshot, so the version moves by one per command as with the other repositories.
+ * <p>
+ * A move is derived from what changed without replaying it, replaying it through the domain and comparing
+ * the outcome with what is saved costs two full mappings, so only verification-rate of the moves are verified.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Slf4j
+public class EventSourcedDixitRepository implements DixitRepository {
+    private static final int MAX_NUMBER_OF_HEADS = 10_000;
+    private final MongoDixitEventDAO mongoDixitEventDAO;
+    private final MongoTemplate mongoTemplate;
+    private final DixitDataMapper dixitDataMapper;
+    private final int snapshotInterval;
+    private final double verificationRate;
+    // the latest state of each game this instance has loaded or saved, the base to derive the next events from
+    private final Map<String, Head> heads = synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Head> eldest) {
+            return size() > MAX_NUMBER_OF_HEADS;
+        }
+    });
+
+    public EventSourcedDixitRepository(MongoDixitEventDAO mongoDixitEventDAO,
+                                       MongoTemplate mongoTemplate,
+                                       DixitDataMapper dixitDataMapper,
+                                       int snapshotInterval,
+                                       double verificationRate) {
+        this.mongoDixitEventDAO = mongoDixitEventDAO;
+        this.mongoTemplate = mongoTemplate;
+        this.dixitDataMapper = dixitDataMapper;
+        this.snapshotInterval = snapshotInterval;
+        this.verificationRate = verificationRate;
+        mongoTemplate.indexOps(DixitEventData.class)
+                .ensureIndex(new Index().on("gameId", Sort.Direction.ASC).on("sequence", Sort.Direction.ASC).unique());
+    }
+
+    @Override
+    public Optional<Dixit> findDixitById(String id) {
+        return mongoDixitEventDAO.findFirstByGameIdAndTypeOrderBySequenceDesc(id, DixitEventData.Type.SNAPSHOT)
+                .map(snapshot -> replay(snapshot, mongoDixitEventDAO.findByGameIdAndSequenceGreaterThanOrderBySequenceAsc(id, snapshot.getSequence())));
+    }
+
+    private Dixit replay(DixitEventData snapshot, List<DixitEventData> events) {
+        long sequence = events.isEmpty() ? snapshot.getSequence() : events.get(events.size() - 1).getSequence();
+        Dixit dixit = dixitDataMapper.toEntity(snapshot.getSnapshot().withVersion(sequence));
+        events.forEach(event -> event.applyTo(dixit));
+        heads.put(dixit.getId(), new Head(dixitDataMapper.toData(dixit), events.size()));
+        return dixit;
+    }
+
+    @Override
+    public Dixit save(Dixit dixit) {
+        DixitData current = dixitDataMapper.toData(dixit);
+        Head head = heads.get(dixit.getId());
+        var event = head != null && Objects.equals(head.state.getVersion(), dixit.getVersion()) ?
+                deriveEvent(head, current) : Optional.<DixitEventData>empty();
+        long sequence = dixit.getNextVersion();
+        if (event.isPresent() && head.numberOfEventsSinceSnapshot + 1 < snapshotInterval) {
+            append(dixit.getId(), List.of(event.get()));
+            heads.put(dixit.getId(), new Head(current.withVersion(sequence), head.numberOfEventsSinceSnapshot + 1));
+        } else {
+            DixitData snapshot = current.withVersion(sequence);
+            append(dixit.getId(), List.of(DixitEventData.snapshot(snapshot, sequence)));
+            heads.put(dixit.getId(), new Head(snapshot, 0));
+        }
+        return dixitDataMapper.toEntity(current.withVersion(sequence));
+    }
+
+    /**
+     * @return the single move that turns the head into the current state, or empty if the change isn't one move
+     */
+    private Optional<DixitEventData> deriveEvent(Head head, DixitData current) {
+        DixitData loaded = head.state;
+        if (loaded.getGameState() != current.getGameState() || loaded.getNumberOfRounds() != current.getNumberOfRounds()) {
+            return Optional.empty();
+        }
+        String gameId = current.getId();
+        long sequence = loaded.getVersion();
+        var events = new ArrayList<DixitEventData>();
+        RoundData loadedRound = loaded.getRound(), currentRound = current.getRound();
+        if (loadedRound.getStory() == null && currentRound.getStory() != null) {
+            StoryData story = currentRound.getStory();
+            events.add(DixitEventData.storyTold(gameId, ++sequence, currentRound.getStorytellerId(), story.getPhrase(), story.getPlayCard().getCardId()));
+        }
+        var playedCardIds = mapToSet(loadedRound.getPlayCards(), PlayCardData::getCardId);
+        for (PlayCardData playCard : filterToList(currentRound.getPlayCards(), playCard -> !playedCardIds.contains(playCard.getCardId()))) {
+            events.add(DixitEventData.cardPlayed(gameId, ++sequence, playCard.getPlayerId(), playCard.getCardId()));
+        }
+        var guesserIds = mapToSet(loadedRound.getGuesses(), GuessData::getGuesserId);
+        for (GuessData guess : filterToList(currentRound.getGuesses(), guess -> !guesserIds.contains(guess.getGuesserId()))) {
+            events.add(DixitEventData.storyGuessed(gameId, ++sequence, guess.getGuesserId(), guess.getPlayCard().getCardId()));
+        }
+        if (events.size() != 1) {
+            return Optional.empty();
+        }
+        if (ThreadLocalRandom.current().nextDouble() < verificationRate && !replaysTo(loaded, events, current)) {
+            log.warn("The move: {} of the dixit: {} doesn't replay to the state saved, a snapshot is appended instead.", events.get(0).getType(), gameId);
+            return Optional.empty();
+        }
+        return Optional.of(events.get(0));
+    }
+
+    /**
+     * Whether replaying the events reproduces the current state exactly.
+     */
+    private boolean replaysTo(DixitData loaded, List<DixitEventData> events, DixitData current) {
+        try {
+            Dixit dixit = dixitDataMapper.toEntity(loaded);
+            events.forEach(event -> event.applyTo(dixit));
+            return toComparableDocument(dixitDataMapper.toData(dixit)).equals(toComparableDocument(current));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Only the content of play cards, guesses and hand cards is compared, not their order.
+     */
+    private Document toComparableDocument(DixitData dixit) {
+        RoundData round = dixit.getRound();
+        DixitData comparableDixit = DixitData.builder()
+                .id(dixit.getId())
+                .victoryCondition(dixit.getVictoryCondition())
+                .seed(dixit.getSeed())
+                .deckCardId(dixit.getDeckCardId())
+                .players(mapToList(dixit.getPlayers(), player -> new PlayerData(player.getId(), player.getName(), player.getColor(),
+                        sorted(player.getHandCardIds(), naturalOrder()), player.getScore())))
+                .gameState(dixit.getGameState())
+                .numberOfRounds(dixit.getNumberOfRounds())
+                .round(RoundData.builder()
+                        .roundState(round.getRoundState())
+                        .storytellerId(round.getStorytellerId())
+                        .guesserIds(round.getGuesserIds())
+                        .story(round.getStory())
+                        .playCards(sorted(round.getPlayCards(), comparing(PlayCardData::getCardId)))
+                        .guesses(sorted(round.getGuesses(), comparing(GuessData::getGuesserId)))
+                        .build())
+                .winnerIds(dixit.getWinnerIds())
+                .build();
+        var document = new Document();
+        mongoTemplate.getConverter().write(comparableDixit, document);
+        return document;
+    }
+
+    private static <T> List<T> sorted(Collection<T> collection, Comparator<T> comparator) {
+        var list = new ArrayList<>(collection);
+        list.sort(comparator);
+        return list;
+    }
+
+    private void append(String gameId, List<DixitEventData> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            mongoDixitEventDAO.insert(events);
+        } catch (DuplicateKeyException e) {
+            heads.remove(gameId);
+            throw new ConflictException(format("Dixit: %s has been modified by another command", gameId), e);
+        }
+    }
+
+    public List<DixitEventData> findEventsByGameId(String gameId) {
+        return mongoDixitEventDAO.findByGameIdOrderBySequenceAsc(gameId);
+    }
+
+    @Override
+    public void deleteAll() {
+        heads.clear();
+        mongoDixitEventDAO.deleteAll();
+    }
+
+    private static class Head {
+        private final DixitData state;
+        private final int numberOfEventsSinceSnapshot;
+
+        private Head(DixitData state, int numberOfEventsSinceSnapshot) {
+            this.state = state;
+            this.numberOfEventsSinceSnapshot = numberOfEventsSinceSnapshot;
+        }
+    }
+}
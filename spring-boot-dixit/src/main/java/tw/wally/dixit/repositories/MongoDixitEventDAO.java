@@ -0,0 +1,22 @@
+package tw.wally.dixit.repositories;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import tw.wally.dixit.repositories.entities.DixitEventData;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@Repository
+public interface MongoDixitEventDAO extends MongoRepository<DixitEventData, String> {
+    String DIXIT_EVENT = "DixitEvent";
+
+    Optional<DixitEventData> findFirstByGameIdAndTypeOrderBySequenceDesc(String gameId, DixitEventData.Type type);
+
+    List<DixitEventData> findByGameIdAndSequenceGreaterThanOrderBySequenceAsc(String gameId, long sequence);
+
+    List<DixitEventData> findByGameIdOrderBySequenceAsc(String gameId);
+}
@@ -1,37 +1,148 @@
 package tw.wally.dixit.repositories;
 
-import lombok.AllArgsConstructor;
+import com.mongodb.MongoClientSettings;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.query.Update;
+import tw.wally.dixit.exceptions.ConflictException;
+import tw.wally.dixit.jfr.RepositoryEvent;
 import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.model.GameState;
+import tw.wally.dixit.repositories.entities.DixitData;
 
 import javax.inject.Named;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
-import static tw.wally.dixit.repositories.entities.DixitData.toData;
+import static java.lang.String.format;
+import static java.util.Collections.synchronizedMap;
+import static org.springframework.data.mongodb.core.FindAndReplaceOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static tw.wally.dixit.repositories.DixitDataDiff.VERSION;
 
 /**
  * @author - wally55077@gmail.com
  */
 @Named
-@AllArgsConstructor
 public class MongoDixitRepository implements DixitRepository {
-
+    private static final int MAX_NUMBER_OF_LOADED_SNAPSHOTS = 10_000;
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
     private final MongoDixitDAO mongoDixitDAO;
-    private final CardRepository cardRepository;
+    private final MongoTemplate mongoTemplate;
+    private final DixitDataMapper dixitDataMapper;
+    // the last snapshot of each game this instance has loaded or saved, the base of the next partial update
+    private final Map<String, DixitData> loadedSnapshots = synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DixitData> eldest) {
+            return size() > MAX_NUMBER_OF_LOADED_SNAPSHOTS;
+        }
+    });
+
+    public MongoDixitRepository(MongoDixitDAO mongoDixitDAO, MongoTemplate mongoTemplate, DixitDataMapper dixitDataMapper) {
+        this.mongoDixitDAO = mongoDixitDAO;
+        this.mongoTemplate = mongoTemplate;
+        this.dixitDataMapper = dixitDataMapper;
+    }
 
     @Override
     public Optional<Dixit> findDixitById(String id) {
-        return mongoDixitDAO.findById(id)
-                .map(dixit -> dixit.toEntity(cardRepository.findAllAsMap()));
+        var event = new RepositoryEvent();
+        event.begin();
+        var dixitData = mongoDixitDAO.findById(id).map(this::remember);
+        var dixit = dixitData.map(dixitDataMapper::toEntity);
+        event.commit(RepositoryEvent.LOAD, id, dixit.orElse(null), false, () -> dixitData.map(data -> sizeOf(data)).orElse(0));
+        return dixit;
     }
 
+    /**
+     * Only writes what changed since the dixit was loaded when its snapshot is still known,
+     * otherwise replaces the whole document.
+     * Either way the game is only written if it is still at the version the given dixit was loaded from.
+     *
+     * @throws ConflictException if another command has saved the game in the meantime
+     */
     @Override
     public Dixit save(Dixit dixit) {
-        return mongoDixitDAO.save(toData(dixit))
-                .toEntity(cardRepository.findAllAsMap());
+        var event = new RepositoryEvent();
+        event.begin();
+        DixitData current = dixitDataMapper.toData(dixit);
+        DixitData loaded = loadedSnapshots.get(dixit.getId());
+        boolean partial = loaded != null && dixit.getVersion() != null && Objects.equals(loaded.getVersion(), dixit.getVersion());
+        Update update = partial ? DixitDataDiff.diff(loaded, current) : null;
+        try {
+            DixitData saved = partial ? update(current, update) : replace(current);
+            if (GameState.OVER == saved.getGameState()) {
+                loadedSnapshots.remove(saved.getId());
+            } else {
+                remember(saved);
+            }
+            return dixitDataMapper.toEntity(saved);
+        } finally {
+            event.commit(RepositoryEvent.SAVE, dixit.getId(), dixit, partial, () -> partial ? sizeOf(update) : sizeOf(current));
+        }
+    }
+
+    private DixitData update(DixitData current, Update update) {
+        String id = current.getId();
+        Long version = current.getVersion();
+        var result = mongoTemplate.updateFirst(query(where("_id").is(id).and(VERSION).is(version)), update, DixitData.class);
+        if (result.getMatchedCount() == 0) {
+            loadedSnapshots.remove(id);
+            throw new ConflictException(format("Dixit: %s has been modified by another command", id));
+        }
+        return current.withVersion(version + 1);
+    }
+
+    /**
+     * A dixit without a version is either new or has been saved before versions were introduced,
+     * it is written with the first version only over a document that has no version yet, or inserted if there is none.
+     */
+    private DixitData replace(DixitData current) {
+        try {
+            if (current.getVersion() == null) {
+                DixitData versioned = current.withVersion(0L);
+                mongoTemplate.findAndReplace(query(where("_id").is(current.getId()).and(VERSION).exists(false)), versioned, options().upsert());
+                return versioned;
+            }
+            return mongoDixitDAO.save(current);
+        } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+            throw new ConflictException(format("Dixit: %s has been modified by another command", current.getId()), e);
+        }
+    }
+
+    private int sizeOf(DixitData dixitData) {
+        var document = new Document();
+        mongoTemplate.getConverter().write(dixitData, document);
+        return sizeOf(document);
+    }
+
+    // the changes are mapped to the document's fields and types as the template does before writing them
+    private int sizeOf(Update update) {
+        var converter = mongoTemplate.getConverter();
+        var entity = converter.getMappingContext().getPersistentEntity(DixitData.class);
+        return sizeOf(new UpdateMapper(converter).getMappedObject(update.getUpdateObject(), entity));
+    }
+
+    private static int sizeOf(Document document) {
+        return new RawBsonDocument(document, DOCUMENT_CODEC).getByteBuffer().remaining();
+    }
+
+    private DixitData remember(DixitData dixitData) {
+        loadedSnapshots.put(dixitData.getId(), dixitData);
+        return dixitData;
     }
 
     @Override
     public void deleteAll() {
+        loadedSnapshots.clear();
         mongoDixitDAO.deleteAll();
     }
 }
@@ -0,0 +1,258 @@
+package tw.wally.dixit.repositories;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import tw.wally.dixit.exceptions.ConflictException;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.model.GameState;
+import tw.wally.dixit.repositories.entities.DixitData;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.String.format;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.springframework.data.mongodb.core.FindAndReplaceOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static tw.wally.dixit.repositories.DixitDataDiff.VERSION;
+
+/**
+ * Keeps live games resident on this node and persists them asynchronously.
+ * Every save only replaces the game's pending snapshot, so several moves between two flushes
+ * are coalesced into a single Mongo write. Finished games are flushed at once and then evicted,
+ * the games nobody has loaded or saved for idle-timeout are evicted once they are flushed.
+ * <p>
+ * A game whose flush conflicts with another instance loses the moves saved since its last flush,
+ * its stale copies are then refused with a ConflictException until the game has been reloaded,
+ * so the commands holding them are retried on the game from Mongo instead of silently overwriting it.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Slf4j
+public class WriteBehindDixitRepository implements DixitRepository {
+    private final MongoDixitDAO mongoDixitDAO;
+    private final MongoTemplate mongoTemplate;
+    private final DixitDataMapper dixitDataMapper;
+    private final Map<String, Dixit> residentDixits = new ConcurrentHashMap<>();
+    private final Map<String, DixitData> pendingSnapshots = new ConcurrentHashMap<>();
+    // this node owns its resident games, so it keeps the versions they have in Mongo
+    private final Map<String, Long> flushedVersions = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastUsedNanos = new ConcurrentHashMap<>();
+    private final Set<String> conflictedDixitIds = ConcurrentHashMap.newKeySet();
+    private final long idleTimeoutNanos;
+    private final Counter conflicts;
+    private final Counter lostMoves;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dixit-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WriteBehindDixitRepository(MongoDixitDAO mongoDixitDAO, MongoTemplate mongoTemplate, DixitDataMapper dixitDataMapper,
+                                      Duration flushInterval, Duration idleTimeout, MeterRegistry meterRegistry) {
+        this.mongoDixitDAO = mongoDixitDAO;
+        this.mongoTemplate = mongoTemplate;
+        this.dixitDataMapper = dixitDataMapper;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.conflicts = meterRegistry.counter("dixit.repository.write-behind.conflicts");
+        this.lostMoves = meterRegistry.counter("dixit.repository.write-behind.lost-moves");
+        long flushIntervalMillis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushAndEvictIdleDixits, flushIntervalMillis, flushIntervalMillis, MILLISECONDS);
+    }
+
+    @Override
+    public Optional<Dixit> findDixitById(String id) {
+        Dixit residentDixit = residentDixits.get(id);
+        if (residentDixit != null) {
+            touch(id);
+            return Optional.of(residentDixit);
+        }
+        return mongoDixitDAO.findById(id)
+                .map(this::rememberFlushedVersion)
+                .map(dixitDataMapper::toEntity)
+                .map(dixit -> {
+                    touch(id);
+                    conflictedDixitIds.remove(id);
+                    return residentDixits.merge(id, dixit, (loaded, ignored) -> loaded);
+                });
+    }
+
+    private void touch(String id) {
+        lastUsedNanos.put(id, System.nanoTime());
+    }
+
+    private DixitData rememberFlushedVersion(DixitData dixitData) {
+        if (dixitData.getVersion() != null) {
+            flushedVersions.put(dixitData.getId(), dixitData.getVersion());
+        }
+        return dixitData;
+    }
+
+    /**
+     * Every save moves the resident dixit to its next version, as the other repositories do,
+     * even though several saves are flushed as one write.
+     *
+     * @throws ConflictException if the game has conflicted with another instance and hasn't been reloaded since
+     */
+    @Override
+    public Dixit save(Dixit dixit) {
+        String id = dixit.getId();
+        if (conflictedDixitIds.contains(id)) {
+            throw new ConflictException(format("Dixit: %s has been modified by another instance", id));
+        }
+        dixit.setVersion(dixit.getNextVersion());
+        // the snapshot is queued in the same step as the game is made resident, so an idle eviction can't come in between
+        residentDixits.compute(id, (key, resident) -> {
+            pendingSnapshots.put(id, dixitDataMapper.toData(dixit));
+            return dixit;
+        });
+        touch(id);
+        if (GameState.OVER == dixit.getGameState()) {
+            flush();
+            evict(id, dixit);
+        }
+        return dixit;
+    }
+
+    private void evict(String id, Dixit dixit) {
+        if (residentDixits.remove(id, dixit)) {
+            flushedVersions.remove(id);
+            lastUsedNanos.remove(id);
+        }
+    }
+
+    /**
+     * Rolls the resident game back to its latest save, the snapshot still pending or else the game flushed to Mongo,
+     * under the flush lock so the flusher can't be between taking the pending snapshot and writing it.
+     */
+    @Override
+    public void discard(String id) {
+        flushLock.lock();
+        try {
+            DixitData pendingSnapshot = pendingSnapshots.get(id);
+            if (pendingSnapshot == null) {
+                ofNullable(residentDixits.get(id)).ifPresent(dixit -> evict(id, dixit));
+            } else {
+                residentDixits.put(id, dixitDataMapper.toEntity(pendingSnapshot));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        flushLock.lock();
+        try {
+            pendingSnapshots.clear();
+            flushedVersions.clear();
+            lastUsedNanos.clear();
+            conflictedDixitIds.clear();
+            residentDixits.clear();
+            mongoDixitDAO.deleteAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every pending snapshot, one write per game however many moves it has coalesced.
+     * A snapshot that fails to be written is re-queued unless a newer one has been saved in the meantime.
+     * A snapshot that conflicts means another instance has written the game, so the game is evicted
+     * and the next command reloads it.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            for (String id : pendingSnapshots.keySet()) {
+                ofNullable(pendingSnapshots.remove(id)).ifPresent(this::flush);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes, then evicts the games idle for idle-timeout that have nothing left to flush,
+     * a game saved in the meantime has a pending snapshot again and stays resident.
+     */
+    public void flushAndEvictIdleDixits() {
+        flushLock.lock();
+        try {
+            flush();
+            long now = System.nanoTime();
+            for (String id : residentDixits.keySet()) {
+                Long lastUsed = lastUsedNanos.get(id);
+                if (lastUsed == null || now - lastUsed >= idleTimeoutNanos) {
+                    residentDixits.computeIfPresent(id, (key, dixit) -> {
+                        if (pendingSnapshots.containsKey(key)) {
+                            return dixit;
+                        }
+                        flushedVersions.remove(key);
+                        lastUsedNanos.remove(key);
+                        return null;
+                    });
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flush(DixitData snapshot) {
+        String id = snapshot.getId();
+        try {
+            replace(snapshot);
+            flushedVersions.put(id, snapshot.getVersion());
+        } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+            Long flushedVersion = flushedVersions.remove(id);
+            long lost = snapshot.getVersion() - (flushedVersion == null ? -1 : flushedVersion);
+            conflicts.increment();
+            lostMoves.increment(lost);
+            log.error("Dixit: {} has been modified by another instance, its resident state and {} moves since its last flush are dropped.", id, lost, e);
+            conflictedDixitIds.add(id);
+            residentDixits.remove(id);
+            lastUsedNanos.remove(id);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush dixit: {}, it will be retried on the next flush.", id, e);
+            pendingSnapshots.putIfAbsent(id, snapshot);
+        }
+    }
+
+    /**
+     * Writes the snapshot with its own version only if the game is still at the version this node has flushed,
+     * a game that has never been flushed is inserted, which fails if another instance has created it.
+     */
+    private void replace(DixitData snapshot) {
+        String id = snapshot.getId();
+        Long flushedVersion = flushedVersions.get(id);
+        if (flushedVersion == null) {
+            mongoTemplate.findAndReplace(query(where("_id").is(id).and(VERSION).exists(false)), snapshot, options().upsert());
+        } else if (mongoTemplate.findAndReplace(query(where("_id").is(id).and(VERSION).is(flushedVersion)), snapshot, options()) == null) {
+            throw new OptimisticLockingFailureException(format("Dixit: %s isn't at the flushed version: %d", id, flushedVersion));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, SECONDS);
+        flush();
+        log.info("Dixit write-behind repository flushed before shutdown.");
+    }
+}
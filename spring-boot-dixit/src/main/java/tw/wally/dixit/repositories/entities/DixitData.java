@@ -3,15 +3,22 @@ package tw.wally.dixit.repositories.entities;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.With;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
+import tw.wally.dixit.exceptions.NotFoundException;
 import tw.wally.dixit.model.Card;
+import tw.wally.dixit.model.Deck;
 import tw.wally.dixit.model.Dixit;
 import tw.wally.dixit.model.GameState;
 import tw.wally.dixit.model.Player;
+import tw.wally.dixit.repositories.CardRepository;
 
 import java.util.*;
+import java.util.function.Function;
 
+import static java.lang.String.format;
 import static tw.wally.dixit.repositories.MongoDixitDAO.DIXIT;
 import static tw.wally.dixit.utils.StreamUtils.mapToList;
 import static tw.wally.dixit.utils.StreamUtils.toMap;
@@ -24,41 +31,56 @@ import static tw.wally.dixit.utils.StreamUtils.toMap;
 @Document(DIXIT)
 @AllArgsConstructor
 public class DixitData {
-
     @Id
     private final String id;
     private final VictoryConditionData victoryCondition;
+    private final long seed;
     private final Collection<Integer> deckCardId;
     private final List<PlayerData> players;
     private final RoundData round;
     private GameState gameState;
     private int numberOfRounds;
     private Collection<String> winnerIds;
+    @With
+    @Version
+    private Long version;
 
     public static DixitData toData(Dixit dixit) {
         return DixitData.builder()
                 .id(dixit.getId())
                 .victoryCondition(VictoryConditionData.toData(dixit.getVictoryCondition()))
-                .deckCardId(mapToList(dixit.getDeck(), Card::getId))
+                .seed(dixit.getSeed())
+                .deckCardId(mapToList(dixit.getDeck().getCards(), Card::getId))
                 .players(mapToList(dixit.getPlayers(), PlayerData::toData))
                 .gameState(dixit.getGameState())
                 .numberOfRounds(dixit.getNumberOfRounds())
                 .round(RoundData.toData(dixit.getRound()))
                 .winnerIds(mapToList(dixit.getWinners(), Player::getId))
+                .version(dixit.getVersion())
                 .build();
     }
 
-    public Dixit toEntity(Map<Integer, Card> cards) {
+    /**
+     * @throws NotFoundException if a card's deck is no longer there
+     */
+    public Dixit toEntity(CardRepository cardRepository) {
+        return toEntity(cardId -> cardRepository.findCardById(cardId)
+                .orElseThrow(() -> new NotFoundException(format("Card: %d of dixit: %s not found", cardId, id))));
+    }
+
+    public Dixit toEntity(Function<Integer, Card> cards) {
         var players = toMap(this.players, PlayerData::getId, player -> player.toEntity(cards));
         return Dixit.builder()
                 .id(id)
                 .gameState(gameState)
                 .victoryCondition(victoryCondition.toEntity())
-                .deck(new LinkedList<>(mapToList(deckCardId, cards::get)))
+                .seed(seed)
+                .deck(new Deck(mapToList(deckCardId, cards)))
                 .players(new ArrayList<>(players.values()))
                 .numberOfRounds(numberOfRounds)
                 .round(round.toEntity(players, cards))
                 .winners(mapToList(winnerIds, players::get))
+                .version(version)
                 .build();
     }
 }
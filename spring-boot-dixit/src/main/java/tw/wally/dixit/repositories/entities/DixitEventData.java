@@ -0,0 +1,91 @@
+package tw.wally.dixit.repositories.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import tw.wally.dixit.model.Dixit;
+
+import java.util.Date;
+
+import static tw.wally.dixit.repositories.MongoDixitEventDAO.DIXIT_EVENT;
+
+/**
+ * One entry of a game's append-only log, the sequence of its entries is unique per game.
+ * Moves within a round are logged compactly and replayed through the domain,
+ * a SNAPSHOT carries the whole game whenever something that can't be replayed has happened.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Getter
+@Builder
+@Document(DIXIT_EVENT)
+@AllArgsConstructor
+public class DixitEventData {
+
+    @Id
+    private final String id;
+    private final String gameId;
+    private final long sequence;
+    private final Type type;
+    private final String playerId;
+    private final Integer cardId;
+    private final String phrase;
+    private final DixitData snapshot;
+    private final Date occurredAt;
+
+    public static DixitEventData snapshot(DixitData dixit, long sequence) {
+        return builder()
+                .gameId(dixit.getId())
+                .sequence(sequence)
+                .type(Type.SNAPSHOT)
+                .snapshot(dixit)
+                .occurredAt(new Date())
+                .build();
+    }
+
+    public static DixitEventData storyTold(String gameId, long sequence, String storytellerId, String phrase, int cardId) {
+        return move(gameId, sequence, Type.STORY_TOLD, storytellerId, cardId)
+                .phrase(phrase)
+                .build();
+    }
+
+    public static DixitEventData cardPlayed(String gameId, long sequence, String guesserId, int cardId) {
+        return move(gameId, sequence, Type.CARD_PLAYED, guesserId, cardId).build();
+    }
+
+    public static DixitEventData storyGuessed(String gameId, long sequence, String guesserId, int cardId) {
+        return move(gameId, sequence, Type.STORY_GUESSED, guesserId, cardId).build();
+    }
+
+    private static DixitEventDataBuilder move(String gameId, long sequence, Type type, String playerId, int cardId) {
+        return builder()
+                .gameId(gameId)
+                .sequence(sequence)
+                .type(type)
+                .playerId(playerId)
+                .cardId(cardId)
+                .occurredAt(new Date());
+    }
+
+    public void applyTo(Dixit dixit) {
+        switch (type) {
+            case STORY_TOLD:
+                dixit.tellStory(phrase, playerId, cardId);
+                break;
+            case CARD_PLAYED:
+                dixit.playCard(playerId, cardId);
+                break;
+            case STORY_GUESSED:
+                dixit.guessStory(playerId, cardId);
+                break;
+            default:
+                throw new IllegalStateException("A snapshot can't be applied to a dixit, it replaces it");
+        }
+    }
+
+    public enum Type {
+        SNAPSHOT, STORY_TOLD, CARD_PLAYED, STORY_GUESSED
+    }
+}
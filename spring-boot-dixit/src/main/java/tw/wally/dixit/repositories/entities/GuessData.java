@@ -7,6 +7,7 @@ import tw.wally.dixit.model.Guess;
 import tw.wally.dixit.model.Player;
 
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * @author - wally55077@gmail.com
@@ -21,7 +22,7 @@ public class GuessData {
         return new GuessData(guess.getGuesserId(), PlayCardData.toData(guess.getPlayCard()));
     }
 
-    public Guess toEntity(Map<String, Player> players, Map<Integer, Card> cards) {
+    public Guess toEntity(Map<String, Player> players, Function<Integer, Card> cards) {
         return new Guess(players.get(guesserId), playCard.toEntity(players, cards));
     }
 }
@@ -7,6 +7,7 @@ import tw.wally.dixit.model.PlayCard;
 import tw.wally.dixit.model.Player;
 
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * @author - wally55077@gmail.com
@@ -21,7 +22,7 @@ public class PlayCardData {
         return new PlayCardData(playCard.getPlayerId(), playCard.getCardId());
     }
 
-    public PlayCard toEntity(Map<String, Player> players, Map<Integer, Card> cards) {
-        return new PlayCard(players.get(playerId), cards.get(cardId));
+    public PlayCard toEntity(Map<String, Player> players, Function<Integer, Card> cards) {
+        return new PlayCard(players.get(playerId), cards.apply(cardId));
     }
 }
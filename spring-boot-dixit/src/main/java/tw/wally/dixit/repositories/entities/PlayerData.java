@@ -7,7 +7,7 @@ import tw.wally.dixit.model.Color;
 import tw.wally.dixit.model.Player;
 
 import java.util.Collection;
-import java.util.Map;
+import java.util.function.Function;
 
 import static tw.wally.dixit.utils.StreamUtils.mapToList;
 
@@ -28,8 +28,8 @@ public class PlayerData {
         return new PlayerData(player.getId(), player.getName(), player.getColor(), handCardIds, player.getScore());
     }
 
-    public Player toEntity(Map<Integer, Card> cards) {
-        var handCards = mapToList(handCardIds, cards::get);
+    public Player toEntity(Function<Integer, Card> cards) {
+        var handCards = mapToList(handCardIds, cards);
         return new Player(id, name, color, handCards, score);
     }
 
@@ -10,6 +10,7 @@ import tw.wally.dixit.model.RoundState;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.Optional;
 
 import static java.util.Optional.ofNullable;
@@ -41,7 +42,7 @@ public class RoundData {
                 .build();
     }
 
-    public Round toEntity(Map<String, Player> players, Map<Integer, Card> cards) {
+    public Round toEntity(Map<String, Player> players, Function<Integer, Card> cards) {
         Player storyteller = players.get(storytellerId);
         return Round.builder()
                 .roundState(roundState)
@@ -49,7 +50,7 @@ public class RoundData {
                 .storyteller(storyteller)
                 .guessers(mapToList(guesserIds, players::get))
                 .story(mayHaveStory().map(story -> story.toEntity(players, cards)).orElse(null))
-                .playCards(toMap(playCards, PlayCardData::getCardId, playCard -> playCard.toEntity(players, cards)))
+                .playCards(mapToList(playCards, playCard -> playCard.toEntity(players, cards)))
                 .guesses(toMap(guesses, GuessData::getGuesserId, guess -> guess.toEntity(players, cards)))
                 .build();
     }
@@ -7,6 +7,7 @@ import tw.wally.dixit.model.Player;
 import tw.wally.dixit.model.Story;
 
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * @author - wally55077@gmail.com
@@ -21,7 +22,7 @@ public class StoryData {
         return new StoryData(story.getPhrase(), PlayCardData.toData(story.getPlayCard()));
     }
 
-    public Story toEntity(Map<String, Player> players, Map<Integer, Card> cards) {
+    public Story toEntity(Map<String, Player> players, Function<Integer, Card> cards) {
         return new Story(phrase, playCard.toEntity(players, cards));
     }
 }
@@ -0,0 +1,156 @@
+package tw.wally.dixit.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.context.request.async.DeferredResult;
+import tw.wally.dixit.services.SerializedDixitOverviewCache.SerializedDixitOverview;
+import tw.wally.dixit.usecases.DixitOverviewCache;
+import tw.wally.dixit.views.DixitOverview;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Parks the clients waiting for the overview of a game to move past the version they know as deferred results,
+ * so no request thread is held while they wait. A command that invalidates the overviews of its game
+ * wakes its waiters up, they are then presented the overview of the new version by the long-poll threads.
+ * A waiter stays registered until its result is set or expired, so a move made while it is being registered
+ * can't be missed.
+ * <p>
+ * Only the commands of this instance wake the waiters up, with a zero timeout nobody waits, the overview
+ * of a newer version or the timed out result is answered at once and the client polls again.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Slf4j
+public class LongPollingDixitOverviewCache implements DixitOverviewCache {
+    private final SerializedDixitOverviewCache serializedDixitOverviewCache;
+    private final Duration timeout;
+    private final Map<String, Set<Waiter<?>>> waitersOfGames = new ConcurrentHashMap<>();
+    private final AtomicInteger numberOfWaiters = new AtomicInteger();
+    private final ExecutorService longPollers;
+
+    public LongPollingDixitOverviewCache(SerializedDixitOverviewCache serializedDixitOverviewCache,
+                                         Duration timeout,
+                                         int numberOfThreads,
+                                         MeterRegistry meterRegistry) {
+        this.serializedDixitOverviewCache = serializedDixitOverviewCache;
+        this.timeout = timeout;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.longPollers = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+            Thread thread = new Thread(runnable, "dixit-long-poll-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("dixit.overview.long-poll.waiters", numberOfWaiters, AtomicInteger::get)
+                .description("Clients waiting for the overview of a game to move past the version they know")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void invalidate(String gameId, long version) {
+        serializedDixitOverviewCache.invalidate(gameId, version);
+        Set<Waiter<?>> waiters = waitersOfGames.get(gameId);
+        if (waiters != null) {
+            longPollers.execute(() -> waiters.forEach(this::wakeUp));
+        }
+    }
+
+    /**
+     * @param presenter presents the overview of the game to the player when it isn't cached, it loads the game
+     * @param respond   turns the overview of a version newer than after into the result
+     * @param timedOut  the result when the game hasn't moved past after until the timeout
+     */
+    public <T> DeferredResult<T> awaitOverview(String gameId, String playerId, long after,
+                                               Supplier<DixitOverview> presenter,
+                                               Function<SerializedDixitOverview, T> respond,
+                                               Supplier<T> timedOut) {
+        var result = new DeferredResult<T>(timeout.toMillis(), timedOut);
+        if (timeout.isZero()) {
+            var overview = serializedDixitOverviewCache.getOverview(gameId, playerId, presenter);
+            result.setResult(overview.getVersion() > after ? respond.apply(overview) : timedOut.get());
+            return result;
+        }
+        var waiter = new Waiter<>(gameId, playerId, after, presenter, respond, result);
+        result.onCompletion(() -> unregister(waiter));
+        register(waiter);
+        try {
+            mayComplete(waiter);
+        } catch (RuntimeException e) {
+            unregister(waiter);
+            throw e;
+        }
+        return result;
+    }
+
+    private void register(Waiter<?> waiter) {
+        waitersOfGames.compute(waiter.gameId, (gameId, waiters) -> {
+            waiters = waiters == null ? ConcurrentHashMap.newKeySet() : waiters;
+            if (waiters.add(waiter)) {
+                numberOfWaiters.incrementAndGet();
+            }
+            return waiters;
+        });
+    }
+
+    private void unregister(Waiter<?> waiter) {
+        waitersOfGames.computeIfPresent(waiter.gameId, (gameId, waiters) -> {
+            if (waiters.remove(waiter)) {
+                numberOfWaiters.decrementAndGet();
+            }
+            return waiters.isEmpty() ? null : waiters;
+        });
+    }
+
+    private void wakeUp(Waiter<?> waiter) {
+        try {
+            mayComplete(waiter);
+        } catch (RuntimeException e) {
+            log.warn("Failed to present the overview of the dixit: {} to a waiting player: {}.", waiter.gameId, waiter.playerId, e);
+            waiter.result.setErrorResult(e);
+        }
+    }
+
+    private void mayComplete(Waiter<?> waiter) {
+        if (waiter.result.isSetOrExpired()) {
+            return;
+        }
+        var overview = serializedDixitOverviewCache.getOverview(waiter.gameId, waiter.playerId, waiter.presenter);
+        if (overview.getVersion() > waiter.after) {
+            waiter.complete(overview);
+            unregister(waiter);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        longPollers.shutdown();
+        longPollers.awaitTermination(10, SECONDS);
+    }
+
+    @AllArgsConstructor
+    private static class Waiter<T> {
+        private final String gameId;
+        private final String playerId;
+        private final long after;
+        private final Supplier<DixitOverview> presenter;
+        private final Function<SerializedDixitOverview, T> respond;
+        private final DeferredResult<T> result;
+
+        private void complete(SerializedDixitOverview overview) {
+            result.setResult(respond.apply(overview));
+        }
+    }
+}
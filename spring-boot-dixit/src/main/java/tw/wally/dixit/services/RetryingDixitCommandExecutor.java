@@ -0,0 +1,72 @@
+package tw.wally.dixit.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.retry.support.RetryTemplate;
+import tw.wally.dixit.events.BufferedEventBus;
+import tw.wally.dixit.exceptions.ConflictException;
+import tw.wally.dixit.usecases.DixitCommandExecutor;
+
+/**
+ * Re-applies a command when its save conflicts with a command of another instance.
+ * Every attempt reloads the game and its events are only published once the attempt has been saved.
+ *
+ * @author - wally55077@gmail.com
+ */
+@Slf4j
+public class RetryingDixitCommandExecutor implements DixitCommandExecutor {
+    private static final long MIN_BACK_OFF_MILLIS = 5, MAX_BACK_OFF_MILLIS = 50;
+    private final DixitCommandExecutor dixitCommandExecutor;
+    private final BufferedEventBus bufferedEventBus;
+    private final RetryTemplate retryTemplate;
+    private final Counter conflicts;
+    private final Counter retries;
+    private final Counter giveUps;
+
+    public RetryingDixitCommandExecutor(DixitCommandExecutor dixitCommandExecutor,
+                                        BufferedEventBus bufferedEventBus,
+                                        int maxAttempts,
+                                        MeterRegistry meterRegistry) {
+        this.dixitCommandExecutor = dixitCommandExecutor;
+        this.bufferedEventBus = bufferedEventBus;
+        this.retryTemplate = RetryTemplate.builder()
+                .maxAttempts(maxAttempts)
+                .uniformRandomBackoff(MIN_BACK_OFF_MILLIS, MAX_BACK_OFF_MILLIS)
+                .retryOn(ConflictException.class)
+                .build();
+        this.conflicts = meterRegistry.counter("dixit.command.conflicts");
+        this.retries = meterRegistry.counter("dixit.command.retries");
+        this.giveUps = meterRegistry.counter("dixit.command.give-ups");
+    }
+
+    @Override
+    public void execute(String gameId, Runnable command) {
+        try {
+            retryTemplate.execute(context -> {
+                if (context.getRetryCount() > 0) {
+                    retries.increment();
+                }
+                dixitCommandExecutor.execute(gameId, () -> executeWithBufferedEvents(command));
+                return null;
+            });
+        } catch (ConflictException e) {
+            giveUps.increment();
+            log.warn("Gave up a command of the dixit: {} after repeated conflicts.", gameId);
+            throw e;
+        }
+    }
+
+    private void executeWithBufferedEvents(Runnable command) {
+        bufferedEventBus.buffer();
+        try {
+            command.run();
+            bufferedEventBus.flush();
+        } catch (ConflictException e) {
+            conflicts.increment();
+            throw e;
+        } finally {
+            bufferedEventBus.discard();
+        }
+    }
+}
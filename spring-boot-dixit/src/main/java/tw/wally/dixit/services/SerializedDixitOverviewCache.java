@@ -0,0 +1,140 @@
+package tw.wally.dixit.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import tw.wally.dixit.usecases.DixitOverviewCache;
+import tw.wally.dixit.views.DixitOverview;
+
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the overviews of the games most recently played or viewed serialized, per player, at the version of the game
+ * they were presented at, up to max-size bytes, the least recently used games are evicted first.
+ * A command replaces the overviews of its game by none at the version it has saved the game at,
+ * so an overview is served from here until the next move of its game without the game being loaded.
+ * <p>
+ * The moves made on another instance don't invalidate the overviews held here, so max-size is 0 by default
+ * and with the RELAY broker, it is only sized when the requests of a game are routed to the same instance.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class SerializedDixitOverviewCache implements DixitOverviewCache {
+    // a game is kept even without overviews to know its version, about what it takes in memory is counted for it
+    private static final long GAME_SIZE = 128;
+    private final ObjectMapper objectMapper;
+    private final long maxSize;
+    private final Map<String, Overviews> overviewsOfGames = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    // an overview presented while no game has been invalidated is still the latest one, even if its game had been evicted
+    private long invalidations;
+    private final Counter hits;
+    private final Counter misses;
+
+    public SerializedDixitOverviewCache(ObjectMapper objectMapper, long maxSize, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.maxSize = maxSize;
+        this.hits = meterRegistry.counter("dixit.overview.cache", "result", "hit");
+        this.misses = meterRegistry.counter("dixit.overview.cache", "result", "miss");
+        Gauge.builder("dixit.overview.cache.size", this, SerializedDixitOverviewCache::size)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void invalidate(String gameId, long version) {
+        invalidations++;
+        replace(gameId, version);
+        evictLeastRecentlyUsedGames();
+    }
+
+    /**
+     * @param presenter presents the overview of the game to the player when it isn't cached, it loads the game
+     */
+    public SerializedDixitOverview getOverview(String gameId, String playerId, Supplier<DixitOverview> presenter) {
+        long invalidationsBefore;
+        synchronized (this) {
+            Overviews overviews = overviewsOfGames.get(gameId);
+            SerializedDixitOverview overview = overviews == null ? null : overviews.overviewsOfPlayers.get(playerId);
+            if (overview != null) {
+                hits.increment();
+                return overview;
+            }
+            invalidationsBefore = invalidations;
+        }
+        misses.increment();
+        var dixitOverview = presenter.get();
+        var overview = new SerializedDixitOverview(dixitOverview.sequence, serialize(dixitOverview));
+        cache(gameId, playerId, overview, invalidationsBefore);
+        return overview;
+    }
+
+    /**
+     * The game may have moved since the overview was presented, the overview is only cached
+     * next to the overviews of the same version, or as the first one of its game if no game has been invalidated since.
+     */
+    private synchronized void cache(String gameId, String playerId, SerializedDixitOverview overview, long invalidationsBefore) {
+        Overviews overviews = overviewsOfGames.get(gameId);
+        if (overviews == null ? invalidations == invalidationsBefore : overviews.version < overview.version) {
+            overviews = replace(gameId, overview.version);
+        }
+        if (overviews != null && overviews.version == overview.version
+                && overviews.overviewsOfPlayers.putIfAbsent(playerId, overview) == null) {
+            overviews.size += overview.json.length;
+            size += overview.json.length;
+        }
+        evictLeastRecentlyUsedGames();
+    }
+
+    private Overviews replace(String gameId, long version) {
+        Overviews overviews = new Overviews(version);
+        Overviews replaced = overviewsOfGames.put(gameId, overviews);
+        size += overviews.size - (replaced == null ? 0 : replaced.size);
+        return overviews;
+    }
+
+    private void evictLeastRecentlyUsedGames() {
+        Iterator<Overviews> leastRecentlyUsed = overviewsOfGames.values().iterator();
+        while (size > maxSize && leastRecentlyUsed.hasNext()) {
+            size -= leastRecentlyUsed.next().size;
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    private byte[] serialize(DixitOverview dixitOverview) {
+        try {
+            return objectMapper.writeValueAsBytes(dixitOverview);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    private static class Overviews {
+        private final long version;
+        private final Map<String, SerializedDixitOverview> overviewsOfPlayers = new LinkedHashMap<>();
+        private long size = GAME_SIZE;
+
+        private Overviews(long version) {
+            this.version = version;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SerializedDixitOverview {
+        private final long version;
+        private final byte[] json;
+    }
+}
@@ -1,6 +1,7 @@
 package tw.wally.dixit.services;
 
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -19,6 +20,7 @@ public interface TokenService {
         tokenConsumer.accept(parseAndValidateToken(token));
     }
 
+    @Getter
     @AllArgsConstructor
     class Token {
         protected static final String KEY_PLAYER_ID = "playerId";
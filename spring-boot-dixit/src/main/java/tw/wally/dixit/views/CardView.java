@@ -12,12 +12,13 @@ import tw.wally.dixit.model.Card;
 public class CardView {
     public int id;
     public String image;
+    public String hash;
 
     public Card toEntity() {
-        return new Card(id, image);
+        return new Card(id, image, hash);
     }
 
     public static CardView toViewModel(Card card) {
-        return new CardView(card.getId(), card.getImage());
+        return new CardView(card.getId(), card.getImage(), card.getHash());
     }
 }
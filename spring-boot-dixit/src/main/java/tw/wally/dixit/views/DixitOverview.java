@@ -19,6 +19,9 @@ import java.util.LinkedList;
 @AllArgsConstructor
 public class DixitOverview {
 
+    // the sequence of the latest event of the game, a client applying delta events resyncs from here
+    public long sequence;
+
     @Builder.Default
     public GameState gameState = GameState.PREPARING;
 
@@ -21,11 +21,14 @@ import tw.wally.dixit.usecases.TellStoryUseCase;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Optional;
 
 import static java.util.Collections.singletonList;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.IntStream.range;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -75,6 +78,10 @@ public class AbstractDixitSpringBootTest extends AbstractSpringBootTest {
                 .thenReturn(new ArrayList<>(cards.values()));
         when(cardRepository.findAllAsMap())
                 .thenReturn(cards);
+        when(cardRepository.findAllByDecks(any()))
+                .thenReturn(new ArrayList<>(cards.values()));
+        when(cardRepository.findCardById(anyInt()))
+                .thenAnswer(invocation -> Optional.ofNullable(cards.get(invocation.<Integer>getArgument(0))));
         dixitRepository.deleteAll();
     }
 
@@ -0,0 +1,57 @@
+package tw.wally.dixit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.search.Search;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.model.Player;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@TestPropertySource(properties = "dixit.overview.cache.max-size=64MB")
+public class CachedDixitOverviewTest extends AbstractDixitSpringBootTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void GivenOverviewGot_WhenGetItAgainWithItsETag_ThenShouldRespondNotModifiedWithoutLoadingDixit() throws Exception {
+        Dixit dixit = createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+        Player storyteller = dixit.getCurrentStoryteller();
+        String eTag = getDixitOverviewETag(storyteller);
+        long loads = numberOfDixitLoads();
+
+        mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/overview", DIXIT_ID, storyteller.getId())
+                        .header(IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(ETAG, eTag));
+
+        getDixitOverviewETag(storyteller);
+        assertEquals(loads, numberOfDixitLoads());
+    }
+
+    private String getDixitOverviewETag(Player player) throws Exception {
+        return mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/overview", DIXIT_ID, player.getId()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(ETAG);
+    }
+
+    private long numberOfDixitLoads() {
+        return Search.in(meterRegistry).name("dixit.repository").tag("method", "findDixitById").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+}
@@ -0,0 +1,93 @@
+package tw.wally.dixit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tw.wally.dixit.model.Card;
+import tw.wally.dixit.model.CardImage;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.intThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.MediaType.IMAGE_JPEG;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class CardControllerTest extends AbstractDixitSpringBootTest {
+    private static final int CARD_ID = 1;
+    private static final String CARD_HASH = "cardHash";
+    private static final byte[] CARD_IMAGE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+
+    private static final int THUMBNAIL_WIDTH = 128;
+    private static final String THUMBNAIL_HASH = "thumbnailHash";
+    private static final byte[] THUMBNAIL_IMAGE = {(byte) 0xFF, (byte) 0xD8};
+
+    @BeforeEach
+    public void givenCardImage() {
+        when(cardRepository.findCardById(CARD_ID))
+                .thenReturn(Optional.of(new Card(CARD_ID, null, CARD_HASH)));
+        when(cardRepository.findImageById(eq(CARD_ID), anyInt()))
+                .thenReturn(Optional.of(new CardImage(564, CARD_HASH, toDirectBuffer(CARD_IMAGE))));
+        when(cardRepository.findImageById(eq(CARD_ID), intThat(width -> width <= THUMBNAIL_WIDTH)))
+                .thenReturn(Optional.of(new CardImage(THUMBNAIL_WIDTH, THUMBNAIL_HASH, toDirectBuffer(THUMBNAIL_IMAGE))));
+    }
+
+    @Test
+    public void WhenGetCardImage_ThenShouldRespondRawBytesWithETagToRevalidate() throws Exception {
+        mockMvc.perform(get(API_PREFIX + "/cards/{cardId}/image", CARD_ID))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(IMAGE_JPEG))
+                .andExpect(content().bytes(CARD_IMAGE))
+                .andExpect(header().longValue("Content-Length", CARD_IMAGE.length))
+                .andExpect(header().string("ETag", "\"" + CARD_HASH + "\""))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    public void WhenGetCardImageWithTheCardsHash_ThenShouldBeCachedAsImmutable() throws Exception {
+        mockMvc.perform(get(API_PREFIX + "/cards/{cardId}/image", CARD_ID)
+                .param("hash", CARD_HASH))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CARD_IMAGE))
+                .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"));
+    }
+
+    @Test
+    public void WhenGetCardImageWithStaleHash_ThenShouldRespondTheCurrentImageToRevalidate() throws Exception {
+        mockMvc.perform(get(API_PREFIX + "/cards/{cardId}/image", CARD_ID)
+                .param("hash", "staleHash"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CARD_IMAGE))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    public void GivenClientCachedCardImage_WhenGetCardImageWithSameETag_ThenShouldRespondNotModified() throws Exception {
+        mockMvc.perform(get(API_PREFIX + "/cards/{cardId}/image", CARD_ID)
+                .header(IF_NONE_MATCH, "\"" + CARD_HASH + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void WhenGetCardImageAtThumbnailWidth_ThenShouldRespondTheThumbnailWithItsOwnETag() throws Exception {
+        mockMvc.perform(get(API_PREFIX + "/cards/{cardId}/image", CARD_ID)
+                .param("width", "100"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(THUMBNAIL_IMAGE))
+                .andExpect(header().string("ETag", "\"" + THUMBNAIL_HASH + "\""));
+    }
+
+    @Test
+    public void WhenGetImageOfUnknownCard_ThenShouldRespondNotFound() throws Exception {
+        mockMvc.perform(get(API_PREFIX + "/cards/{cardId}/image", CARD_ID + 1))
+                .andExpect(status().isNotFound());
+    }
+
+    private static ByteBuffer toDirectBuffer(byte[] image) {
+        return ByteBuffer.allocateDirect(image.length).put(image).flip().asReadOnlyBuffer();
+    }
+}
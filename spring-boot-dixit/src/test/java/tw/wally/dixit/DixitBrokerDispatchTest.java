@@ -0,0 +1,199 @@
+package tw.wally.dixit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import tw.wally.dixit.brokers.DixitBroker;
+import tw.wally.dixit.brokers.DixitEventStreams;
+import tw.wally.dixit.brokers.DixitSubscriptions;
+import tw.wally.dixit.events.DixitRoundEvent;
+import tw.wally.dixit.events.delta.DixitRoundCardPlayedDeltaEvent;
+import tw.wally.dixit.events.gamestate.DixitGameOverEvent;
+import tw.wally.dixit.events.roundstate.DixitRoundCardPlayedEvent;
+import tw.wally.dixit.model.Card;
+import tw.wally.dixit.model.PlayCard;
+import tw.wally.dixit.model.Player;
+import tw.wally.dixit.model.Story;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.springframework.web.socket.CloseStatus.NORMAL;
+import static tw.wally.dixit.brokers.DixitBroker.EventFormat.DELTA;
+import static tw.wally.dixit.brokers.DixitBroker.EventFormat.FULL;
+import static tw.wally.dixit.configs.WebSocketConfiguration.BrokerMode.SIMPLE;
+import static tw.wally.dixit.model.GameState.OVER;
+import static tw.wally.dixit.model.RoundState.CARD_PLAYING;
+import static tw.wally.dixit.utils.StreamUtils.generate;
+import static tw.wally.dixit.utils.StreamUtils.mapToList;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+public class DixitBrokerDispatchTest {
+    private static final String DIXIT_ID = "dixitId";
+    private static final int NUMBER_OF_PLAYERS = 4;
+    private static final long SEQUENCE = 7;
+    private final SimpMessagingTemplate simpMessagingTemplate = mock(SimpMessagingTemplate.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DixitEventStreams dixitEventStreams = new DixitEventStreams(10, Duration.ofMinutes(1), 1, meterRegistry);
+    private final DixitSubscriptions dixitSubscriptions = new DixitSubscriptions(SIMPLE, false, meterRegistry);
+    private final List<String> sentTopics = new CopyOnWriteArrayList<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> sentPayloads = new CopyOnWriteArrayList<>();
+    private final List<String> sendingThreads = new CopyOnWriteArrayList<>();
+    private DixitBroker dixitBroker;
+
+    @AfterEach
+    public void shutdown() throws InterruptedException {
+        dixitBroker.shutdown();
+        dixitEventStreams.shutdown();
+    }
+
+    @Test
+    public void WhenPublishEventsOfOneCommand_ThenShouldSendTheSharedEventOnceAndThePerPlayerEventsInOrderOnADispatchThread() throws Exception {
+        dixitBroker = new DixitBroker(simpMessagingTemplate, dixitEventStreams, dixitSubscriptions, objectMapper, true, FULL, 2, 10, meterRegistry);
+        CountDownLatch sent = recordSentEvents(1 + NUMBER_OF_PLAYERS);
+
+        dixitBroker.publish(gameOverEvents());
+
+        assertTrue(sent.await(10, SECONDS));
+        var perPlayerTopics = generate(NUMBER_OF_PLAYERS, playerId -> "/topic/dixit/dixitId/gameStates/OVER/players/" + playerId);
+        assertEquals("/topic/dixit/dixitId/gameStates/OVER", sentTopics.get(0));
+        assertEquals(perPlayerTopics, sentTopics.subList(1, sentTopics.size()));
+        assertTrue(sendingThreads.stream().allMatch(thread -> thread.startsWith("dixit-broker-")));
+        dixitBroker.shutdown();
+        assertEquals(1 + NUMBER_OF_PLAYERS, meterRegistry.timer("dixit.broker.dispatch.latency").count());
+        assertEquals(1, meterRegistry.timer("dixit.broker.publish").count());
+    }
+
+    @Test
+    public void GivenDispatchQueueIsFull_WhenPublishEvents_ThenShouldDropAndCountThem() throws Exception {
+        dixitBroker = new DixitBroker(simpMessagingTemplate, dixitEventStreams, dixitSubscriptions, objectMapper, false, FULL, 1, 1, meterRegistry);
+        CountDownLatch blocking = new CountDownLatch(1), released = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            blocking.countDown();
+            released.await(10, SECONDS);
+            return null;
+        }).when(simpMessagingTemplate).send(anyString(), any(Message.class));
+
+        dixitBroker.publish(gameOverEvent("0"));
+        assertTrue(blocking.await(10, SECONDS));
+        dixitBroker.publish(gameOverEvent("1"));
+        dixitBroker.publish(gameOverEvents());
+
+        assertEquals(1, meterRegistry.counter("dixit.broker.dropped").count());
+        assertEquals(1, meterRegistry.get("dixit.broker.queue.depth").gauge().value());
+        released.countDown();
+    }
+
+    @Test
+    public void GivenDeltaFormat_WhenPublishCardPlayedEventsWithTheirDelta_ThenShouldOnlySendTheDelta() throws Exception {
+        dixitBroker = new DixitBroker(simpMessagingTemplate, dixitEventStreams, dixitSubscriptions, objectMapper, false, DELTA, 1, 10, meterRegistry);
+        CountDownLatch sent = recordSentEvents(1);
+
+        dixitBroker.publish(cardPlayedEventsWithDelta());
+
+        assertTrue(sent.await(10, SECONDS));
+        dixitBroker.shutdown();
+        assertEquals(List.of("/topic/dixit/dixitId/roundStates/CARD_PLAYING"), sentTopics);
+        var payload = sentPayloads.get(0);
+        assertTrue(payload.has("playCard"));
+        assertFalse(payload.has("playCards"));
+        assertEquals(SEQUENCE, payload.get("sequence").asLong());
+    }
+
+    @Test
+    public void GivenFullFormat_WhenPublishCardPlayedEventsWithTheirDelta_ThenShouldSendTheFullEventOnceAndDropTheDelta() throws Exception {
+        dixitBroker = new DixitBroker(simpMessagingTemplate, dixitEventStreams, dixitSubscriptions, objectMapper, false, FULL, 1, 10, meterRegistry);
+        CountDownLatch sent = recordSentEvents(1);
+
+        dixitBroker.publish(cardPlayedEventsWithDelta());
+
+        assertTrue(sent.await(10, SECONDS));
+        dixitBroker.shutdown();
+        assertEquals(List.of("/topic/dixit/dixitId/roundStates/CARD_PLAYING"), sentTopics);
+        var payload = sentPayloads.get(0);
+        assertEquals(NUMBER_OF_PLAYERS, payload.get("playCards").size());
+        assertEquals(SEQUENCE, payload.get("sequence").asLong());
+    }
+
+    @Test
+    public void GivenOnlyTheGameTopicAndOnePlayersTopicAreSubscribedTo_WhenPublishEvents_ThenShouldSkipTheOthersUntilTheSessionDisconnects() throws Exception {
+        var trackedSubscriptions = new DixitSubscriptions(SIMPLE, true, meterRegistry);
+        dixitBroker = new DixitBroker(simpMessagingTemplate, dixitEventStreams, trackedSubscriptions, objectMapper, true, FULL, 1, 10, meterRegistry);
+        CountDownLatch sent = recordSentEvents(2);
+        trackedSubscriptions.onSubscribe(subscribeEvent("session", "0", "/topic/dixit/dixitId/gameStates/OVER"));
+        trackedSubscriptions.onSubscribe(subscribeEvent("session", "1", "/topic/dixit/dixitId/gameStates/OVER/players/0"));
+
+        dixitBroker.publish(gameOverEvents());
+        assertTrue(sent.await(10, SECONDS));
+        trackedSubscriptions.onDisconnect(new SessionDisconnectEvent(this, MessageBuilder.withPayload(new byte[0]).build(), "session", NORMAL));
+        dixitBroker.publish(gameOverEvents());
+        dixitBroker.shutdown();
+
+        assertEquals(List.of("/topic/dixit/dixitId/gameStates/OVER", "/topic/dixit/dixitId/gameStates/OVER/players/0"), sentTopics);
+        assertEquals(1, meterRegistry.counter("dixit.broker.events", "topic", "SHARED", "result", "skipped").count());
+        assertEquals(NUMBER_OF_PLAYERS * 2 - 1, meterRegistry.counter("dixit.broker.events", "topic", "PLAYER", "result", "skipped").count());
+        assertEquals(0, meterRegistry.get("dixit.broker.subscriptions").gauge().value());
+    }
+
+    private SessionSubscribeEvent subscribeEvent(String sessionId, String subscriptionId, String destination) {
+        var headers = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        return new SessionSubscribeEvent(this, MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()));
+    }
+
+    private CountDownLatch recordSentEvents(int numberOfEvents) {
+        CountDownLatch sent = new CountDownLatch(numberOfEvents);
+        doAnswer(invocation -> {
+            sentTopics.add(invocation.getArgument(0));
+            sentPayloads.add(objectMapper.readTree(invocation.<Message<byte[]>>getArgument(1).getPayload()));
+            sendingThreads.add(Thread.currentThread().getName());
+            sent.countDown();
+            return null;
+        }).when(simpMessagingTemplate).send(anyString(), any(Message.class));
+        return sent;
+    }
+
+    private List<DixitRoundEvent> cardPlayedEventsWithDelta() {
+        var players = generate(NUMBER_OF_PLAYERS, number -> new Player(String.valueOf(number), "dixitPlayer" + number));
+        var playCards = generate(NUMBER_OF_PLAYERS - 1, number -> new PlayCard(players.get(number + 1), new Card(number + 1, "image")));
+        var story = new Story("phrase", new PlayCard(players.get(0), new Card(0, "image")));
+        var events = new ArrayList<DixitRoundEvent>(mapToList(players, player ->
+                new DixitRoundCardPlayedEvent(DIXIT_ID, 1, player.getId(), CARD_PLAYING, story, playCards)));
+        events.add(new DixitRoundCardPlayedDeltaEvent(DIXIT_ID, 1, playCards.get(playCards.size() - 1)));
+        events.forEach(event -> event.setSequence(SEQUENCE));
+        return events;
+    }
+
+    private List<DixitGameOverEvent> gameOverEvents() {
+        return generate(NUMBER_OF_PLAYERS, this::gameOverEvent);
+    }
+
+    private DixitGameOverEvent gameOverEvent(Object playerId) {
+        return new DixitGameOverEvent(DIXIT_ID, 1, String.valueOf(playerId), OVER, emptyList());
+    }
+}
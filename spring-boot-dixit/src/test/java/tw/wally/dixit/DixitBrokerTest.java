@@ -7,10 +7,13 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompHeaders;
 import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.socket.WebSocketHttpHeaders;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 import org.springframework.web.socket.messaging.WebSocketStompClient;
 import tw.wally.dixit.events.EventBus.Event;
@@ -21,6 +24,7 @@ import tw.wally.dixit.events.roundstate.DixitRoundStoryGuessedEvent;
 import tw.wally.dixit.events.roundstate.DixitRoundScoredEvent;
 import tw.wally.dixit.events.roundstate.DixitRoundStoryToldEvent;
 import tw.wally.dixit.model.*;
+import tw.wally.dixit.services.TokenService.Token;
 import tw.wally.dixit.utils.DixitEventStompFrameHandler;
 
 import java.util.Collection;
@@ -30,6 +34,8 @@ import java.util.Map;
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 import static tw.wally.dixit.configs.WebSocketConfiguration.STOMP_ROOT_DESTINATION_PREFIX;
 import static tw.wally.dixit.repositories.CardRepository.EMPTY_CARD_IMAGE;
@@ -41,12 +47,14 @@ import static tw.wally.dixit.utils.StreamUtils.generate;
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
 @ContextConfiguration(classes = {DixitBrokerTest.DixitConfiguration.class})
+@TestPropertySource(properties = "dixit.broker.per-player-topics=true")
 public class DixitBrokerTest extends AbstractDixitSpringBootTest {
     private static final Collection<Player> DIXIT_PLAYERS = generate(NUMBER_OF_PLAYERS, number -> new Player(String.valueOf(number), DIXIT_PLAYER + number));
     private static final String BASE_BROKER_URL = format("ws://localhost:%d/broker", 8080);
     private static final String BASE_DIXIT_TOPIC = format("%s/dixit/%s", STOMP_ROOT_DESTINATION_PREFIX, DIXIT_ID);
     private static final String BASE_DIXIT_GAME_STATE_TOPIC = BASE_DIXIT_TOPIC + "/gameStates";
     private static final String BASE_DIXIT_ROUND_STATE_TOPIC = BASE_DIXIT_TOPIC + "/roundStates";
+    private static final String DIXIT_HAND_CARDS_DESTINATION = format("/user/queue/dixit/%s/handCards", DIXIT_ID);
     private static final Map<Class<? extends Event>, String> BASE_DIXIT_EVENT_TOPICS = Map.of(
             DixitGameStartedEvent.class, format("%s/%s", BASE_DIXIT_GAME_STATE_TOPIC, GameState.STARTED),
             DixitRoundStoryToldEvent.class, format("%s/%s", BASE_DIXIT_ROUND_STATE_TOPIC, RoundState.STORY_TELLING),
@@ -160,6 +168,65 @@ public class DixitBrokerTest extends AbstractDixitSpringBootTest {
         dixit.getPlayers().forEach(player -> assertPlayerReceiveDixitGameOverEvent(player, currentRound, winners));
     }
 
+    @Test
+    public void GivenPlayerSubscribeDixitRoundStoryToldGameTopic_WhenDixitCreated_ThenShouldReceiveTheStoryWithoutAnyHandCards() throws Exception {
+        var dixitEventStompFrameHandler = subscribe(format("%s/%s", BASE_DIXIT_ROUND_STATE_TOPIC, RoundState.STORY_TELLING), DixitRoundStoryToldEvent.class, null);
+
+        createDixitWithPlayers(NUMBER_OF_PLAYERS);
+
+        Dixit dixit = dixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+        var dixitRoundStoryToldEvent = dixitEventStompFrameHandler.getPayload();
+        assertNotNull(dixitRoundStoryToldEvent);
+        assertEquals(DIXIT_ID, dixitRoundStoryToldEvent.getGameId());
+        assertEquals(FIRST_ROUND, dixitRoundStoryToldEvent.getRounds());
+        assertNull(dixitRoundStoryToldEvent.getPlayerId());
+        assertEquals(dixit.getCurrentStoryteller(), dixitRoundStoryToldEvent.getStoryteller());
+        assertNull(dixitRoundStoryToldEvent.getHandCards());
+    }
+
+    @Test
+    public void GivenAllPlayersConnectWithTheirTokensAndSubscribeTheirHandCards_WhenDixitCreated_ThenEachPlayerShouldOnlyReceiveTheirOwnHandCards() throws Exception {
+        var dixitEventStompFrameHandlers = new HashMap<String, DixitEventStompFrameHandler<DixitRoundStoryToldEvent>>();
+        for (Player player : DIXIT_PLAYERS) {
+            String token = "token" + player.getId();
+            when(tokenService.parseAndValidateToken(token)).thenReturn(new Token(player.getId(), player.getName(), 0));
+            dixitEventStompFrameHandlers.put(player.getId(), subscribe(DIXIT_HAND_CARDS_DESTINATION, DixitRoundStoryToldEvent.class, token));
+        }
+
+        createDixitWithPlayers(NUMBER_OF_PLAYERS);
+
+        Dixit dixit = dixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+        dixit.getPlayers().forEach(player -> {
+            var dixitRoundStoryToldEvent = dixitEventStompFrameHandlers.get(player.getId()).getPayload();
+            assertNotNull(dixitRoundStoryToldEvent);
+            assertEquals(player.getId(), dixitRoundStoryToldEvent.getPlayerId());
+            assertEquals(RoundState.STORY_TELLING, dixitRoundStoryToldEvent.getRoundState());
+            assertNull(dixitRoundStoryToldEvent.getStoryteller());
+            assertEqualsIgnoreOrder(player.getHandCards(), dixitRoundStoryToldEvent.getHandCards());
+        });
+    }
+
+    @Test
+    public void GivenSessionConnectsWithoutToken_WhenItSubscribesTheHandCardsAndDixitCreated_ThenItShouldReceiveNoHandCards() throws Exception {
+        var dixitEventStompFrameHandler = subscribe(DIXIT_HAND_CARDS_DESTINATION, DixitRoundStoryToldEvent.class, null);
+
+        createDixitWithPlayers(NUMBER_OF_PLAYERS);
+
+        assertNull(dixitEventStompFrameHandler.getPayload());
+    }
+
+    private <T> DixitEventStompFrameHandler<T> subscribe(String destination, Class<T> eventClass, String token) throws Exception {
+        var connectHeaders = new StompHeaders();
+        if (token != null) {
+            connectHeaders.add(AUTHORIZATION, "Bearer " + token);
+        }
+        var stompSession = stompClient.connect(BASE_BROKER_URL, new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {
+        }).get(10, SECONDS);
+        var dixitEventStompFrameHandler = new DixitEventStompFrameHandler<>(eventClass);
+        stompSession.subscribe(destination, dixitEventStompFrameHandler);
+        return dixitEventStompFrameHandler;
+    }
+
     private void subscribeEvents(Class<? extends Event> dixitEventClass) throws Exception {
         for (Player player : DIXIT_PLAYERS) {
             subscribeEvent(player, dixitEventClass);
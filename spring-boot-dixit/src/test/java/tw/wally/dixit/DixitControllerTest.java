@@ -1,19 +1,32 @@
 package tw.wally.dixit;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.search.Search;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import tw.wally.dixit.model.*;
 import tw.wally.dixit.views.*;
 
 import static java.util.function.Function.identity;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static tw.wally.dixit.model.Dixit.NUMBER_OF_PLAYER_HAND_CARDS;
 import static tw.wally.dixit.utils.StreamUtils.*;
 
 public class DixitControllerTest extends AbstractDixitSpringBootTest {
-    
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     public void WhenCreateDixitWithFourPlayers_ThenShouldSuccess() throws Exception {
         createDixitWithPlayers(4)
@@ -204,6 +217,7 @@ public class DixitControllerTest extends AbstractDixitSpringBootTest {
         var dixitOverview = getDixitOverview(guesser);
 
         assertEquals(RoundState.CARD_PLAYING, dixitOverview.roundState);
+        assertEquals(dixit.getVersion(), dixitOverview.sequence);
         Story story = dixitOverview.story.toEntity();
         assertEquals(dixit.getCurrentStory(), story);
         assertTrue(story.getPlayer().getHandCards().isEmpty());
@@ -260,6 +274,86 @@ public class DixitControllerTest extends AbstractDixitSpringBootTest {
         assertEqualsIgnoreOrder(dixit.getWinners(), mapToList(dixitOverview.winners, PlayerView::toEntity));
     }
 
+    @Test
+    public void GivenOverviewCacheOffByDefault_WhenGetOverviewAgainWithItsETag_ThenShouldLoadDixitAndRespondNotModified() throws Exception {
+        Dixit dixit = createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+        Player storyteller = dixit.getCurrentStoryteller();
+        String eTag = getDixitOverviewETag(storyteller);
+        assertEquals("\"" + dixit.getVersion() + "\"", eTag);
+        long loads = numberOfDixitLoads();
+
+        mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/overview", DIXIT_ID, storyteller.getId())
+                        .header(IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(ETAG, eTag));
+
+        assertEquals(loads + 1, numberOfDixitLoads());
+    }
+
+    @Test
+    public void GivenOverviewGot_WhenStorytellerTellsStory_ThenOverviewShouldHaveNewETagAndRoundState() throws Exception {
+        Dixit dixit = createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+        Player storyteller = dixit.getCurrentStoryteller();
+        String eTag = getDixitOverviewETag(storyteller);
+
+        tellStory(dixit.getNumberOfRounds(), storyteller)
+                .andExpect(status().isOk());
+
+        var dixitOverview = getBody(mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/overview", DIXIT_ID, storyteller.getId())
+                        .header(IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, "\"" + (dixit.getVersion() + 1) + "\"")), DixitOverview.class);
+        assertEquals(RoundState.CARD_PLAYING, dixitOverview.roundState);
+    }
+
+    @Test
+    public void GivenAwaitingOverviewAfterCurrentVersion_WhenStorytellerTellsStory_ThenShouldRespondOverviewOfNextVersion() throws Exception {
+        Dixit dixit = createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+        Player guesser = dixit.getCurrentGuessers().get(0);
+        var awaiting = mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/overview", DIXIT_ID, guesser.getId())
+                        .param("after", String.valueOf(dixit.getVersion())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        tellStory(dixit.getNumberOfRounds(), dixit.getCurrentStoryteller())
+                .andExpect(status().isOk());
+
+        var dixitOverview = getBody(mockMvc.perform(asyncDispatch(awaiting))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, "\"" + (dixit.getVersion() + 1) + "\"")), DixitOverview.class);
+        assertEquals(RoundState.CARD_PLAYING, dixitOverview.roundState);
+    }
+
+    @Test
+    public void GivenStoryTold_WhenAwaitOverviewAfterPreviousVersion_ThenShouldRespondCurrentOverviewAtOnce() throws Exception {
+        Dixit dixit = givenStoryToldAndGetDixit();
+        Player guesser = dixit.getCurrentGuessers().get(0);
+
+        var awaiting = mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/overview", DIXIT_ID, guesser.getId())
+                        .param("after", String.valueOf(dixit.getVersion() - 1)))
+                .andExpect(request().asyncStarted())
+                .andExpect(request().asyncResult(notNullValue()))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(awaiting))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, "\"" + dixit.getVersion() + "\""));
+    }
+
+    private String getDixitOverviewETag(Player player) throws Exception {
+        return mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/overview", DIXIT_ID, player.getId()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(ETAG);
+    }
+
+    private long numberOfDixitLoads() {
+        return Search.in(meterRegistry).name("dixit.repository").tag("method", "findDixitById").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+
     public DixitOverview getDixitOverview(Player player) throws Exception {
         return getBody(mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/overview", DIXIT_ID, player.getId()))
                 .andExpect(status().isOk()), DixitOverview.class);
@@ -0,0 +1,105 @@
+package tw.wally.dixit;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tw.wally.dixit.model.*;
+import tw.wally.dixit.repositories.DixitDataDiff;
+import tw.wally.dixit.repositories.entities.DixitData;
+import tw.wally.dixit.repositories.entities.PlayCardData;
+
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.reverse;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tw.wally.dixit.repositories.entities.DixitData.toData;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+public class DixitDataDiffTest {
+    private static final int NUMBER_OF_PLAYERS = 4;
+    private Dixit dixit;
+
+    @BeforeEach
+    public void givenStoryTold() {
+        var cards = range(0, 36).mapToObj(number -> new Card(number, "image: " + number)).collect(toList());
+        dixit = new Dixit("dixitId", new VictoryCondition(30), cards);
+        range(0, NUMBER_OF_PLAYERS).forEach(number -> dixit.join(new Player(String.valueOf(number), "dixitPlayer" + number)));
+        dixit.start();
+        Player storyteller = dixit.getCurrentStoryteller();
+        dixit.tellStory("phrase", storyteller.getId(), firstHandCardId(storyteller));
+    }
+
+    @Test
+    public void WhenGuesserPlayCard_ThenShouldOnlyPushThePlayCardAndUpdateTheGuessersHand() {
+        DixitData loaded = toData(dixit);
+        Player guesser = dixit.getCurrentGuessers().get(0);
+        dixit.playCard(guesser.getId(), firstHandCardId(guesser));
+
+        Document update = DixitDataDiff.diff(loaded, toData(dixit)).getUpdateObject();
+
+        assertEquals(Set.of("$push", "$set", "$inc"), update.keySet());
+        assertEquals(Set.of("round.playCards"), operation(update, "$push").keySet());
+        int guesserIndex = dixit.getPlayers().indexOf(guesser);
+        assertEquals(Set.of("players." + guesserIndex + ".handCardIds"), operation(update, "$set").keySet());
+    }
+
+    @Test
+    public void WhenGuesserGuessStory_ThenShouldOnlyPushOneGuess() {
+        dixit.getCurrentGuessers().forEach(guesser -> dixit.playCard(guesser.getId(), firstHandCardId(guesser)));
+        DixitData loaded = toData(dixit);
+        Player guesser = dixit.getCurrentGuessers().get(0);
+        dixit.guessStory(guesser.getId(), dixit.getCurrentStory().getCardId());
+
+        Document update = DixitDataDiff.diff(loaded, toData(dixit)).getUpdateObject();
+
+        assertEquals(Set.of("$push", "$inc"), update.keySet());
+        assertEquals(Set.of("round.guesses"), operation(update, "$push").keySet());
+        assertEquals(Set.of(DixitDataDiff.VERSION), operation(update, "$inc").keySet());
+    }
+
+    @Test
+    public void GivenLoadedPlayCardsAreNoLongerTheBeginningOfTheRound_WhenDiff_ThenShouldReplaceThemInTheirOrder() {
+        dixit.getCurrentGuessers().forEach(guesser -> dixit.playCard(guesser.getId(), firstHandCardId(guesser)));
+        DixitData current = toData(dixit);
+        DixitData loaded = toData(dixit);
+        reverse((List<PlayCardData>) loaded.getRound().getPlayCards());
+
+        Document update = DixitDataDiff.diff(loaded, current).getUpdateObject();
+
+        assertFalse(update.containsKey("$push"));
+        assertSame(current.getRound().getPlayCards(), operation(update, "$set").get("round.playCards"));
+    }
+
+    @Test
+    public void WhenNextRoundStarts_ThenShouldReplaceTheWholeRound() {
+        dixit.getCurrentGuessers().forEach(guesser -> dixit.playCard(guesser.getId(), firstHandCardId(guesser)));
+        dixit.getCurrentGuessers().forEach(guesser -> dixit.guessStory(guesser.getId(), dixit.getCurrentStory().getCardId()));
+        DixitData loaded = toData(dixit);
+        dixit.score();
+        dixit.withdrawCards();
+        dixit.startNextRound();
+
+        Document update = DixitDataDiff.diff(loaded, toData(dixit)).getUpdateObject();
+
+        var sets = operation(update, "$set").keySet();
+        assertTrue(sets.contains("round"));
+        assertTrue(sets.contains("numberOfRounds"));
+        assertTrue(sets.contains("deckCardId"));
+    }
+
+    private int firstHandCardId(Player player) {
+        return player.getHandCards().get(0).getId();
+    }
+
+    private Document operation(Document update, String operator) {
+        return (Document) update.get(operator);
+    }
+}
@@ -0,0 +1,105 @@
+package tw.wally.dixit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.web.servlet.ResultActions;
+import tw.wally.dixit.brokers.DixitEventStreams;
+import tw.wally.dixit.events.gamestate.DixitGameOverEvent;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.services.TokenService.Token;
+
+import java.util.function.Supplier;
+
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static tw.wally.dixit.model.GameState.OVER;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+public class DixitEventStreamTest extends AbstractDixitSpringBootTest {
+    private static final String TOPIC_PREFIX = "/topic/dixit/" + DIXIT_ID;
+    private static final String HAND_CARDS_DESTINATION = "/user/queue/dixit/" + DIXIT_ID + "/handCards";
+
+    @Autowired
+    private DixitEventStreams dixitEventStreams;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${dixit.broker.sse.buffer-capacity}")
+    private int bufferCapacity;
+
+    @Test
+    public void GivenPlayerStreamingEvents_WhenDixitCreated_ThenShouldStreamTheSharedEventsAndOnlyThePlayersHandCards() throws Exception {
+        when(tokenService.parseAndValidateToken("token0")).thenReturn(new Token("0", DIXIT_PLAYER + 0, 0));
+        ResultActions streaming = mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/events", DIXIT_ID, "0")
+                        .param("token", "token0"))
+                .andExpect(request().asyncStarted());
+
+        Dixit dixit = createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+
+        awaitUntil(() -> getContentAsString(streaming).contains("event:" + HAND_CARDS_DESTINATION));
+        streaming.andExpect(content().contentTypeCompatibleWith(TEXT_EVENT_STREAM));
+        String events = getContentAsString(streaming);
+        assertTrue(events.contains("event:" + TOPIC_PREFIX + "/gameStates/STARTED\nid:0\ndata:{"));
+        assertTrue(events.contains("event:" + TOPIC_PREFIX + "/roundStates/STORY_TELLING\nid:0\ndata:{"));
+        assertEquals(1, events.split("event:" + HAND_CARDS_DESTINATION, -1).length - 1);
+        assertTrue(events.contains("\"playerId\":\"0\""));
+        assertFalse(events.contains("\"playerId\":\"" + dixit.getPlayers().get(1).getId() + "\""));
+    }
+
+    @Test
+    public void GivenPlayerStreamingEventsWithoutToken_WhenDixitCreated_ThenShouldStreamOnlyTheSharedEvents() throws Exception {
+        ResultActions streaming = mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/events", DIXIT_ID, "0"))
+                .andExpect(request().asyncStarted());
+
+        createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+
+        awaitUntil(() -> getContentAsString(streaming).contains("event:" + TOPIC_PREFIX + "/roundStates/STORY_TELLING"));
+        assertFalse(getContentAsString(streaming).contains(HAND_CARDS_DESTINATION));
+    }
+
+    @Test
+    public void GivenAnotherPlayersToken_WhenStreamingEvents_ThenShouldBeUnauthorized() throws Exception {
+        when(tokenService.parseAndValidateToken("token1")).thenReturn(new Token("1", DIXIT_PLAYER + 1, 0));
+
+        mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/events", DIXIT_ID, "0")
+                        .param("token", "token1"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void GivenStreamStopsBeingWritten_WhenMoreEventsThanItsBufferArePublished_ThenStreamShouldBeDroppedWithoutBlockingThePublisher() throws Exception {
+        var emitter = dixitEventStreams.open(DIXIT_ID, "0");
+        double dropped = meterRegistry.counter("dixit.broker.sse.dropped").count();
+        var event = new DixitGameOverEvent(DIXIT_ID, 1, "0", OVER, emptyList());
+
+        // a writer sending to the emitter waits for its lock as it would for a client that doesn't read
+        synchronized (emitter) {
+            for (int number = 0; number < bufferCapacity + 2; number++) {
+                dixitEventStreams.send(event, null, TOPIC_PREFIX + "/gameStates/OVER", "{}".getBytes());
+            }
+
+            assertEquals(dropped + 1, meterRegistry.counter("dixit.broker.sse.dropped").count());
+            assertFalse(dixitEventStreams.hasStreams(DIXIT_ID));
+        }
+    }
+
+    private static void awaitUntil(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (!condition.get() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.get());
+    }
+}
@@ -0,0 +1,306 @@
+package tw.wally.dixit;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.SneakyThrows;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import tw.wally.dixit.model.GameState;
+import tw.wally.dixit.model.Player;
+import tw.wally.dixit.model.RoundState;
+import tw.wally.dixit.services.TokenService.Token;
+import tw.wally.dixit.usecases.CreateDixitUseCase;
+import tw.wally.dixit.usecases.GuessStoryUseCase;
+import tw.wally.dixit.usecases.PlayCardUseCase;
+import tw.wally.dixit.usecases.TellStoryUseCase;
+import tw.wally.dixit.utils.DixitEventLatencyStompFrameHandler;
+import tw.wally.dixit.views.DixitOverview;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Integer.getInteger;
+import static java.lang.String.format;
+import static java.net.http.HttpRequest.BodyPublishers.noBody;
+import static java.net.http.HttpRequest.BodyPublishers.ofString;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static tw.wally.dixit.configs.WebSocketConfiguration.STOMP_ROOT_DESTINATION_PREFIX;
+import static tw.wally.dixit.model.Dixit.MAX_NUMBER_OF_PLAYERS;
+import static tw.wally.dixit.model.Dixit.MIN_NUMBER_OF_PLAYERS;
+import static tw.wally.dixit.utils.StreamUtils.filterToList;
+import static tw.wally.dixit.utils.StreamUtils.generate;
+
+/**
+ * Plays complete games of bots against the running service the way the clients do, the moves go through the REST API
+ * and every player listens to the game's events on its own STOMP session.
+ * Records the latency of each endpoint and of each move's events reaching the players, from the move being sent
+ * to its event arriving, and writes the histograms to target/load-test.
+ * Runs only when asked to, against the same embedded Mongo as the other tests, so it needs no network once its binary is cached:
+ * "mvn -pl spring-boot-dixit -am test -Dtest=DixitLoadTest -DfailIfNoTests=false -Ddixit.load-test.games=32 -Ddixit.load-test.duration=PT1M",
+ * games being the number of games played at the same time, each finished game is followed by a new one until the duration is over.
+ *
+ * @author - wally55077@gmail.com
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "dixit.load-test.games", matches = "[1-9][0-9]*")
+public class DixitLoadTest extends AbstractDixitSpringBootTest {
+    private static final String CREATE_DIXIT = "POST /{dixitId}";
+    private static final String TELL_STORY = "PUT /{dixitId}/rounds/{round}/players/{playerId}/story";
+    private static final String PLAY_CARD = "PUT /{dixitId}/rounds/{round}/players/{playerId}/playcard";
+    private static final String GUESS_STORY = "PUT /{dixitId}/rounds/{round}/players/{playerId}/guess";
+    private static final String GET_DIXIT_OVERVIEW = "GET /{dixitId}/players/{playerId}/overview";
+    private static final String EVENT_DELIVERY = "move to event delivered";
+    private static final Path REPORT_DIRECTORY = Path.of("target", "load-test");
+    private static final long HIGHEST_TRACKABLE_MICROS = SECONDS.toMicros(60);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final long EVENT_TIMEOUT_SECONDS = 10;
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+    private final AtomicInteger numberOfGames = new AtomicInteger();
+    private final AtomicLong numberOfMoves = new AtomicLong();
+    private final AtomicLong undeliveredGameOverEvents = new AtomicLong();
+    private HttpClient httpClient;
+    private WebSocketStompClient stompClient;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    public void setupClients() {
+        // every player's token is its player id
+        when(tokenService.parseAndValidateToken(anyString()))
+                .thenAnswer(invocation -> new Token(invocation.getArgument(0), DIXIT_PLAYER, 0));
+        for (String name : List.of(CREATE_DIXIT, TELL_STORY, PLAY_CARD, GUESS_STORY, GET_DIXIT_OVERVIEW, EVENT_DELIVERY)) {
+            recorders.put(name, new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+        }
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        var converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        stompClient.setMessageConverter(converter);
+    }
+
+    @Test
+    public void WhenBotsPlayConcurrentGamesForTheDuration_ThenEveryGameShouldBePlayedToItsEnd() throws Exception {
+        int concurrentGames = getInteger("dixit.load-test.games");
+        Duration duration = Duration.parse(System.getProperty("dixit.load-test.duration", "PT1M"));
+        long deadline = System.nanoTime() + duration.toNanos();
+        var executor = Executors.newFixedThreadPool(concurrentGames);
+        long start = System.nanoTime();
+        try {
+            var workers = new ArrayList<Future<?>>(concurrentGames);
+            for (int worker = 0; worker < concurrentGames; worker++) {
+                workers.add(executor.submit(() -> playGamesUntil(deadline)));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        report(concurrentGames, elapsed);
+        assertTrue(numberOfGames.get() > 0);
+        assertEquals(0, undeliveredGameOverEvents.get());
+    }
+
+    private Void playGamesUntil(long deadline) {
+        while (System.nanoTime() < deadline) {
+            playGame(numberOfGames.getAndIncrement());
+        }
+        return null;
+    }
+
+    @SneakyThrows
+    private void playGame(int gameNumber) {
+        String dixitId = "load-" + gameNumber;
+        int numberOfPlayers = MIN_NUMBER_OF_PLAYERS + gameNumber % (MAX_NUMBER_OF_PLAYERS - MIN_NUMBER_OF_PLAYERS + 1);
+        var players = generate(numberOfPlayers, number -> new Player(dixitId + "-" + number, DIXIT_PLAYER + number));
+        var game = new LoadGame(dixitId, numberOfPlayers);
+        var stompSessions = new ArrayList<StompSession>(numberOfPlayers);
+        try {
+            for (Player player : players) {
+                stompSessions.add(subscribeEvents(game, player.getId()));
+            }
+            var options = List.of(new CreateDixitUseCase.Option("winningScore", DEFAULT_WINNING_SCORE));
+            var request = new CreateDixitUseCase.Request(ROOM_ID, dixitId, players.get(0).getId(), players, options);
+            move(game, CREATE_DIXIT, "POST", format("/%s", dixitId), request);
+
+            DixitOverview overview = getDixitOverview(game, players.get(0).getId());
+            while (GameState.OVER != overview.gameState) {
+                playRound(game, overview.rounds, overview.storyteller.id, players);
+                overview = getDixitOverview(game, players.get(0).getId());
+            }
+            if (!game.gameOverEventsDelivered.await(EVENT_TIMEOUT_SECONDS, SECONDS)) {
+                undeliveredGameOverEvents.addAndGet(game.gameOverEventsDelivered.getCount());
+            }
+        } finally {
+            stompSessions.forEach(StompSession::disconnect);
+        }
+    }
+
+    /**
+     * The storyteller tells the story with its first hand card, every guesser plays its first hand card
+     * and guesses the first card that isn't its own.
+     */
+    private void playRound(LoadGame game, int round, String storytellerId, List<Player> players) {
+        String roundPath = format("/%s/rounds/%d/players/", game.dixitId, round);
+        int storyCardId = firstHandCardId(getDixitOverview(game, storytellerId));
+        move(game, TELL_STORY, "PUT", roundPath + storytellerId + "/story",
+                new TellStoryUseCase.Request(game.dixitId, round, PHRASE, storytellerId, storyCardId));
+
+        var guessers = filterToList(players, player -> !storytellerId.equals(player.getId()));
+        for (Player guesser : guessers) {
+            int cardId = firstHandCardId(getDixitOverview(game, guesser.getId()));
+            move(game, PLAY_CARD, "PUT", roundPath + guesser.getId() + "/playcard",
+                    new PlayCardUseCase.Request(game.dixitId, round, guesser.getId(), cardId));
+        }
+        for (Player guesser : guessers) {
+            var playCards = getDixitOverview(game, guesser.getId()).playCards;
+            int cardId = playCards.stream()
+                    .filter(playCard -> !guesser.getId().equals(playCard.player.id))
+                    .findFirst()
+                    .map(playCard -> playCard.card.id)
+                    .orElseThrow();
+            move(game, GUESS_STORY, "PUT", roundPath + guesser.getId() + "/guess",
+                    new GuessStoryUseCase.Request(game.dixitId, round, guesser.getId(), cardId));
+        }
+    }
+
+    private static int firstHandCardId(DixitOverview overview) {
+        return overview.handCards.iterator().next().id;
+    }
+
+    private StompSession subscribeEvents(LoadGame game, String playerId) throws Exception {
+        var connectHeaders = new StompHeaders();
+        connectHeaders.add(AUTHORIZATION, "Bearer " + playerId);
+        var stompSession = stompClient.connect(format("ws://localhost:%d/broker", port), new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {
+        }).get(EVENT_TIMEOUT_SECONDS, SECONDS);
+        String dixitTopic = format("%s/dixit/%s", STOMP_ROOT_DESTINATION_PREFIX, game.dixitId);
+        var eventHandler = new DixitEventLatencyStompFrameHandler(game::recordEventDelivered);
+        stompSession.subscribe(format("%s/gameStates/%s", dixitTopic, GameState.STARTED), eventHandler);
+        stompSession.subscribe(format("%s/gameStates/%s", dixitTopic, GameState.OVER), new DixitEventLatencyStompFrameHandler(event -> {
+            game.recordEventDelivered(event);
+            game.gameOverEventsDelivered.countDown();
+        }));
+        for (RoundState roundState : RoundState.values()) {
+            stompSession.subscribe(format("%s/roundStates/%s", dixitTopic, roundState), eventHandler);
+        }
+        stompSession.subscribe(format("/user/queue/dixit/%s/handCards", game.dixitId), eventHandler);
+        return stompSession;
+    }
+
+    /**
+     * Every event of a move carries the sequence the move saves the game at, the time the move is sent is kept by it.
+     */
+    private void move(LoadGame game, String endpoint, String method, String path, Object request) {
+        game.sentNanos.put(game.nextSequence++, System.nanoTime());
+        send(endpoint, method, path, ofString(toJson(request)));
+        numberOfMoves.incrementAndGet();
+    }
+
+    private DixitOverview getDixitOverview(LoadGame game, String playerId) {
+        String body = send(GET_DIXIT_OVERVIEW, "GET", format("/%s/players/%s/overview", game.dixitId, playerId), noBody());
+        return fromJson(body, DixitOverview.class);
+    }
+
+    @SneakyThrows
+    private String send(String endpoint, String method, String path, HttpRequest.BodyPublisher body) {
+        var request = HttpRequest.newBuilder(URI.create(format("http://localhost:%d%s%s", port, API_PREFIX, path)))
+                .header("Content-Type", "application/json")
+                .method(method, body)
+                .build();
+        long start = System.nanoTime();
+        var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        record(endpoint, System.nanoTime() - start);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(format("%s %s responded %d: %s", method, path, response.statusCode(), response.body()));
+        }
+        return response.body();
+    }
+
+    private void record(String name, long nanos) {
+        recorders.get(name).recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, NANOSECONDS.toMicros(nanos)));
+    }
+
+    @SneakyThrows
+    private void report(int concurrentGames, Duration elapsed) {
+        Files.createDirectories(REPORT_DIRECTORY);
+        double seconds = elapsed.toNanos() / 1e9;
+        System.out.printf("%d concurrent games for %d ms: %d games, %.1f games/sec, %.1f moves/sec, %d game over events undelivered%n",
+                concurrentGames, elapsed.toMillis(), numberOfGames.get(), numberOfGames.get() / seconds,
+                numberOfMoves.get() / seconds, undeliveredGameOverEvents.get());
+        System.out.printf("%-60s %10s %10s %10s %10s %10s %10s%n", "latency (ms)", "count", "p50", "p90", "p99", "p99.9", "max");
+        int fileNumber = 0;
+        for (var recorder : recorders.entrySet()) {
+            Histogram histogram = recorder.getValue().getIntervalHistogram();
+            System.out.printf("%-60s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n", recorder.getKey(), histogram.getTotalCount(),
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / MICROS_PER_MILLI);
+            var hgrmFile = REPORT_DIRECTORY.resolve(format("%d-%s.hgrm", fileNumber++,
+                    recorder.getKey().replaceAll("[^A-Za-z]+", "-").replaceAll("^-|-$", "")));
+            try (var printStream = new PrintStream(Files.newOutputStream(hgrmFile))) {
+                histogram.outputPercentileDistribution(printStream, MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    /**
+     * A game is played by one worker, only the events arrive on the STOMP sessions' threads.
+     */
+    private class LoadGame {
+        private final String dixitId;
+        private final Map<Long, Long> sentNanos = new ConcurrentHashMap<>();
+        private final CountDownLatch gameOverEventsDelivered;
+        private long nextSequence;
+
+        private LoadGame(String dixitId, int numberOfPlayers) {
+            this.dixitId = dixitId;
+            this.gameOverEventsDelivered = new CountDownLatch(numberOfPlayers);
+        }
+
+        private void recordEventDelivered(ObjectNode event) {
+            Long sentAt = sentNanos.get(event.path("sequence").asLong(-1));
+            if (sentAt != null) {
+                record(EVENT_DELIVERY, System.nanoTime() - sentAt);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package tw.wally.dixit;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Plays every scenario of {@link DixitControllerTest} against the event-sourced repository.
+ *
+ * @author - wally55077@gmail.com
+ */
+@TestPropertySource(properties = {"dixit.repository.mode=event-sourced", "dixit.repository.event-sourced.verification-rate=1"})
+public class EventSourcedDixitControllerTest extends DixitControllerTest {
+}
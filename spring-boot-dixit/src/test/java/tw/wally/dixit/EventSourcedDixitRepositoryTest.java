@@ -0,0 +1,78 @@
+package tw.wally.dixit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import tw.wally.dixit.exceptions.ConflictException;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.model.RoundState;
+import tw.wally.dixit.repositories.EventSourcedDixitRepository;
+import tw.wally.dixit.repositories.entities.DixitEventData;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static tw.wally.dixit.repositories.entities.DixitEventData.Type.*;
+import static tw.wally.dixit.utils.StreamUtils.mapToList;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@TestPropertySource(properties = {"dixit.repository.mode=event-sourced", "dixit.repository.event-sourced.verification-rate=1"})
+public class EventSourcedDixitRepositoryTest extends AbstractDixitSpringBootTest {
+
+    @Autowired
+    private EventSourcedDixitRepository eventSourcedDixitRepository;
+
+    @Test
+    public void GivenStoryToldAndTwoGuessersPlayedCard_ThenShouldAppendOnlyTheMovesAfterTheSnapshot() throws Exception {
+        Dixit dixit = givenGuessersPlayedCardAndGetDixit(2);
+
+        assertEquals(List.of(SNAPSHOT, STORY_TOLD, CARD_PLAYED, CARD_PLAYED), eventTypes());
+        assertEquals(3L, dixit.getVersion());
+        assertEquals(RoundState.CARD_PLAYING, dixit.getCurrentRoundState());
+        assertTrue(dixit.mayHaveCurrentStory().isPresent());
+        assertEquals(2, dixit.getCurrentPlayCards().size());
+    }
+
+    @Test
+    public void WhenRoundScored_ThenShouldAppendSnapshotOfTheNextRound() throws Exception {
+        Dixit dixit = givenAllGuessersGuessedStoryAndGetDixit();
+
+        var eventTypes = eventTypes();
+        assertEquals(SNAPSHOT, eventTypes.get(eventTypes.size() - 1));
+        assertEquals(SECOND_ROUND, dixit.getNumberOfRounds());
+        assertEquals(RoundState.STORY_TELLING, dixit.getCurrentRoundState());
+    }
+
+    @Test
+    public void GivenTwoMovesMadeBetweenTwoSaves_WhenSave_ThenShouldAppendOneSnapshotAndMoveTheVersionByOne() throws Exception {
+        Dixit dixit = givenStoryToldAndGetDixit();
+        long version = dixit.getVersion();
+        dixit.getCurrentGuessers().stream().limit(2)
+                .forEach(guesser -> dixit.playCard(guesser.getId(), guesser.getHandCards().get(0).getId()));
+
+        Dixit savedDixit = dixitRepository.save(dixit);
+
+        assertEquals(List.of(SNAPSHOT, STORY_TOLD, SNAPSHOT), eventTypes());
+        assertEquals(version + 1, savedDixit.getVersion());
+        assertEquals(2, dixitRepository.findDixitById(DIXIT_ID).orElseThrow().getCurrentPlayCards().size());
+    }
+
+    @Test
+    public void GivenDixitSavedByAnotherCommand_WhenSaveStaleDixit_ThenShouldThrowConflict() throws Exception {
+        Dixit dixit = givenStoryToldAndGetDixit();
+        Dixit staleDixit = dixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+        var guesser = dixit.getCurrentGuessers().get(0);
+        dixit.playCard(guesser.getId(), guesser.getHandCards().get(0).getId());
+        dixitRepository.save(dixit);
+
+        var anotherGuesser = staleDixit.getCurrentGuessers().get(1);
+        staleDixit.playCard(anotherGuesser.getId(), anotherGuesser.getHandCards().get(0).getId());
+        assertThrows(ConflictException.class, () -> dixitRepository.save(staleDixit));
+    }
+
+    private List<DixitEventData.Type> eventTypes() {
+        return mapToList(eventSourcedDixitRepository.findEventsByGameId(DIXIT_ID), DixitEventData::getType);
+    }
+}
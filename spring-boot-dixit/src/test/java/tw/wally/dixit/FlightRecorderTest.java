@@ -0,0 +1,133 @@
+package tw.wally.dixit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import tw.wally.dixit.jfr.DixitFlightRecorder;
+import tw.wally.dixit.jfr.UseCaseEvent;
+import tw.wally.dixit.model.Dixit;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static java.util.Comparator.comparing;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@TestPropertySource(properties = {"dixit.jfr.enabled=true", "dixit.broker.skip-unsubscribed=false"})
+public class FlightRecorderTest extends AbstractDixitSpringBootTest {
+    private Recording recording;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void startRecording() {
+        recording = new Recording();
+        for (String eventName : List.of("tw.wally.dixit.UseCase", "tw.wally.dixit.Repository", "tw.wally.dixit.StompSend")) {
+            recording.enable(eventName).withThreshold(Duration.ZERO);
+        }
+        recording.start();
+    }
+
+    @AfterEach
+    public void closeRecording() {
+        recording.close();
+        DixitFlightRecorder.setEnabled(true);
+    }
+
+    @Test
+    public void WhenDixitCreatedAndStoryTold_ThenUseCasesSavesAndSendsShouldBeRecorded() throws Exception {
+        long cardPlayedSent = cardPlayedSent();
+
+        Dixit dixit = givenStoryToldAndGetDixit();
+        // the events of a game are sent in order, the hand cards of the created game are sent before the told story
+        awaitCardPlayedSent(cardPlayedSent + 1);
+        var events = stopAndReadEvents();
+
+        var createDixitEvent = findEvent(events, "tw.wally.dixit.UseCase", "useCase", "CreateDixitUseCase");
+        assertEquals(DIXIT_ID, createDixitEvent.getString("gameId"));
+        assertEquals(NUMBER_OF_PLAYERS, createDixitEvent.getInt("players"));
+        assertEquals("OK", createDixitEvent.getString("outcome"));
+        var tellStoryEvent = findEvent(events, "tw.wally.dixit.UseCase", "useCase", "TellStoryUseCase");
+        assertEquals(dixit.getNumberOfRounds(), tellStoryEvent.getInt("round"));
+        assertEquals(dixit.getCurrentStoryteller().getId(), tellStoryEvent.getString("playerId"));
+        assertEquals(NUMBER_OF_PLAYERS, tellStoryEvent.getInt("players"));
+        var loadEvent = findEvent(events, "tw.wally.dixit.Repository", "operation", "load");
+        assertTrue(loadEvent.getInt("documentBytes") > 0);
+
+        var saveEvents = events.stream()
+                .filter(event -> "tw.wally.dixit.Repository".equals(event.getEventType().getName()))
+                .filter(event -> "save".equals(event.getString("operation")))
+                .sorted(comparing(RecordedEvent::getStartTime))
+                .collect(toList());
+        assertEquals(2, saveEvents.size());
+        assertFalse(saveEvents.get(0).getBoolean("partial"));
+        assertTrue(saveEvents.get(1).getBoolean("partial"));
+        assertEquals(NUMBER_OF_PLAYERS, saveEvents.get(1).getInt("players"));
+        // the partial save only writes the story and the cards it changed
+        assertTrue(saveEvents.get(1).getInt("documentBytes") > 0);
+        assertTrue(saveEvents.get(1).getInt("documentBytes") < saveEvents.get(0).getInt("documentBytes"));
+
+        var handCardsEvent = findEvent(events, "tw.wally.dixit.StompSend", "topic",
+                "/user/" + dixit.getCurrentStoryteller().getId() + "/queue/dixit/" + DIXIT_ID + "/handCards");
+        assertEquals("DixitRoundStoryToldEvent", handCardsEvent.getString("event"));
+        assertTrue(handCardsEvent.getInt("payloadBytes") > 0);
+    }
+
+    @Test
+    public void GivenEventsDisabled_WhenRecording_ThenUseCaseEventShouldNotBeEnabled() {
+        assertTrue(new UseCaseEvent().isEnabled());
+
+        DixitFlightRecorder.setEnabled(false);
+
+        assertFalse(new UseCaseEvent().isEnabled());
+    }
+
+    private List<RecordedEvent> stopAndReadEvents() throws Exception {
+        recording.stop();
+        Path file = Files.createTempFile("dixit", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static RecordedEvent findEvent(List<RecordedEvent> events, String eventName, String field, String value) {
+        return events.stream()
+                .filter(event -> eventName.equals(event.getEventType().getName()))
+                .filter(event -> value.equals(event.getString(field)))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private long cardPlayedSent() {
+        DistributionSummary payloadSizes = Search.in(meterRegistry).name("dixit.broker.payload.size")
+                .tag("event", "DixitRoundCardPlayedEvent").tag("topic", "SHARED").summary();
+        return payloadSizes == null ? 0 : payloadSizes.count();
+    }
+
+    private void awaitCardPlayedSent(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (cardPlayedSent() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, cardPlayedSent());
+    }
+}
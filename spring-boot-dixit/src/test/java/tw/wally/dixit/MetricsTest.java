@@ -0,0 +1,103 @@
+package tw.wally.dixit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.search.Search;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.test.context.TestPropertySource;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.model.Player;
+
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+@AutoConfigureMetrics
+// the events are measured as they are sent, nobody subscribes to them here
+@TestPropertySource(properties = "dixit.broker.skip-unsubscribed=false")
+public class MetricsTest extends AbstractDixitSpringBootTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void WhenDixitCreatedAndStoryTold_ThenUseCasesRepositoryMappingAndBrokerShouldBeMeasured() throws Exception {
+        long createDixitCount = useCaseCount("CreateDixitUseCase", "OK");
+        long tellStoryCount = useCaseCount("TellStoryUseCase", "OK");
+        long saveCount = timerCount(Search.in(meterRegistry).name("dixit.repository").tag("method", "save").tag("outcome", "OK"));
+        long toDataCount = timerCount(Search.in(meterRegistry).name("dixit.data.mapping").tag("direction", "to-data"));
+        long toEntityCount = timerCount(Search.in(meterRegistry).name("dixit.data.mapping").tag("direction", "to-entity"));
+        long publishCount = timerCount(Search.in(meterRegistry).name("dixit.broker.publish"));
+        long handCardsPayloadCount = handCardsPayloadCount();
+
+        givenStoryToldAndGetDixit();
+
+        assertEquals(createDixitCount + 1, useCaseCount("CreateDixitUseCase", "OK"));
+        assertEquals(tellStoryCount + 1, useCaseCount("TellStoryUseCase", "OK"));
+        assertEquals(saveCount + 2, timerCount(Search.in(meterRegistry).name("dixit.repository").tag("method", "save").tag("outcome", "OK")));
+        assertTrue(timerCount(Search.in(meterRegistry).name("dixit.data.mapping").tag("direction", "to-data")) > toDataCount);
+        assertTrue(timerCount(Search.in(meterRegistry).name("dixit.data.mapping").tag("direction", "to-entity")) > toEntityCount);
+        assertEquals(publishCount + 2, timerCount(Search.in(meterRegistry).name("dixit.broker.publish")));
+        awaitUntil(() -> handCardsPayloadCount() == handCardsPayloadCount + NUMBER_OF_PLAYERS);
+    }
+
+    @Test
+    public void WhenGuesserTellsStoryAndOverviewOfUnknownDixitRequested_ThenUseCasesShouldBeMeasuredWithTheirOutcome() throws Exception {
+        Dixit dixit = createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+        Player guesser = dixit.getCurrentGuessers().get(0);
+        long invalidOperationCount = useCaseCount("TellStoryUseCase", "INVALID_OPERATION");
+        long notFoundCount = useCaseCount("GetDixitOverviewUseCase", "NOT_FOUND");
+
+        tellStory(dixit.getNumberOfRounds(), guesser)
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/overview", "unknown", guesser.getId()))
+                .andExpect(status().isNotFound());
+
+        assertEquals(invalidOperationCount + 1, useCaseCount("TellStoryUseCase", "INVALID_OPERATION"));
+        assertEquals(notFoundCount + 1, useCaseCount("GetDixitOverviewUseCase", "NOT_FOUND"));
+    }
+
+    @Test
+    public void WhenPrometheusScrapes_ThenShouldExposeTheHistogramsOfTheUseCases() throws Exception {
+        createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+
+        String scrape = getContentAsString(mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk()));
+
+        assertTrue(scrape.contains("dixit_usecase_seconds_bucket{outcome=\"OK\",usecase=\"CreateDixitUseCase\""));
+        assertTrue(scrape.contains("dixit_repository_seconds_count{method=\"save\""));
+    }
+
+    private long useCaseCount(String useCase, String outcome) {
+        return timerCount(Search.in(meterRegistry).name("dixit.usecase").tag("usecase", useCase).tag("outcome", outcome));
+    }
+
+    private static long timerCount(Search search) {
+        Timer timer = search.timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private long handCardsPayloadCount() {
+        DistributionSummary payloadSizes = Search.in(meterRegistry).name("dixit.broker.payload.size")
+                .tag("event", "DixitRoundStoryToldEvent").tag("topic", "HAND_CARDS").summary();
+        return payloadSizes == null ? 0 : payloadSizes.count();
+    }
+
+    private static void awaitUntil(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (!condition.get() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.get());
+    }
+}
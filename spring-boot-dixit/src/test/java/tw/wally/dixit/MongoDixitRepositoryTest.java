@@ -0,0 +1,87 @@
+package tw.wally.dixit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import tw.wally.dixit.exceptions.ConflictException;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.model.Player;
+import tw.wally.dixit.repositories.entities.DixitData;
+
+import java.util.ArrayList;
+
+import static java.util.Collections.reverse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static tw.wally.dixit.utils.StreamUtils.mapToList;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+public class MongoDixitRepositoryTest extends AbstractDixitSpringBootTest {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void WhenSaveDixit_ThenShouldBumpItsVersion() throws Exception {
+        Dixit dixit = createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+
+        Dixit savedDixit = dixitRepository.save(dixit);
+
+        assertEquals(dixit.getVersion() + 1, savedDixit.getVersion());
+    }
+
+    @Test
+    public void GivenDixitSavedByAnotherCommand_WhenSaveStaleDixit_ThenShouldThrowConflict() throws Exception {
+        createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+        Dixit dixit = dixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+        Dixit staleDixit = dixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+        dixitRepository.save(dixit);
+
+        assertThrows(ConflictException.class, () -> dixitRepository.save(staleDixit));
+    }
+
+    @Test
+    public void GivenDixitSavedBeforeVersionsWereIntroduced_WhenSaveIt_ThenShouldWriteItWithTheFirstVersion() throws Exception {
+        createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+        mongoTemplate.updateFirst(query(where("_id").is(DIXIT_ID)), new Update().unset("version"), DixitData.class);
+        Dixit dixit = dixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+        assertNull(dixit.getVersion());
+
+        Dixit savedDixit = dixitRepository.save(dixit);
+
+        assertEquals(0L, savedDixit.getVersion());
+        assertEquals(0L, dixitRepository.findDixitById(DIXIT_ID).orElseThrow().getVersion());
+        assertEquals(1L, dixitRepository.save(savedDixit).getVersion());
+    }
+
+    @Test
+    public void GivenGuessersPlayCardsAgainstTheirSeatOrder_WhenReloadAfterThePartialUpdates_ThenShouldKeepThePlayOrder() throws Exception {
+        Dixit dixit = givenStoryToldAndGetDixit();
+        var guessers = new ArrayList<>(dixit.getCurrentGuessers());
+        reverse(guessers);
+
+        for (Player guesser : guessers) {
+            Dixit loadedDixit = dixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+            loadedDixit.playCard(guesser.getId(), guesser.getHandCards().get(0).getId());
+            dixitRepository.save(loadedDixit);
+        }
+
+        var playCards = dixitRepository.findDixitById(DIXIT_ID).orElseThrow().getCurrentPlayCards();
+        assertEquals(mapToList(guessers, Player::getId), mapToList(playCards, playCard -> playCard.getPlayer().getId()));
+    }
+
+    @Test
+    public void GivenDixitCreated_WhenCreateItAgain_ThenShouldRespondConflict() throws Exception {
+        createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+
+        createDixitWithPlayers(NUMBER_OF_PLAYERS)
+                .andExpect(status().isConflict());
+    }
+}
@@ -0,0 +1,181 @@
+package tw.wally.dixit;
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import tw.wally.dixit.clients.LobbyServiceDriver;
+import tw.wally.dixit.events.roundstate.DixitRoundStoryToldEvent;
+import tw.wally.dixit.model.Dixit;
+import tw.wally.dixit.model.Player;
+import tw.wally.dixit.model.RoundState;
+import tw.wally.dixit.services.SerializedDixitOverviewCache;
+import tw.wally.dixit.services.TokenService;
+import tw.wally.dixit.services.TokenService.Token;
+import tw.wally.dixit.utils.DixitEventStompFrameHandler;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static tw.wally.dixit.configs.WebSocketConfiguration.STOMP_ROOT_DESTINATION_PREFIX;
+
+/**
+ * Two instances relay to the same STOMP broker, a player connected to one instance
+ * receives the events of a game played on the other instance, and neither caches nor long-polls the overviews the other's moves
+ * wouldn't invalidate.
+ *
+ * @author - wally55077@gmail.com
+ */
+@DirtiesContext
+@TestPropertySource(properties = {"dixit.broker.mode=RELAY", "dixit.broker.relay.port=" + MultiNodeDixitBrokerTest.RELAY_PORT,
+        "dixit.overview.cache.max-size=64MB"})
+public class MultiNodeDixitBrokerTest extends AbstractDixitSpringBootTest {
+    static final int RELAY_PORT = 61623;
+    private static final String BASE_DIXIT_TOPIC = format("%s/dixit/%s", STOMP_ROOT_DESTINATION_PREFIX, DIXIT_ID);
+    private static EmbeddedActiveMQ stompBroker;
+    private static ConfigurableApplicationContext anotherNode;
+
+    @Autowired
+    private StompBrokerRelayMessageHandler stompBrokerRelayMessageHandler;
+
+    @Autowired
+    private SerializedDixitOverviewCache serializedDixitOverviewCache;
+
+    @BeforeAll
+    public static void startStompBrokerAndAnotherNode() throws Exception {
+        var configuration = new ConfigurationImpl();
+        configuration.setBrokerInstance(new File("target/artemis"));
+        configuration.setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .addAcceptorConfiguration("stomp", format("tcp://127.0.0.1:%d?protocols=STOMP;multicastPrefix=%s/", RELAY_PORT, STOMP_ROOT_DESTINATION_PREFIX));
+        stompBroker = new EmbeddedActiveMQ().setConfiguration(configuration).start();
+        anotherNode = new SpringApplicationBuilder(DixitApplication.class, AnotherNodeConfiguration.class)
+                .run("--server.port=0", "--dixit.broker.mode=RELAY", "--dixit.broker.relay.port=" + RELAY_PORT);
+    }
+
+    @TestConfiguration
+    public static class AnotherNodeConfiguration {
+
+        @Bean
+        @Primary
+        public LobbyServiceDriver stubLobbyServiceDriver() {
+            return mock(LobbyServiceDriver.class);
+        }
+    }
+
+    @AfterAll
+    public static void stopAnotherNodeAndStompBroker() throws Exception {
+        anotherNode.close();
+        stompBroker.stop();
+    }
+
+    @Test
+    public void GivenPlayersConnectedToAnotherNode_WhenDixitCreatedOnThisNode_ThenPlayersShouldReceiveTheStoryAndTheirHandCards() throws Exception {
+        awaitBrokerAvailable(stompBrokerRelayMessageHandler);
+        awaitBrokerAvailable(anotherNode.getBean(StompBrokerRelayMessageHandler.class));
+        StompSession stompSession = connectToAnotherNode("0");
+        var storyToldHandler = subscribe(stompSession, format("%s/roundStates/%s", BASE_DIXIT_TOPIC, RoundState.STORY_TELLING));
+        var handCardsHandler = subscribe(stompSession, format("/user/queue/dixit/%s/handCards", DIXIT_ID));
+
+        createDixitWithPlayers(NUMBER_OF_PLAYERS);
+
+        Dixit dixit = dixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+        var dixitRoundStoryToldEvent = storyToldHandler.getPayload();
+        assertNotNull(dixitRoundStoryToldEvent);
+        assertEquals(dixit.getCurrentStoryteller(), dixitRoundStoryToldEvent.getStoryteller());
+
+        Player player = dixit.getPlayer("0");
+        var handCardsEvent = handCardsHandler.getPayload();
+        assertNotNull(handCardsEvent);
+        assertEquals(player.getId(), handCardsEvent.getPlayerId());
+        assertEqualsIgnoreOrder(player.getHandCards(), handCardsEvent.getHandCards());
+    }
+
+    @Test
+    public void GivenOverviewCacheSized_WhenGetOverview_ThenShouldNotBeCachedWithRelayedBroker() throws Exception {
+        Dixit dixit = createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+
+        mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/overview", DIXIT_ID, dixit.getCurrentStoryteller().getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(0, serializedDixitOverviewCache.size());
+    }
+
+    @Test
+    public void WhenAwaitOverviewAfterCurrentVersionWithRelayedBroker_ThenShouldRespondNotModifiedAtOnce() throws Exception {
+        Dixit dixit = createDixitWithPlayersAndGet(NUMBER_OF_PLAYERS);
+
+        var awaiting = mockMvc.perform(get(API_PREFIX + "/{dixitId}/players/{playerId}/overview", DIXIT_ID, dixit.getCurrentStoryteller().getId())
+                        .param("after", String.valueOf(dixit.getVersion())))
+                .andExpect(request().asyncStarted())
+                .andExpect(request().asyncResult(notNullValue()))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(awaiting))
+                .andExpect(status().isNotModified());
+    }
+
+    private void awaitBrokerAvailable(StompBrokerRelayMessageHandler stompBrokerRelayMessageHandler) throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && !stompBrokerRelayMessageHandler.isBrokerAvailable(); attempt++) {
+            Thread.sleep(100);
+        }
+        assertTrue(stompBrokerRelayMessageHandler.isBrokerAvailable());
+    }
+
+    // the other node validates the player's token with the real token service
+    private StompSession connectToAnotherNode(String playerId) throws Exception {
+        var stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        var converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        stompClient.setMessageConverter(converter);
+        var taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.initialize();
+        stompClient.setTaskScheduler(taskScheduler);
+        String port = anotherNode.getEnvironment().getProperty("local.server.port");
+        var connectHeaders = new StompHeaders();
+        String token = anotherNode.getBean(TokenService.class).createToken(new Token(playerId, DIXIT_PLAYER + playerId, 0));
+        connectHeaders.add(AUTHORIZATION, "Bearer " + token);
+        StompSession stompSession = stompClient.connect(format("ws://localhost:%s/broker", port), new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {
+        }).get(10, SECONDS);
+        stompSession.setAutoReceipt(true);
+        return stompSession;
+    }
+
+    // waits for the receipt, so the subscription has reached the STOMP broker before any event is published
+    private DixitEventStompFrameHandler<DixitRoundStoryToldEvent> subscribe(StompSession stompSession, String destination) throws InterruptedException {
+        var dixitEventStompFrameHandler = new DixitEventStompFrameHandler<>(DixitRoundStoryToldEvent.class);
+        CountDownLatch subscribed = new CountDownLatch(1);
+        stompSession.subscribe(destination, dixitEventStompFrameHandler)
+                .addReceiptTask(subscribed::countDown);
+        assertTrue(subscribed.await(10, SECONDS));
+        return dixitEventStompFrameHandler;
+    }
+}
@@ -0,0 +1,90 @@
+package tw.wally.dixit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import tw.wally.dixit.events.BufferedEventBus;
+import tw.wally.dixit.events.EventBus;
+import tw.wally.dixit.events.gamestate.DixitGameOverEvent;
+import tw.wally.dixit.exceptions.ConflictException;
+import tw.wally.dixit.exceptions.InvalidGameOperationException;
+import tw.wally.dixit.services.RetryingDixitCommandExecutor;
+import tw.wally.dixit.usecases.StripedDixitCommandExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static tw.wally.dixit.model.GameState.OVER;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+public class RetryingDixitCommandExecutorTest {
+    private static final String DIXIT_ID = "dixitId";
+    private static final int MAX_ATTEMPTS = 3;
+    private final List<EventBus.Event> publishedEvents = new ArrayList<>();
+    private final BufferedEventBus bufferedEventBus = new BufferedEventBus(publishedEvents::add);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RetryingDixitCommandExecutor retryingDixitCommandExecutor =
+            new RetryingDixitCommandExecutor(new StripedDixitCommandExecutor(1), bufferedEventBus, MAX_ATTEMPTS, meterRegistry);
+
+    @Test
+    public void GivenFirstAttemptConflicts_WhenExecute_ThenShouldReapplyTheCommandAndPublishItsEventsOnce() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        retryingDixitCommandExecutor.execute(DIXIT_ID, () -> {
+            bufferedEventBus.publish(gameOverEvent());
+            if (attempts.incrementAndGet() == 1) {
+                throw new ConflictException();
+            }
+        });
+
+        assertEquals(2, attempts.get());
+        assertEquals(1, publishedEvents.size());
+        assertEquals(1, count("dixit.command.conflicts"));
+        assertEquals(1, count("dixit.command.retries"));
+        assertEquals(0, count("dixit.command.give-ups"));
+    }
+
+    @Test
+    public void GivenEveryAttemptConflicts_WhenExecute_ThenShouldGiveUpAfterMaxAttemptsWithoutPublishingEvents() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ConflictException.class, () -> retryingDixitCommandExecutor.execute(DIXIT_ID, () -> {
+            attempts.incrementAndGet();
+            bufferedEventBus.publish(gameOverEvent());
+            throw new ConflictException();
+        }));
+
+        assertEquals(MAX_ATTEMPTS, attempts.get());
+        assertEquals(0, publishedEvents.size());
+        assertEquals(MAX_ATTEMPTS, count("dixit.command.conflicts"));
+        assertEquals(MAX_ATTEMPTS - 1, count("dixit.command.retries"));
+        assertEquals(1, count("dixit.command.give-ups"));
+    }
+
+    @Test
+    public void GivenCommandIsInvalid_WhenExecute_ThenShouldNotRetryIt() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(InvalidGameOperationException.class, () -> retryingDixitCommandExecutor.execute(DIXIT_ID, () -> {
+            attempts.incrementAndGet();
+            throw new InvalidGameOperationException();
+        }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(0, count("dixit.command.retries"));
+    }
+
+    private DixitGameOverEvent gameOverEvent() {
+        return new DixitGameOverEvent(DIXIT_ID, 1, "playerId", OVER, emptyList());
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name).count();
+    }
+}
@@ -0,0 +1,272 @@
+package tw.wally.dixit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import tw.wally.dixit.exceptions.ConflictException;
+import tw.wally.dixit.model.*;
+import tw.wally.dixit.repositories.CardRepository;
+import tw.wally.dixit.repositories.DixitDataMapper;
+import tw.wally.dixit.repositories.MongoDixitDAO;
+import tw.wally.dixit.repositories.WriteBehindDixitRepository;
+import tw.wally.dixit.repositories.entities.DixitData;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.IntStream.range;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static tw.wally.dixit.repositories.entities.DixitData.toData;
+
+/**
+ * @author - wally55077@gmail.com
+ */
+public class WriteBehindDixitRepositoryTest {
+    private static final String DIXIT_ID = "dixitId";
+    private static final int NUMBER_OF_PLAYERS = 4;
+    private final MongoDixitDAO mongoDixitDAO = mock(MongoDixitDAO.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CardRepository cardRepository = mock(CardRepository.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WriteBehindDixitRepository writeBehindDixitRepository;
+
+    @BeforeEach
+    public void setup() {
+        var cards = range(0, 36)
+                .mapToObj(number -> new Card(number, "image: " + number))
+                .collect(toMap(Card::getId, identity()));
+        when(cardRepository.findAllAsMap()).thenReturn(cards);
+        when(cardRepository.findCardById(anyInt())).thenAnswer(invocation -> Optional.ofNullable(cards.get(invocation.<Integer>getArgument(0))));
+        when(mongoDixitDAO.findById(anyString())).thenReturn(Optional.empty());
+        when(mongoTemplate.findAndReplace(any(Query.class), any(DixitData.class), any(FindAndReplaceOptions.class)))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        writeBehindDixitRepository = new WriteBehindDixitRepository(mongoDixitDAO, mongoTemplate, new DixitDataMapper(cardRepository), Duration.ofHours(1), Duration.ofHours(1), meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        writeBehindDixitRepository.shutdown();
+    }
+
+    @Test
+    public void GivenSeveralMovesSaved_WhenFlush_ThenShouldWriteOnlyTheLatestSnapshotOnce() {
+        Dixit dixit = startedDixit();
+        writeBehindDixitRepository.save(dixit);
+        Player storyteller = dixit.getCurrentStoryteller();
+        dixit.tellStory("phrase", storyteller.getId(), storyteller.getHandCards().get(0).getId());
+        writeBehindDixitRepository.save(dixit);
+
+        verify(mongoTemplate, never()).findAndReplace(any(Query.class), any(DixitData.class), any(FindAndReplaceOptions.class));
+        writeBehindDixitRepository.flush();
+
+        DixitData snapshot = captureSavedSnapshots(1).get(0);
+        assertEquals(RoundState.CARD_PLAYING, snapshot.getRound().getRoundState());
+        assertEquals(1L, snapshot.getVersion());
+    }
+
+    @Test
+    public void WhenSave_ThenShouldMoveTheDixitToItsNextVersion() {
+        Dixit dixit = startedDixit();
+
+        writeBehindDixitRepository.save(dixit);
+        assertEquals(0L, dixit.getVersion());
+        writeBehindDixitRepository.save(dixit);
+        assertEquals(1L, dixit.getVersion());
+    }
+
+    @Test
+    public void GivenDixitLoaded_WhenFindDixitByIdAgain_ThenShouldReturnResidentDixitWithoutQueryingMongo() {
+        DixitData dixitData = toData(startedDixit());
+        when(mongoDixitDAO.findById(DIXIT_ID)).thenReturn(Optional.of(dixitData));
+
+        Dixit dixit = writeBehindDixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+
+        assertSame(dixit, writeBehindDixitRepository.findDixitById(DIXIT_ID).orElseThrow());
+        verify(mongoDixitDAO, times(1)).findById(DIXIT_ID);
+    }
+
+    @Test
+    public void WhenSaveOverDixit_ThenShouldFlushImmediatelyAndEvictIt() {
+        Dixit startedDixit = startedDixit();
+        Dixit overDixit = Dixit.builder()
+                .id(DIXIT_ID)
+                .gameState(GameState.OVER)
+                .victoryCondition(startedDixit.getVictoryCondition())
+                .deck(new Deck(startedDixit.getDeck().getCards()))
+                .players(startedDixit.getPlayers())
+                .numberOfRounds(startedDixit.getNumberOfRounds())
+                .round(startedDixit.getRound())
+                .winners(startedDixit.getPlayers())
+                .build();
+
+        writeBehindDixitRepository.save(overDixit);
+
+        assertEquals(GameState.OVER, captureSavedSnapshots(1).get(0).getGameState());
+        assertTrue(writeBehindDixitRepository.findDixitById(DIXIT_ID).isEmpty());
+    }
+
+    @Test
+    public void GivenPendingMoves_WhenShutdown_ThenShouldFlushThem() throws InterruptedException {
+        writeBehindDixitRepository.save(startedDixit());
+
+        writeBehindDixitRepository.shutdown();
+
+        assertEquals(DIXIT_ID, captureSavedSnapshots(1).get(0).getId());
+    }
+
+    @Test
+    public void GivenFlushFailed_WhenFlushAgain_ThenShouldRetryThePendingSnapshot() {
+        when(mongoTemplate.findAndReplace(any(Query.class), any(DixitData.class), any(FindAndReplaceOptions.class)))
+                .thenThrow(new IllegalStateException("mongo is down"))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        writeBehindDixitRepository.save(startedDixit());
+
+        writeBehindDixitRepository.flush();
+        writeBehindDixitRepository.flush();
+
+        var snapshots = captureSavedSnapshots(2);
+        assertEquals(DIXIT_ID, snapshots.get(1).getId());
+    }
+
+    @Test
+    public void GivenDixitFlushedOnce_WhenFlushNewMoves_ThenShouldWriteOnTopOfTheFlushedVersion() {
+        Dixit dixit = startedDixit();
+        writeBehindDixitRepository.save(dixit);
+        writeBehindDixitRepository.flush();
+
+        writeBehindDixitRepository.save(dixit);
+        writeBehindDixitRepository.flush();
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).findAndReplace(queries.capture(), any(DixitData.class), any(FindAndReplaceOptions.class));
+        assertEquals(new Document("$exists", false), queries.getAllValues().get(0).getQueryObject().get("version"));
+        assertEquals(0L, queries.getAllValues().get(1).getQueryObject().get("version"));
+        var snapshots = captureSavedSnapshots(2);
+        assertEquals(0L, snapshots.get(0).getVersion());
+        assertEquals(1L, snapshots.get(1).getVersion());
+    }
+
+    @Test
+    public void GivenDixitWrittenByAnotherInstance_WhenFlush_ThenShouldEvictItSoThatItIsReloaded() {
+        when(mongoTemplate.findAndReplace(any(Query.class), any(DixitData.class), any(FindAndReplaceOptions.class)))
+                .thenThrow(new DuplicateKeyException("created by another instance"));
+        Dixit dixit = startedDixit();
+        writeBehindDixitRepository.save(dixit);
+        when(mongoDixitDAO.findById(DIXIT_ID)).thenReturn(Optional.of(toData(dixit)));
+
+        writeBehindDixitRepository.flush();
+
+        assertNotSame(dixit, writeBehindDixitRepository.findDixitById(DIXIT_ID).orElseThrow());
+        verify(mongoDixitDAO).findById(DIXIT_ID);
+    }
+
+    @Test
+    public void GivenDixitLoadedFromMongoAndWrittenByAnotherInstance_WhenFlush_ThenShouldEvictIt() {
+        Dixit dixit = startedDixit();
+        when(mongoDixitDAO.findById(DIXIT_ID)).thenReturn(Optional.of(toData(dixit).withVersion(3L)));
+        Dixit loadedDixit = writeBehindDixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+        when(mongoTemplate.findAndReplace(any(Query.class), any(DixitData.class), any(FindAndReplaceOptions.class))).thenReturn(null);
+
+        writeBehindDixitRepository.save(loadedDixit);
+        writeBehindDixitRepository.flush();
+
+        assertEquals(4L, captureSavedSnapshots(1).get(0).getVersion());
+        assertNotSame(loadedDixit, writeBehindDixitRepository.findDixitById(DIXIT_ID).orElseThrow());
+    }
+
+    @Test
+    public void GivenDixitWrittenByAnotherInstance_WhenSaveItsStaleCopy_ThenShouldRejectItUntilReloaded() {
+        when(mongoTemplate.findAndReplace(any(Query.class), any(DixitData.class), any(FindAndReplaceOptions.class)))
+                .thenThrow(new DuplicateKeyException("created by another instance"));
+        Dixit staleDixit = startedDixit();
+        DixitData dixitDataOfAnotherInstance = toData(startedDixit());
+        writeBehindDixitRepository.save(staleDixit);
+        writeBehindDixitRepository.save(staleDixit);
+        when(mongoDixitDAO.findById(DIXIT_ID)).thenReturn(Optional.of(dixitDataOfAnotherInstance));
+
+        writeBehindDixitRepository.flush();
+
+        assertThrows(ConflictException.class, () -> writeBehindDixitRepository.save(staleDixit));
+        assertEquals(1, meterRegistry.counter("dixit.repository.write-behind.conflicts").count());
+        assertEquals(2, meterRegistry.counter("dixit.repository.write-behind.lost-moves").count());
+        Dixit reloadedDixit = writeBehindDixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+        assertSame(reloadedDixit, writeBehindDixitRepository.save(reloadedDixit));
+    }
+
+    @Test
+    public void GivenFailedCommandChangedPendingDixit_WhenDiscard_ThenShouldRollItBackToItsLatestSave() {
+        Dixit dixit = startedDixit();
+        writeBehindDixitRepository.save(dixit);
+        tellStory(dixit);
+
+        writeBehindDixitRepository.discard(DIXIT_ID);
+
+        Dixit rolledBackDixit = writeBehindDixitRepository.findDixitById(DIXIT_ID).orElseThrow();
+        assertEquals(RoundState.STORY_TELLING, rolledBackDixit.getCurrentRoundState());
+        assertEquals(0L, rolledBackDixit.getVersion());
+        writeBehindDixitRepository.flush();
+        assertEquals(RoundState.STORY_TELLING, captureSavedSnapshots(1).get(0).getRound().getRoundState());
+    }
+
+    @Test
+    public void GivenFailedCommandChangedFlushedDixit_WhenDiscard_ThenShouldReloadItFromMongo() {
+        Dixit dixit = startedDixit();
+        writeBehindDixitRepository.save(dixit);
+        writeBehindDixitRepository.flush();
+        DixitData flushedDixitData = toData(dixit);
+        when(mongoDixitDAO.findById(DIXIT_ID)).thenReturn(Optional.of(flushedDixitData));
+        tellStory(dixit);
+
+        writeBehindDixitRepository.discard(DIXIT_ID);
+
+        assertEquals(RoundState.STORY_TELLING, writeBehindDixitRepository.findDixitById(DIXIT_ID).orElseThrow().getCurrentRoundState());
+        verify(mongoDixitDAO).findById(DIXIT_ID);
+    }
+
+    @Test
+    public void GivenDixitIdle_WhenFlushAndEvictIdleDixits_ThenShouldEvictItOnceFlushed() throws InterruptedException {
+        writeBehindDixitRepository.shutdown();
+        writeBehindDixitRepository = new WriteBehindDixitRepository(mongoDixitDAO, mongoTemplate, new DixitDataMapper(cardRepository), Duration.ofHours(1), Duration.ZERO, meterRegistry);
+        Dixit dixit = startedDixit();
+        writeBehindDixitRepository.save(dixit);
+        when(mongoDixitDAO.findById(DIXIT_ID)).thenReturn(Optional.of(toData(dixit)));
+
+        writeBehindDixitRepository.flushAndEvictIdleDixits();
+
+        assertEquals(DIXIT_ID, captureSavedSnapshots(1).get(0).getId());
+        assertNotSame(dixit, writeBehindDixitRepository.findDixitById(DIXIT_ID).orElseThrow());
+        verify(mongoDixitDAO).findById(DIXIT_ID);
+    }
+
+    private Dixit startedDixit() {
+        Dixit dixit = new Dixit(DIXIT_ID, new VictoryCondition(30), cardRepository.findAllAsMap().values());
+        range(0, NUMBER_OF_PLAYERS).forEach(number -> dixit.join(new Player(String.valueOf(number), "dixitPlayer" + number)));
+        dixit.start();
+        return dixit;
+    }
+
+    private void tellStory(Dixit dixit) {
+        Player storyteller = dixit.getCurrentStoryteller();
+        dixit.tellStory("phrase", storyteller.getId(), storyteller.getHandCards().get(0).getId());
+    }
+
+    private List<DixitData> captureSavedSnapshots(int times) {
+        ArgumentCaptor<DixitData> snapshots = ArgumentCaptor.forClass(DixitData.class);
+        verify(mongoTemplate, times(times)).findAndReplace(any(Query.class), snapshots.capture(), any(FindAndReplaceOptions.class));
+        return snapshots.getAllValues();
+    }
+}
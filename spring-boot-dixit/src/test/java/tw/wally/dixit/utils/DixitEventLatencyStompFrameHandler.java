@@ -0,0 +1,34 @@
+package tw.wally.dixit.utils;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+
+import java.lang.reflect.Type;
+import java.util.function.Consumer;
+
+/**
+ * Unlike {@link DixitEventStompFrameHandler} the frames aren't queued, events of any type are handed to the listener
+ * as their JSON tree as soon as they arrive, so the listener can tell when the event of a move was delivered.
+ *
+ * @author - wally55077@gmail.com
+ */
+public class DixitEventLatencyStompFrameHandler implements StompFrameHandler {
+    private final Consumer<ObjectNode> frameListener;
+
+    public DixitEventLatencyStompFrameHandler(Consumer<ObjectNode> frameListener) {
+        this.frameListener = frameListener;
+    }
+
+    @Override
+    public Type getPayloadType(StompHeaders stompHeaders) {
+        return ObjectNode.class;
+    }
+
+    @Override
+    public void handleFrame(StompHeaders stompHeaders, Object o) {
+        if (o instanceof ObjectNode) {
+            frameListener.accept((ObjectNode) o);
+        }
+    }
+}
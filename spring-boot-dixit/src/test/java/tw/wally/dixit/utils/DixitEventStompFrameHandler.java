@@ -5,22 +5,25 @@ import org.springframework.messaging.simp.stomp.StompFrameHandler;
 import org.springframework.messaging.simp.stomp.StompHeaders;
 
 import java.lang.reflect.Type;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
+ * Events are sent asynchronously, so the payload is the latest frame received once no more frames arrive.
+ *
  * @author - wally55077@gmail.com
  */
 public class DixitEventStompFrameHandler<T> implements StompFrameHandler {
-
+    private static final long QUIET_PERIOD_MILLIS = 200;
     private final Class<T> tClass;
     private final BlockingQueue<T> blockingQueue;
 
     public DixitEventStompFrameHandler(Class<T> tClass) {
         this.tClass = tClass;
-        this.blockingQueue = new ArrayBlockingQueue<>(1);
+        this.blockingQueue = new LinkedBlockingQueue<>();
     }
 
     @Override
@@ -31,7 +34,6 @@ public class DixitEventStompFrameHandler<T> implements StompFrameHandler {
     @SuppressWarnings("unchecked")
     @Override
     public void handleFrame(StompHeaders stompHeaders, Object o) {
-        this.blockingQueue.clear();
         if (o != null && o.getClass() == tClass) {
             this.blockingQueue.add((T) o);
         }
@@ -39,6 +41,11 @@ public class DixitEventStompFrameHandler<T> implements StompFrameHandler {
 
     @SneakyThrows
     public T getPayload() {
-        return this.blockingQueue.poll(10, SECONDS);
+        T payload = this.blockingQueue.poll(10, SECONDS);
+        T laterPayload;
+        while ((laterPayload = this.blockingQueue.poll(QUIET_PERIOD_MILLIS, MILLISECONDS)) != null) {
+            payload = laterPayload;
+        }
+        return payload;
     }
 }